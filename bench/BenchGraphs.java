@@ -0,0 +1,116 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_Builder;
+import ex1.src.WGraph_CSR;
+import ex1.src.WGraph_DS;
+import ex1.src.WGraph_Mapped;
+import ex1.src.weighted_graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Seeded graph generators shared by the benchmarks, so every run (and every implementation) gets the same graphs.
+ */
+final class BenchGraphs {
+    static final long SEED = 1;
+
+    private BenchGraphs() {
+    }
+
+    /**
+     * A random graph like graphCreator of the tests: nodes 0..nodes-1 and random edges with integer weights in 0..99,
+     * built with WGraph_Builder.
+     * @param nodes int - number of nodes
+     * @param degree int - average degree, the graph gets nodes * degree / 2 connect calls
+     * @param seed long - the seed of the edges
+     * @return WGraph_DS - the graph
+     */
+    static WGraph_DS random(int nodes, int degree, long seed) {
+        Random rand = new Random(seed);
+        int edges = (int) ((long) nodes * degree / 2);
+        WGraph_Builder b = new WGraph_Builder(nodes, edges);
+        for (int i = 0; i < nodes; i++) {
+            b.addNode(i);
+        }
+        for (int i = 0; i < edges; i++) {
+            b.connect(rand.nextInt(nodes), rand.nextInt(nodes), rand.nextInt(100));
+        }
+        return b.build();
+    }
+
+    /**
+     * A rows x cols grid with random integer weights in 1..10, like gridCreator of WGraph_CHTest.
+     * Road like graphs are where the Contraction Hierarchy pays off, on random graphs its shortcuts explode.
+     * @param rows int - number of rows
+     * @param cols int - number of columns
+     * @param seed long - the seed of the weights
+     * @return WGraph_DS - the graph, node r * cols + c is in row r and column c
+     */
+    static WGraph_DS grid(int rows, int cols, long seed) {
+        Random rand = new Random(seed);
+        WGraph_Builder b = new WGraph_Builder(rows * cols, 2 * rows * cols);
+        for (int i = 0; i < rows * cols; i++) {
+            b.addNode(i);
+        }
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (c + 1 < cols) {
+                    b.connect(r * cols + c, r * cols + c + 1, 1 + rand.nextInt(10));
+                }
+                if (r + 1 < rows) {
+                    b.connect(r * cols + c, (r + 1) * cols + c, 1 + rand.nextInt(10));
+                }
+            }
+        }
+        return b.build();
+    }
+
+    /**
+     * Returns the graph in the given representation.
+     * @param impl String - "DS" (WGraph_DS), "CSR" (WGraph_CSR), "CSR_FLOAT" (WGraph_CSR with float weights)
+     *             or "MAPPED" (WGraph_Mapped of a temporary file)
+     * @param g WGraph_DS - the graph
+     * @return weighted_graph - the graph in the representation
+     * @throws IOException if the temporary file can't be written
+     */
+    static weighted_graph as(String impl, WGraph_DS g) throws IOException {
+        switch (impl) {
+            case "DS":
+                return g;
+            case "CSR":
+                return new WGraph_CSR(g);
+            case "CSR_FLOAT":
+                return new WGraph_CSR(g, WGraph_CSR.WeightStorage.FLOAT, 0);
+            case "MAPPED":
+                File file = File.createTempFile("bench", ".wgr");
+                file.deleteOnExit();
+                WGraph_Algo ga = new WGraph_Algo();
+                ga.init(g);
+                if (!ga.save(file.getPath())) {
+                    throw new IOException("can't save " + file);
+                }
+                return new WGraph_Mapped(file.getPath());
+            default:
+                throw new IllegalArgumentException("unknown implementation " + impl);
+        }
+    }
+
+    /**
+     * @param count int - number of keys
+     * @param nodes int - the keys are in 0..nodes-1
+     * @param seed long - the seed
+     * @return int[] - random node keys, the benchmarks cycle through them
+     */
+    static int[] keys(int count, int nodes, long seed) {
+        Random rand = new Random(seed);
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = rand.nextInt(nodes);
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,56 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_Algo;
+import ex1.src.weighted_graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WGraph_Algo.isConnected from scratch. WGraph_Algo keeps the components until the graph changes, so every invocation
+ * uses a new WGraph_Algo (the node index and the components are computed again).
+ * A WGraph_DS graph which tracks its connectivity (trackConnectivity) would answer in O(1), the seeded graphs don't.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectivityBench {
+
+    @Param({"DS", "CSR", "MAPPED"})
+    public String impl;
+
+    @Param({"10000", "1000000"})
+    public int nodes;
+
+    @Param({"4", "16"})
+    public int degree;
+
+    private weighted_graph g;
+
+    @Setup
+    public void setup() throws IOException {
+        g = BenchGraphs.as(impl, BenchGraphs.random(nodes, degree, BenchGraphs.SEED));
+    }
+
+    @Benchmark
+    public boolean isConnected() {
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        return ga.isConnected();
+    }
+}
@@ -0,0 +1,80 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A change of the graph (a new edge or a removed one, in turns) followed by isConnected, with the connectivity
+ * tracked by the graph (trackConnectivity) and with the full labeling of WGraph_Algo after every change.
+ * The graph is rebuilt before every iteration, so the iterations start equal.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectivityChangeBench {
+    private static final int MASK = (1 << 16) - 1;
+
+    @Param({"100000"})
+    public int nodes;
+
+    @Param({"6"})
+    public int degree;
+
+    @Param({"true", "false"})
+    public boolean tracked;
+
+    private WGraph_DS g;
+    private WGraph_Algo ga;
+    private int[] a, b;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void draw() {
+        a = BenchGraphs.keys(MASK + 1, nodes, BenchGraphs.SEED + 1);
+        b = BenchGraphs.keys(MASK + 1, nodes, BenchGraphs.SEED + 2);
+    }
+
+    @Setup(Level.Iteration)
+    public void build() {
+        g = BenchGraphs.random(nodes, degree, BenchGraphs.SEED);
+        ga = new WGraph_Algo();
+        ga.init(g);
+        if (tracked) {
+            g.trackConnectivity();
+        }
+    }
+
+    @Benchmark
+    public boolean changeAndIsConnected() {
+        int i = next++ & MASK;
+        if ((i & 1) == 0) {
+            g.connect(a[i], b[i], 1);
+        } else {
+            Iterator<node_info> it = g.getV(a[i]).iterator();
+            if (it.hasNext()) {
+                g.removeEdge(a[i], it.next().getKey());
+            }
+        }
+        return ga.isConnected();
+    }
+}
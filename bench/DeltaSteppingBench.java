@@ -0,0 +1,84 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_DS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full single source distances of a random graph: Dijkstra (shortestPathDists(src, targets)) against
+ * the parallel delta-stepping search (shortestPathDists(src, targets, threads)) on 1 to 16 threads.
+ * deltaStepping reuses the copy of the graph between the calls, deltaSteppingWithCopy copies it every time.
+ * The thread count only matters for the delta-stepping benchmarks, the scaling needs as many cores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DeltaSteppingBench {
+
+    /**
+     * The graph, every node is a target.
+     */
+    @State(Scope.Thread)
+    public static class Graph {
+        @Param({"200000"})
+        public int nodes;
+
+        @Param({"10"})
+        public int degree;
+
+        WGraph_DS g;
+        WGraph_Algo ga;
+        int[] targets;
+
+        @Setup
+        public void setup() {
+            g = BenchGraphs.random(nodes, degree, BenchGraphs.SEED);
+            ga = new WGraph_Algo();
+            ga.init(g);
+            targets = new int[nodes];
+            for (int i = 0; i < nodes; i++) {
+                targets[i] = i;
+            }
+        }
+    }
+
+    /**
+     * The number of threads of the delta-stepping search.
+     */
+    @State(Scope.Thread)
+    public static class Threads {
+        @Param({"1", "2", "4", "8", "16"})
+        public int threads;
+    }
+
+    @Benchmark
+    public double[] dijkstra(Graph s) {
+        return s.ga.shortestPathDists(0, s.targets);
+    }
+
+    @Benchmark
+    public double[] deltaStepping(Graph s, Threads t) {
+        return s.ga.shortestPathDists(0, s.targets, t.threads);
+    }
+
+    @Benchmark
+    public double[] deltaSteppingWithCopy(Graph s, Threads t) {
+        s.ga.init(s.g); // drops the copy of the graph
+        return s.ga.shortestPathDists(0, s.targets, t.threads);
+    }
+}
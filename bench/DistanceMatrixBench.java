@@ -0,0 +1,78 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_Algo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A sources x targets table of distances three ways: a shortestPathDist per pair, a shortestPathDists row per source
+ * (one search per source) and distanceMatrix (the rows in parallel on the common fork-join pool).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DistanceMatrixBench {
+
+    @Param({"20000"})
+    public int nodes;
+
+    @Param({"10"})
+    public int degree;
+
+    @Param({"10", "100"})
+    public int sources;
+
+    @Param({"200"})
+    public int targets;
+
+    private WGraph_Algo ga;
+    private int[] src, dest;
+
+    @Setup
+    public void setup() {
+        ga = new WGraph_Algo();
+        ga.init(BenchGraphs.random(nodes, degree, BenchGraphs.SEED));
+        src = BenchGraphs.keys(sources, nodes, BenchGraphs.SEED + 1);
+        dest = BenchGraphs.keys(targets, nodes, BenchGraphs.SEED + 2);
+    }
+
+    @Benchmark
+    public double[][] perPair() {
+        double[][] table = new double[src.length][dest.length];
+        for (int i = 0; i < src.length; i++) {
+            for (int j = 0; j < dest.length; j++) {
+                table[i][j] = ga.shortestPathDist(src[i], dest[j]);
+            }
+        }
+        return table;
+    }
+
+    @Benchmark
+    public double[][] perRow() {
+        double[][] table = new double[src.length][];
+        for (int i = 0; i < src.length; i++) {
+            table[i] = ga.shortestPathDists(src[i], dest);
+        }
+        return table;
+    }
+
+    @Benchmark
+    public double[][] distanceMatrix() {
+        return ga.distanceMatrix(src, dest);
+    }
+}
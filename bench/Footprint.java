@@ -0,0 +1,45 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_CSR;
+import ex1.src.WGraph_DS;
+
+import java.lang.ref.Reference;
+
+/**
+ * Retained heap of a seeded random graph as a WGraph_DS and frozen into a WGraph_CSR, with double and with float weights.
+ * Not a JMH benchmark, JMH measures time, run it alone with a large enough heap:
+ * java -Xmx4g -cp "bench-out:jmh/*" ex1.bench.Footprint [nodes] [degree]
+ */
+public final class Footprint {
+
+    private Footprint() {
+    }
+
+    public static void main(String[] args) {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long before = usedMemory();
+        WGraph_DS g = BenchGraphs.random(nodes, degree, BenchGraphs.SEED);
+        long ds = usedMemory() - before;
+        WGraph_CSR csr = new WGraph_CSR(g);
+        long both = usedMemory() - before;
+        WGraph_CSR floats = new WGraph_CSR(g, WGraph_CSR.WeightStorage.FLOAT, 0);
+        long all = usedMemory() - before;
+        System.out.printf("%,d nodes / %,d edges: WGraph_DS %d MB, WGraph_CSR %d MB, with FLOAT weights %d MB%n",
+                g.nodeSize(), csr.edgeSize(), ds >> 20, (both - ds) >> 20, (all - both) >> 20);
+        Reference.reachabilityFence(csr); // all the graphs stay in the heap until every size is measured
+        Reference.reachabilityFence(floats);
+    }
+
+    /**
+     * @return long - the used heap after a few collections
+     */
+    private static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
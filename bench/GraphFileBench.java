@@ -0,0 +1,103 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_Algo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WGraph_Algo.save, load and loadMapped of the binary graph file, against writing the graph with Java serialization
+ * (the format of the older versions) and loading that file. The files are temporary and deleted at the end.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GraphFileBench {
+
+    @Param({"10000", "1000000"})
+    public int nodes;
+
+    @Param({"4", "16"})
+    public int degree;
+
+    private WGraph_Algo ga;
+    private File saved, serialized, out;
+
+    @Setup
+    public void setup() throws IOException {
+        ga = new WGraph_Algo();
+        ga.init(BenchGraphs.random(nodes, degree, BenchGraphs.SEED));
+        saved = File.createTempFile("bench", ".wgr");
+        out = File.createTempFile("bench", ".wgr");
+        if (!ga.save(saved.getPath())) {
+            throw new IOException("can't save " + saved);
+        }
+        serialized = File.createTempFile("bench", ".ser");
+        serialize(serialized);
+    }
+
+    @TearDown
+    public void tearDown() {
+        saved.delete();
+        serialized.delete();
+        out.delete();
+    }
+
+    @Benchmark
+    public boolean save() {
+        return ga.save(out.getPath());
+    }
+
+    @Benchmark
+    public WGraph_Algo load() {
+        WGraph_Algo loaded = new WGraph_Algo();
+        loaded.load(saved.getPath());
+        return loaded;
+    }
+
+    @Benchmark
+    public WGraph_Algo loadMapped() {
+        WGraph_Algo loaded = new WGraph_Algo();
+        loaded.loadMapped(saved.getPath());
+        return loaded;
+    }
+
+    @Benchmark
+    public long saveSerialized() throws IOException {
+        serialize(out);
+        return out.length();
+    }
+
+    @Benchmark
+    public WGraph_Algo loadSerialized() {
+        WGraph_Algo loaded = new WGraph_Algo();
+        loaded.load(serialized.getPath());
+        return loaded;
+    }
+
+    private void serialize(File file) throws IOException {
+        try (ObjectOutputStream obj = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            obj.writeObject(ga.getGraph());
+        }
+    }
+}
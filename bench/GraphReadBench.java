@@ -0,0 +1,103 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+import ex1.src.weighted_graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read path of the weighted_graph implementations side by side: getNode, hasEdge, getEdge, getV(int) and
+ * forEachNeighbor on the same seeded graph held as a WGraph_DS, a WGraph_CSR and a WGraph_Mapped.
+ * Every invocation queries the next of 4096 pre-drawn random keys, so the numbers include cache misses
+ * but not the random generator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphReadBench {
+    private static final int MASK = 4095;
+
+    @Param({"DS", "CSR", "CSR_FLOAT", "MAPPED"})
+    public String impl;
+
+    @Param({"10000", "1000000"})
+    public int nodes;
+
+    @Param({"4", "16"})
+    public int degree;
+
+    private weighted_graph g;
+    private int[] a, b;
+    private int next;
+    private double visited;
+    private final weighted_graph.NeighborVisitor visitor = (n, w) -> visited += n + w;
+
+    @Setup
+    public void setup() throws IOException {
+        WGraph_DS ds = BenchGraphs.random(nodes, degree, BenchGraphs.SEED);
+        g = BenchGraphs.as(impl, ds);
+        a = BenchGraphs.keys(MASK + 1, nodes, BenchGraphs.SEED + 1);
+        b = BenchGraphs.keys(MASK + 1, nodes, BenchGraphs.SEED + 2);
+        for (int i = 0; i <= MASK; i += 2) { // half of the pairs are edges
+            if (!g.getV(a[i]).isEmpty()) {
+                b[i] = g.getV(a[i]).iterator().next().getKey();
+            }
+        }
+    }
+
+    @Benchmark
+    public node_info getNode() {
+        return g.getNode(a[next++ & MASK]);
+    }
+
+    @Benchmark
+    public boolean hasEdge() {
+        int i = next++ & MASK;
+        return g.hasEdge(a[i], b[i]);
+    }
+
+    @Benchmark
+    public double getEdge() {
+        int i = next++ & MASK;
+        return g.getEdge(a[i], b[i]);
+    }
+
+    /**
+     * Iterates the neighbors of a node and sums their keys, the way the searches walk a node.
+     */
+    @Benchmark
+    public long getVOfNode() {
+        long sum = 0;
+        for (node_info n : g.getV(a[next++ & MASK])) {
+            sum += n.getKey();
+        }
+        return sum;
+    }
+
+    /**
+     * The same walk through forEachNeighbor, the neighbors come as keys with their weights.
+     */
+    @Benchmark
+    public double forEachNeighbor() {
+        visited = 0;
+        g.forEachNeighbor(a[next++ & MASK], visitor);
+        return visited;
+    }
+}
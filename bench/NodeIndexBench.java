@@ -0,0 +1,75 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_Builder;
+import ex1.src.WGraph_DS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The first query after a change: a node is added next to a random one and connected to it, then the one edge path
+ * between them is asked, which needs the dense index of the new Mode Count, then the node is removed again
+ * (the next one takes its index). The keys are sparse and out of order in the hash table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NodeIndexBench {
+    private static final int MASK = 1023;
+
+    @Param({"1000000"})
+    public int nodes;
+
+    @Param({"6"})
+    public int degree;
+
+    private WGraph_DS g;
+    private WGraph_Algo ga;
+    private int[] keys, picks;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random rand = new Random(BenchGraphs.SEED);
+        int edges = (int) ((long) nodes * degree / 2);
+        keys = new int[nodes];
+        WGraph_Builder b = new WGraph_Builder(nodes, edges);
+        for (int i = 0; i < nodes; i++) {
+            keys[i] = i * 2654435 + 17;
+            b.addNode(keys[i]);
+        }
+        for (int i = 0; i < edges; i++) {
+            b.connect(keys[rand.nextInt(nodes)], keys[rand.nextInt(nodes)], 1 + rand.nextInt(100));
+        }
+        g = b.build();
+        ga = new WGraph_Algo();
+        ga.init(g);
+        picks = BenchGraphs.keys(MASK + 1, nodes, BenchGraphs.SEED + 1);
+    }
+
+    @Benchmark
+    public double firstQueryAfterChange() {
+        int a = keys[picks[next++ & MASK]];
+        g.addNode(a + 1);
+        g.connect(a, a + 1, 1);
+        double d = ga.shortestPathDist(a, a + 1);
+        g.removeNode(a + 1);
+        return d;
+    }
+}
@@ -0,0 +1,76 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The point to point queries of WGraph_Algo: shortestPathDist / shortestPath between the next of 1,024 random pairs
+ * on seeded random graphs, with every strategy and graph implementation (isConnected is in ConnectivityBench,
+ * the CH strategy in WGraph_CHBench since it needs road like graphs). The landmarks (ALT) are built in the setup,
+ * so the numbers are per query only.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WGraph_AlgoBench {
+    private static final int MASK = 1023;
+
+    @Param({"DS", "CSR", "CSR_FLOAT"})
+    public String impl;
+
+    @Param({"10000", "200000"})
+    public int nodes;
+
+    @Param({"4", "16"})
+    public int degree;
+
+    @Param({"DIJKSTRA", "BIDIRECTIONAL", "ALT"})
+    public WGraph_Algo.Strategy strategy;
+
+    private WGraph_Algo ga;
+    private int[] src, dest;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        WGraph_DS g = BenchGraphs.random(nodes, degree, BenchGraphs.SEED);
+        ga = new WGraph_Algo();
+        ga.init(BenchGraphs.as(impl, g));
+        ga.setStrategy(strategy);
+        src = BenchGraphs.keys(MASK + 1, nodes, BenchGraphs.SEED + 1);
+        dest = BenchGraphs.keys(MASK + 1, nodes, BenchGraphs.SEED + 2);
+        ga.shortestPathDist(src[0], dest[0]); // builds the landmarks
+    }
+
+    @Benchmark
+    public double shortestPathDist() {
+        int i = next++ & MASK;
+        return ga.shortestPathDist(src[i], dest[i]);
+    }
+
+    @Benchmark
+    public List<node_info> shortestPath() {
+        int i = next++ & MASK;
+        return ga.shortestPath(src[i], dest[i]);
+    }
+}
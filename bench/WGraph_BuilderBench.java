@@ -0,0 +1,74 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_Builder;
+import ex1.src.WGraph_DS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a random graph from the same edge arrays with addNode / connect on a WGraph_DS and with WGraph_Builder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WGraph_BuilderBench {
+
+    @Param({"100000", "1000000"})
+    public int nodes;
+
+    @Param({"10"})
+    public int degree;
+
+    private int[] src, dst;
+    private double[] w;
+
+    @Setup
+    public void setup() {
+        int edges = (int) ((long) nodes * degree / 2);
+        src = BenchGraphs.keys(edges, nodes, BenchGraphs.SEED + 1);
+        dst = BenchGraphs.keys(edges, nodes, BenchGraphs.SEED + 2);
+        w = new double[edges];
+        Random rand = new Random(BenchGraphs.SEED + 3);
+        for (int i = 0; i < edges; i++) {
+            w[i] = rand.nextInt(100);
+        }
+    }
+
+    @Benchmark
+    public WGraph_DS connect() {
+        WGraph_DS g = new WGraph_DS();
+        for (int i = 0; i < nodes; i++) {
+            g.addNode(i);
+        }
+        for (int i = 0; i < src.length; i++) {
+            g.connect(src[i], dst[i], w[i]);
+        }
+        return g;
+    }
+
+    @Benchmark
+    public WGraph_DS builder() {
+        WGraph_Builder b = new WGraph_Builder(nodes, src.length);
+        for (int i = 0; i < nodes; i++) {
+            b.addNode(i);
+        }
+        b.connect(src, dst, w);
+        return b.build();
+    }
+}
@@ -0,0 +1,77 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_Algo;
+import ex1.src.node_info;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * shortestPathDist / shortestPath on seeded grids (side x side), the Contraction Hierarchy against the other
+ * strategies. The hierarchy is built in the setup, its preprocessing is measured by preprocess.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WGraph_CHBench {
+    private static final int MASK = 1023;
+
+    @Param({"100", "300"})
+    public int side;
+
+    @Param({"BIDIRECTIONAL", "ALT", "CH"})
+    public WGraph_Algo.Strategy strategy;
+
+    private WGraph_Algo ga;
+    private int[] src, dest;
+    private int next;
+
+    @Setup
+    public void setup() {
+        ga = new WGraph_Algo();
+        ga.init(BenchGraphs.grid(side, side, BenchGraphs.SEED));
+        ga.setStrategy(strategy);
+        src = BenchGraphs.keys(MASK + 1, side * side, BenchGraphs.SEED + 1);
+        dest = BenchGraphs.keys(MASK + 1, side * side, BenchGraphs.SEED + 2);
+        ga.shortestPathDist(src[0], dest[0]); // builds the landmarks or the hierarchy
+    }
+
+    @Benchmark
+    public double shortestPathDist() {
+        int i = next++ & MASK;
+        return ga.shortestPathDist(src[i], dest[i]);
+    }
+
+    @Benchmark
+    public List<node_info> shortestPath() {
+        int i = next++ & MASK;
+        return ga.shortestPath(src[i], dest[i]);
+    }
+
+    /**
+     * Builds the landmarks or the hierarchy of a copy of the grid (a copy has no valid hierarchy).
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public double preprocess() {
+        WGraph_Algo fresh = new WGraph_Algo();
+        fresh.init(ga.copy());
+        fresh.setStrategy(strategy);
+        return fresh.shortestPathDist(src[0], dest[0]);
+    }
+}
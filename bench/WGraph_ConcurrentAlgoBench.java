@@ -0,0 +1,62 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_ConcurrentAlgo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query throughput of one WGraph_ConcurrentAlgo shared by all the benchmark threads (run with -t 1, 2, 4 ...),
+ * every thread asks shortestPathDist for its own sequence of the 1,024 random pairs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WGraph_ConcurrentAlgoBench {
+    private static final int MASK = 1023;
+
+    @Param({"20000"})
+    public int nodes;
+
+    @Param({"10"})
+    public int degree;
+
+    private WGraph_ConcurrentAlgo ga;
+    private int[] src, dest;
+
+    /**
+     * The position of a thread in the pairs.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setup() {
+        ga = new WGraph_ConcurrentAlgo();
+        ga.init(BenchGraphs.random(nodes, degree, BenchGraphs.SEED));
+        src = BenchGraphs.keys(MASK + 1, nodes, BenchGraphs.SEED + 1);
+        dest = BenchGraphs.keys(MASK + 1, nodes, BenchGraphs.SEED + 2);
+    }
+
+    @Benchmark
+    public double shortestPathDist(Cursor c) {
+        int i = c.next++ & MASK;
+        return ga.shortestPathDist(src[i], dest[i]);
+    }
+}
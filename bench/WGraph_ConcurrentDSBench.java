@@ -0,0 +1,93 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_ConcurrentDS;
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+import ex1.src.weighted_graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read/write contention: 4 threads share one graph, writePercent of the operations change the weight of an existing edge
+ * (live traffic) and the others read one (getEdge and a scan of the neighbors of its node).
+ * WGraph_ConcurrentDS (striped locks, lock free rows) against a WGraph_DS behind one read/write lock.
+ * Run with -t to change the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class WGraph_ConcurrentDSBench {
+    private static final int MASK = (1 << 16) - 1;
+
+    @Param({"STRIPED", "GLOBAL_LOCK"})
+    public String impl;
+
+    @Param({"0", "10", "50"})
+    public int writePercent;
+
+    @Param({"100000"})
+    public int nodes;
+
+    private weighted_graph g;
+    private ReentrantReadWriteLock lock;
+    private int[] a, b;
+
+    @Setup
+    public void setup() {
+        WGraph_DS ds = BenchGraphs.random(nodes, 8, BenchGraphs.SEED);
+        a = BenchGraphs.keys(MASK + 1, nodes, BenchGraphs.SEED + 1);
+        b = new int[MASK + 1];
+        for (int i = 0; i <= MASK; i++) { // an edge of every drawn node
+            while (ds.getV(a[i]).isEmpty()) {
+                a[i] = (a[i] + 1) % nodes;
+            }
+            b[i] = ds.getV(a[i]).iterator().next().getKey();
+        }
+        g = impl.equals("STRIPED") ? new WGraph_ConcurrentDS(ds) : ds;
+        lock = impl.equals("STRIPED") ? null : new ReentrantReadWriteLock();
+    }
+
+    @Benchmark
+    public double mixed() {
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        int i = rand.nextInt() & MASK;
+        boolean write = rand.nextInt(100) < writePercent;
+        if (lock != null) {
+            (write ? lock.writeLock() : lock.readLock()).lock();
+        }
+        try {
+            if (write) {
+                g.connect(a[i], b[i], rand.nextInt(100));
+                return 0;
+            }
+            double sum = g.getEdge(a[i], b[i]);
+            for (node_info ni : g.getV(a[i])) {
+                sum += ni.getKey();
+            }
+            return sum;
+        } finally {
+            if (lock != null) {
+                (write ? lock.writeLock() : lock.readLock()).unlock();
+            }
+        }
+    }
+}
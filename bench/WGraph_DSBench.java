@@ -0,0 +1,130 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write path of WGraph_DS: connect, removeNode, the copy constructor (alone and followed by changes)
+ * and a snapshot followed by changes, on seeded random graphs of every size and density.
+ * The graph is rebuilt before every iteration, so the iterations start equal.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WGraph_DSBench {
+    private static final int MASK = (1 << 16) - 1;
+
+    @Param({"10000", "1000000"})
+    public int nodes;
+
+    @Param({"4", "16"})
+    public int degree;
+
+    private WGraph_DS g;
+    private int[] a, b, keys;
+    private double[] w;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void draw() {
+        a = BenchGraphs.keys(MASK + 1, nodes, BenchGraphs.SEED + 1);
+        b = BenchGraphs.keys(MASK + 1, nodes, BenchGraphs.SEED + 2);
+        keys = BenchGraphs.keys(MASK + 1, nodes, BenchGraphs.SEED + 3);
+        w = new double[MASK + 1];
+        Random rand = new Random(BenchGraphs.SEED + 4);
+        for (int i = 0; i <= MASK; i++) {
+            w[i] = rand.nextInt(100);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void build() {
+        g = BenchGraphs.random(nodes, degree, BenchGraphs.SEED);
+    }
+
+    /**
+     * Connects the next of 65,536 random pairs, the first pass adds edges and the next ones update their weights.
+     */
+    @Benchmark
+    public int connect() {
+        int i = next++ & MASK;
+        g.connect(a[i], b[i], w[i]);
+        return g.edgeSize();
+    }
+
+    /**
+     * Removes a random node and adds it back with its edges, so the graph keeps its size.
+     */
+    @Benchmark
+    public int removeAndRestoreNode() {
+        int key = keys[next++ & MASK];
+        int degree = g.getV(key).size();
+        int[] ni = new int[degree];
+        double[] nw = new double[degree];
+        int k = 0;
+        for (node_info n : g.getV(key)) {
+            ni[k] = n.getKey();
+            nw[k++] = g.getEdge(key, n.getKey());
+        }
+        g.removeNode(key);
+        g.addNode(key);
+        for (int j = 0; j < degree; j++) {
+            g.connect(key, ni[j], nw[j]);
+        }
+        return g.edgeSize();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public WGraph_DS copy() {
+        return new WGraph_DS(g);
+    }
+
+    /**
+     * Copies the graph and connects 1,000 random pairs of the copy, which copy the neighbor maps they change.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public WGraph_DS copyAndChange() {
+        WGraph_DS h = new WGraph_DS(g);
+        for (int k = 0; k < 1000; k++) {
+            int i = next++ & MASK;
+            h.connect(a[i], b[i], w[i]);
+        }
+        return h;
+    }
+
+    /**
+     * Takes a snapshot and connects 1,000 random pairs of the graph, the first change clones the tables
+     * the snapshot holds and every change copies the neighbor maps it touches.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public WGraph_DS snapshotAndChange() {
+        WGraph_DS v = g.snapshot();
+        for (int k = 0; k < 1000; k++) {
+            int i = next++ & MASK;
+            g.connect(a[i], b[i], w[i]);
+        }
+        return v;
+    }
+}
@@ -0,0 +1,81 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_DS;
+import ex1.src.WGraph_EdgeList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WGraph_EdgeList.write and read of a text edge list, plain and gzip, read on 1 thread and on 4 threads.
+ * The files are temporary and deleted at the end.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WGraph_EdgeListBench {
+
+    @Param({"100000", "1000000"})
+    public int nodes;
+
+    @Param({"10"})
+    public int degree;
+
+    private WGraph_DS g;
+    private File text, gzip, out;
+
+    @Setup
+    public void setup() throws IOException {
+        g = BenchGraphs.random(nodes, degree, BenchGraphs.SEED);
+        text = File.createTempFile("bench", ".txt");
+        gzip = File.createTempFile("bench", ".txt.gz");
+        out = File.createTempFile("bench", ".txt");
+        WGraph_EdgeList.write(g, text.getPath());
+        WGraph_EdgeList.write(g, gzip.getPath());
+    }
+
+    @TearDown
+    public void tearDown() {
+        text.delete();
+        gzip.delete();
+        out.delete();
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        WGraph_EdgeList.write(g, out.getPath());
+        return out.length();
+    }
+
+    @Benchmark
+    public WGraph_DS read() throws IOException {
+        return WGraph_EdgeList.read(text.getPath());
+    }
+
+    @Benchmark
+    public WGraph_DS readFourThreads() throws IOException {
+        return WGraph_EdgeList.read(text.getPath(), 4);
+    }
+
+    @Benchmark
+    public WGraph_DS readGzipFourThreads() throws IOException {
+        return WGraph_EdgeList.read(gzip.getPath(), 4);
+    }
+}
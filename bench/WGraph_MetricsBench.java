@@ -0,0 +1,62 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_Metrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The overhead of a query listener: shortestPathDist between the next of 1,024 random pairs
+ * without a listener and with a WGraph_Metrics (which times every query and fills its histograms).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WGraph_MetricsBench {
+    private static final int MASK = 1023;
+
+    @Param({"5000", "200000"})
+    public int nodes;
+
+    @Param({"8"})
+    public int degree;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private WGraph_Algo ga;
+    private int[] src, dest;
+    private int next;
+
+    @Setup
+    public void setup() {
+        ga = new WGraph_Algo();
+        ga.init(BenchGraphs.random(nodes, degree, BenchGraphs.SEED));
+        if (metrics) {
+            ga.setListener(new WGraph_Metrics());
+        }
+        src = BenchGraphs.keys(MASK + 1, nodes, BenchGraphs.SEED + 1);
+        dest = BenchGraphs.keys(MASK + 1, nodes, BenchGraphs.SEED + 2);
+    }
+
+    @Benchmark
+    public double shortestPathDist() {
+        int i = next++ & MASK;
+        return ga.shortestPathDist(src[i], dest[i]);
+    }
+}
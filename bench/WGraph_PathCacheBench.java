@@ -0,0 +1,76 @@
+package ex1.bench;
+
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_DS;
+import ex1.src.WGraph_PathCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repeated shortest path queries: 3 rounds of 10 sources x 10 destinations, without a cache and with
+ * a new WGraph_PathCache (so every invocation pays its misses, the second miss of a source builds its tree).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WGraph_PathCacheBench {
+    private static final int ROUNDS = 3;
+
+    @Param({"20000"})
+    public int nodes;
+
+    @Param({"10"})
+    public int degree;
+
+    private WGraph_DS g;
+    private int[] src, dest;
+
+    @Setup
+    public void setup() {
+        g = BenchGraphs.random(nodes, degree, BenchGraphs.SEED);
+        src = BenchGraphs.keys(10, nodes, BenchGraphs.SEED + 1);
+        dest = BenchGraphs.keys(10, nodes, BenchGraphs.SEED + 2);
+    }
+
+    @Benchmark
+    public double uncached() {
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        return rounds(ga);
+    }
+
+    @Benchmark
+    public double cached() {
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        ga.setCache(new WGraph_PathCache(1024, 16));
+        return rounds(ga);
+    }
+
+    private double rounds(WGraph_Algo ga) {
+        double sum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int s : src) {
+                for (int d : dest) {
+                    sum += ga.shortestPathDist(s, d);
+                }
+            }
+        }
+        return sum;
+    }
+}
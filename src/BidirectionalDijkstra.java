@@ -0,0 +1,53 @@
+package ex1.src;
+
+/**
+ * Bidirectional Dijkstra for point to point queries.
+ * One search grows from the source and one from the destination (the graph is undirected, so both use the same edges),
+ * each step settles the closest node of the search with the smaller queue minimum.
+ * Whenever a node is reached by both searches the path through it is a candidate, and the search stops once
+ * the two queue minimums add up to at least the best candidate, no unsettled node can give a shorter path.
+ * On graphs where the search ball grows with the distance this settles roughly half the nodes of a one sided search.
+ */
+class BidirectionalDijkstra {
+
+    private BidirectionalDijkstra() {
+    }
+
+    /**
+     * Runs the search, the forward side in state and the backward side in state.reverse().
+     * @param g weighted_graph - the graph
+     * @param state SearchState - the forward state, already reset to the index of g
+     * @param src int - index of the source node
+     * @param dest int - index of the destination node
+     * @return int - index of the node the shortest path goes through (use state.distThrough and state.path with it),
+     * SearchState.NONE if dest can't be reached
+     */
+    static int search(weighted_graph g, SearchState state, int src, int dest) {
+        SearchState fwd = state;
+        SearchState bwd = state.reverse();
+        bwd.reset(fwd.index());
+        fwd.setBidirectional();
+        fwd.start(src);
+        bwd.start(dest);
+        double best = Double.POSITIVE_INFINITY;
+        int meet = SearchState.NONE;
+        while (!fwd.queueEmpty() && !bwd.queueEmpty()) {
+            if (fwd.queueMin() + bwd.queueMin() >= best) {
+                break;
+            }
+            SearchState side = fwd.queueMin() <= bwd.queueMin() ? fwd : bwd;
+            SearchState other = side == fwd ? bwd : fwd;
+            int u = side.pop();
+            if (side.dist(u) + other.dist(u) < best) {
+                best = side.dist(u) + other.dist(u);
+                meet = u;
+            }
+            int v = side.relax(g, u, other, best); // a node reached by the other side too may close a shorter path
+            if (v != SearchState.NONE) {
+                best = side.meetDist();
+                meet = v;
+            }
+        }
+        return meet;
+    }
+}
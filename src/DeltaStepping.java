@@ -0,0 +1,307 @@
+package ex1.src;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Parallel single source shortest paths with delta-stepping (Meyer and Sanders).
+ * The tentative distances are grouped in buckets of width delta. The smallest bucket is settled in rounds:
+ * every round relaxes the light edges (weight <= delta) of all the nodes of the bucket in parallel, which may put
+ * nodes back into the same bucket, until the bucket stays empty; then the heavy edges of all the nodes
+ * the bucket settled are relaxed once, in parallel, since they can only reach later buckets.
+ * A distance is lowered with a compare-and-set on its bits (non negative doubles order like their bits),
+ * so two threads relaxing edges into one node keep the smaller distance.
+ * The graph is first copied into a compressed sparse row form with the light edges first in every row,
+ * so the rounds scan plain arrays instead of calling getV/getEdge. The copy is not changed by the searches,
+ * so it is kept for the next searches while the graph isn't changed (isValidFor), and several threads may search it at once.
+ * The result is the same as Dijkstra's, up to the rounding of equal length paths which add their weights in another order.
+ */
+class DeltaStepping {
+    private static final long INFINITY = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+    private static final int MIN_TASK = 512; // fewer nodes than this are relaxed by the calling thread
+
+    private final NodeIndex index;
+    private final int n;
+    private final int[] offsets, lightEnd, neighbor;
+    private final double[] weight;
+    private final double delta;
+
+    /**
+     * Copies the graph into the arrays of the search, in parallel over the nodes.
+     * @param g weighted_graph - the graph, must not be changed while it is copied
+     * @param index NodeIndex - a valid index of g, the searches are by its indices
+     * @param delta double - the bucket width, 0 to pick the maximal weight divided by the average degree
+     * @param pool ForkJoinPool - the pool which copies the rows
+     */
+    DeltaStepping(weighted_graph g, NodeIndex index, double delta, ForkJoinPool pool) {
+        this.index = index;
+        this.n = index.size();
+        this.offsets = new int[n + 1];
+        this.lightEnd = new int[n];
+        parallel(pool, n, (lo, hi, out) -> {
+            for (int u = lo; u < hi; u++) {
+                offsets[u + 1] = g.getV(index.keyAt(u)).size();
+            }
+        });
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+        this.neighbor = new int[offsets[n]];
+        this.weight = new double[offsets[n]];
+        double[] max = new double[chunks(pool)];
+        parallel(pool, n, (lo, hi, out) -> { // unsorted rows first, the maximal weight gives the default delta
+            RowCopy row = new RowCopy(index);
+            for (int u = lo; u < hi; u++) {
+                row.p = offsets[u];
+                g.forEachNeighbor(index.keyAt(u), row);
+            }
+            max[out] = Math.max(max[out], row.max);
+        });
+        if (delta <= 0) {
+            double m = 0;
+            for (double x : max) {
+                m = Math.max(m, x);
+            }
+            delta = m == 0 || offsets[n] == 0 ? 1 : m * n / offsets[n];
+        }
+        this.delta = delta;
+        double width = delta;
+        parallel(pool, n, (lo, hi, out) -> { // light edges to the front of every row
+            for (int u = lo; u < hi; u++) {
+                int i = offsets[u], j = offsets[u + 1] - 1;
+                while (i <= j) {
+                    if (weight[i] <= width) {
+                        i++;
+                    } else {
+                        int v = neighbor[i];
+                        double w = weight[i];
+                        neighbor[i] = neighbor[j];
+                        weight[i] = weight[j];
+                        neighbor[j] = v;
+                        weight[j--] = w;
+                    }
+                }
+                lightEnd[u] = i;
+            }
+        });
+    }
+
+    /**
+     * @param g weighted_graph - a graph
+     * @return boolean - true if this is a copy of g and g was not changed since it was copied
+     */
+    boolean isValidFor(weighted_graph g) {
+        return index.isValidFor(g);
+    }
+
+    /**
+     * @return NodeIndex - the index the rows and the distances of the searches are by
+     */
+    NodeIndex index() {
+        return index;
+    }
+
+    /**
+     * Runs the search from src.
+     * @param src int - index of the source node
+     * @param pool ForkJoinPool - the pool which runs the rounds
+     * @return double[] - the distance of every node index, infinity for the nodes src can't reach
+     */
+    double[] search(int src, ForkJoinPool pool) {
+        return new Search(pool).run(src);
+    }
+
+    /**
+     * The state of one search: the pool and the tentative distances.
+     */
+    private class Search {
+        private final ForkJoinPool pool;
+        private final int chunks;
+        private final AtomicLongArray dist = new AtomicLongArray(n);
+
+        Search(ForkJoinPool pool) {
+            this.pool = pool;
+            this.chunks = chunks(pool);
+        }
+
+        double[] run(int src) {
+            for (int u = 0; u < n; u++) {
+                dist.set(u, INFINITY);
+            }
+            dist.set(src, 0);
+            TreeMap<Long, IntList> buckets = new TreeMap<>();
+            IntList start = new IntList();
+            start.add(src);
+            buckets.put(0L, start);
+            int[] roundOf = new int[n];   // the last round a node was relaxed in (light edges)
+            int[] bucketOf = new int[n];  // the last bucket a node was settled in (heavy edges)
+            int round = 0, settledBuckets = 0;
+            IntList settled = new IntList();
+            IntList[] requests = new IntList[chunks];
+            for (int c = 0; c < chunks; c++) {
+                requests[c] = new IntList();
+            }
+            while (!buckets.isEmpty()) {
+                Map.Entry<Long, IntList> first = buckets.pollFirstEntry();
+                long b = first.getKey();
+                IntList frontier = first.getValue();
+                settledBuckets++;
+                settled.clear();
+                while (frontier.size > 0) {
+                    round++;
+                    int size = 0;
+                    for (int k = 0; k < frontier.size; k++) { // drop repeats and nodes which moved to a lower bucket
+                        int v = frontier.data[k];
+                        if (roundOf[v] != round && bucket(v) == b) {
+                            roundOf[v] = round;
+                            frontier.data[size++] = v;
+                            if (bucketOf[v] != settledBuckets) {
+                                bucketOf[v] = settledBuckets;
+                                settled.add(v);
+                            }
+                        }
+                    }
+                    frontier.size = size;
+                    relax(frontier, true, requests);
+                    IntList next = new IntList();
+                    for (IntList r : requests) {
+                        for (int k = 0; k < r.size; k++) {
+                            int v = r.data[k];
+                            long bv = bucket(v);
+                            if (bv == b) {
+                                next.add(v);
+                            } else {
+                                buckets.computeIfAbsent(bv, x -> new IntList()).add(v);
+                            }
+                        }
+                        r.clear();
+                    }
+                    frontier = next;
+                }
+                relax(settled, false, requests);
+                for (IntList r : requests) {
+                    for (int k = 0; k < r.size; k++) {
+                        int v = r.data[k];
+                        buckets.computeIfAbsent(bucket(v), x -> new IntList()).add(v);
+                    }
+                    r.clear();
+                }
+            }
+            double[] result = new double[n];
+            for (int u = 0; u < n; u++) {
+                result[u] = Double.longBitsToDouble(dist.get(u));
+            }
+            return result;
+        }
+
+        /**
+         * Relaxes the light or the heavy edges of the given nodes, in parallel if there are enough of them.
+         * @param nodes IntList - node indices
+         * @param light boolean - true for the edges of weight <= delta, false for the others
+         * @param requests IntList[] - one list per chunk, gets the nodes whose distance was lowered
+         */
+        private void relax(IntList nodes, boolean light, IntList[] requests) {
+            int[] data = nodes.data;
+            parallel(pool, nodes.size, (lo, hi, out) -> {
+                IntList lowered = requests[out];
+                for (int k = lo; k < hi; k++) {
+                    int u = data[k];
+                    double du = Double.longBitsToDouble(dist.get(u));
+                    int from = light ? offsets[u] : lightEnd[u];
+                    int to = light ? lightEnd[u] : offsets[u + 1];
+                    for (int p = from; p < to; p++) {
+                        int v = neighbor[p];
+                        double d = du + weight[p];
+                        long cur = dist.get(v);
+                        while (d < Double.longBitsToDouble(cur)) {
+                            if (dist.compareAndSet(v, cur, Double.doubleToRawLongBits(d))) {
+                                lowered.add(v);
+                                break;
+                            }
+                            cur = dist.get(v);
+                        }
+                    }
+                }
+            });
+        }
+
+        private long bucket(int v) {
+            return (long) (Double.longBitsToDouble(dist.get(v)) / delta);
+        }
+    }
+
+    /**
+     * @return int - the number of chunks a parallel loop on the pool is split in
+     */
+    private static int chunks(ForkJoinPool pool) {
+        return pool.getParallelism() * 4;
+    }
+
+    /**
+     * Runs the body over 0..size-1, split in at most chunks(pool) ranges which run on the pool,
+     * every range gets its own chunk number (out) so it can write its own output without locks.
+     * Small ranges run on the calling thread as a single chunk.
+     */
+    private static void parallel(ForkJoinPool pool, int size, Body body) {
+        if (size < MIN_TASK || pool.getParallelism() == 1) {
+            body.run(0, size, 0);
+            return;
+        }
+        int chunks = chunks(pool);
+        int per = (size + chunks - 1) / chunks;
+        pool.invoke(new Range(body, 0, chunks, per, size));
+    }
+
+    private interface Body {
+        void run(int lo, int hi, int out);
+    }
+
+    /**
+     * Copies the edges forEachNeighbor gives into the arrays from position p on, and keeps their maximal weight.
+     */
+    private class RowCopy implements weighted_graph.NeighborVisitor {
+        private final NodeIndex index;
+        private int p;
+        private double max;
+
+        RowCopy(NodeIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        public void visit(int key, double w) {
+            neighbor[p] = index.indexOf(key);
+            weight[p++] = w;
+            max = Math.max(max, w);
+        }
+    }
+
+    /**
+     * The chunks lo..hi-1 of a parallel loop, split in halves down to one chunk.
+     */
+    private static class Range extends RecursiveAction {
+        private final Body body;
+        private final int lo, hi, per, size;
+
+        Range(Body body, int lo, int hi, int per, int size) {
+            this.body = body;
+            this.lo = lo;
+            this.hi = hi;
+            this.per = per;
+            this.size = size;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Range(body, lo, mid, per, size), new Range(body, mid, hi, per, size));
+                return;
+            }
+            body.run(Math.min(size, lo * per), Math.min(size, (lo + 1) * per), lo);
+        }
+    }
+}
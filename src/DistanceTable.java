@@ -0,0 +1,105 @@
+package ex1.src;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * One to many and many to many shortest path distances.
+ * A row (one source against all the targets) is a single Dijkstra search which stops once every target is settled,
+ * instead of one search per pair. The rows of a matrix are independent, so they are split into fork-join tasks
+ * which each reuse one search state for all their rows, the graph and the node index are only read.
+ */
+class DistanceTable {
+    private static final int TASKS_PER_THREAD = 4;
+
+    private DistanceTable() {
+    }
+
+    /**
+     * @param index NodeIndex - the dense index of the graph
+     * @param keys int[] - node keys
+     * @return int[] - the index of every key, SearchState.NONE for a key which is not in the graph
+     */
+    static int[] indicesOf(NodeIndex index, int[] keys) {
+        int[] indices = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            indices[i] = index.indexOf(keys[i]);
+        }
+        return indices;
+    }
+
+    /**
+     * Fills one row of distances: the distance from src to every target, -1 if there is no path.
+     * @param g weighted_graph - the graph
+     * @param index NodeIndex - a valid index of g
+     * @param state SearchState - a state no other search is using
+     * @param src int - index of the source, NONE if it is not in the graph (the whole row is -1)
+     * @param targets int[] - indices of the targets, NONE for a target which is not in the graph
+     * @param row double[] - the row to fill, as long as targets
+     */
+    static void row(weighted_graph g, NodeIndex index, SearchState state, int src, int[] targets, double[] row) {
+        if (src == SearchState.NONE) {
+            Arrays.fill(row, -1);
+            return;
+        }
+        state.reset(index);
+        state.dijkstra(g, src, targets);
+        for (int i = 0; i < targets.length; i++) {
+            double d = targets[i] == SearchState.NONE ? Double.POSITIVE_INFINITY : state.dist(targets[i]);
+            row[i] = d == Double.POSITIVE_INFINITY ? -1 : d;
+        }
+    }
+
+    /**
+     * Computes the distance matrix in parallel over the sources.
+     * @param g weighted_graph - the graph, must not be changed while the matrix is computed
+     * @param index NodeIndex - a valid index of g
+     * @param sources int[] - indices of the sources, NONE for a source which is not in the graph
+     * @param targets int[] - indices of the targets, NONE for a target which is not in the graph
+     * @param pool ForkJoinPool - the pool which runs the rows
+     * @return double[][] - matrix[i][j] is the distance from sources[i] to targets[j], -1 if there is no path
+     */
+    static double[][] matrix(weighted_graph g, NodeIndex index, int[] sources, int[] targets, ForkJoinPool pool) {
+        double[][] matrix = new double[sources.length][targets.length];
+        int perTask = Math.max(1, sources.length / (pool.getParallelism() * TASKS_PER_THREAD));
+        pool.invoke(new Rows(g, index, sources, targets, matrix, 0, sources.length, perTask));
+        return matrix;
+    }
+
+    /**
+     * The rows lo..hi-1 of a matrix, split in halves down to perTask rows.
+     */
+    private static class Rows extends RecursiveAction {
+        private final weighted_graph g;
+        private final NodeIndex index;
+        private final int[] sources, targets;
+        private final double[][] matrix;
+        private final int lo, hi, perTask;
+
+        Rows(weighted_graph g, NodeIndex index, int[] sources, int[] targets, double[][] matrix, int lo, int hi, int perTask) {
+            this.g = g;
+            this.index = index;
+            this.sources = sources;
+            this.targets = targets;
+            this.matrix = matrix;
+            this.lo = lo;
+            this.hi = hi;
+            this.perTask = perTask;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > perTask) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Rows(g, index, sources, targets, matrix, lo, mid, perTask),
+                        new Rows(g, index, sources, targets, matrix, mid, hi, perTask));
+                return;
+            }
+            SearchState state = new SearchState();
+            for (int i = lo; i < hi; i++) {
+                row(g, index, state, sources[i], targets, matrix[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,554 @@
+package ex1.src;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The binary graph file format used by WGraph_Algo.save/load, written and read through a FileChannel
+ * with one direct buffer, so no object graph is serialized and nothing recurses.
+ * All the values are little endian and every block starts at a multiple of 8 bytes:
+ * <pre>
+ * header       "WGRF", int version, int n (nodes), int mc, long edges, long halfEdges (= 2 * edges)   32 bytes
+ * keys         int[n]            the node keys in ascending order, the position of a key is the index of the node
+ * tags         double[n]         the tag of every node
+ * offsets      int[n+1]          the neighbors of node i are at offsets[i] .. offsets[i+1]-1 of the next two blocks
+ * targets      int[halfEdges]    neighbor index, ascending in every row, every edge is stored from both ends
+ * weights      double[halfEdges]
+ * infoOffsets  long[n+1]         the UTF-8 info of node i is infoBytes[infoOffsets[i] .. infoOffsets[i+1]-1]
+ * infoFlags    byte[n]           0 if the info of the node is null
+ * infoBytes    byte[]
+ * </pre>
+ * Since the keys and the rows are sorted and every block has a fixed position (see Layout), the file can also be
+ * memory mapped and queried in place with binary searches (WGraph_Mapped).
+ * Java serialization streams start with 0xACED, so WGraph_Algo.load tells the two formats apart by the first bytes.
+ */
+class GraphFile {
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    private static final byte[] MAGIC = {'W', 'G', 'R', 'F'};
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private GraphFile() {
+    }
+
+    /**
+     * @param first byte[] - the first bytes of a file (at least 4)
+     * @return boolean - true if they are the magic of this format
+     */
+    static boolean isGraphFile(byte[] first) {
+        if (first.length < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (first[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param first byte[] - the first bytes of a file (at least 2)
+     * @return boolean - true if they start a Java serialization stream (the legacy save format)
+     */
+    static boolean isSerialized(byte[] first) {
+        return first.length >= 2 && (first[0] & 0xFF) == 0xAC && (first[1] & 0xFF) == 0xED;
+    }
+
+    /**
+     * Reads the first bytes of a file.
+     * @param file String - file name
+     * @param count int - number of bytes
+     * @return byte[] - the bytes, shorter if the file is shorter
+     */
+    static byte[] head(String file, int count) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(count);
+            while (buf.hasRemaining() && ch.read(buf) >= 0) {
+                // read until full or end of file
+            }
+            byte[] bytes = new byte[buf.position()];
+            buf.flip();
+            buf.get(bytes);
+            return bytes;
+        }
+    }
+
+    /**
+     * Writes the graph to the file (replacing it), O(n*log(n) + v).
+     * @param g weighted_graph - the graph
+     * @param file String - file name
+     * @throws IOException - if the file can't be written
+     */
+    static void write(weighted_graph g, String file) throws IOException {
+        int n = g.nodeSize();
+        long half = 2L * g.edgeSize();
+        if (half > Integer.MAX_VALUE) {
+            throw new IOException("too many edges for the graph file format: " + g.edgeSize());
+        }
+        int[] keys = new int[n];
+        int k = 0;
+        for (node_info node : g.getV()) {
+            keys[k++] = node.getKey();
+        }
+        Arrays.sort(keys);
+        node_info[] nodes = new node_info[n];
+        IntIntMap index = new IntIntMap(n);
+        for (int i = 0; i < n; i++) {
+            nodes[i] = g.getNode(keys[i]);
+            index.put(keys[i], i);
+        }
+        Row row = new Row(g, index);
+        try (FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Out out = new Out(ch);
+            out.putBytes(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(n);
+            out.putInt(g.getMC());
+            out.putLong(g.edgeSize());
+            out.putLong(half);
+            for (int i = 0; i < n; i++) {
+                out.putInt(keys[i]);
+            }
+            out.pad();
+            for (int i = 0; i < n; i++) {
+                out.putDouble(nodes[i].getTag());
+            }
+            int offset = 0;
+            out.putInt(0);
+            for (int i = 0; i < n; i++) {
+                offset += g.getV(keys[i]).size();
+                out.putInt(offset);
+            }
+            out.pad();
+            if (offset != half) {
+                throw new IOException("the degrees of the graph don't add up to twice its edges");
+            }
+            for (int i = 0; i < n; i++) { // targets
+                row.load(keys[i]);
+                for (int p = 0; p < row.size; p++) {
+                    out.putInt(row.targets[p]);
+                }
+            }
+            out.pad();
+            for (int i = 0; i < n; i++) { // weights, the rows are loaded again in the same order
+                row.load(keys[i]);
+                for (int p = 0; p < row.size; p++) {
+                    out.putDouble(row.weights[p]);
+                }
+            }
+            byte[][] infos = new byte[n][];
+            long infoOffset = 0;
+            out.putLong(0);
+            for (int i = 0; i < n; i++) {
+                String info = nodes[i].getInfo();
+                infos[i] = info == null ? null : info.getBytes(StandardCharsets.UTF_8);
+                infoOffset += infos[i] == null ? 0 : infos[i].length;
+                out.putLong(infoOffset);
+            }
+            for (int i = 0; i < n; i++) {
+                out.putByte(infos[i] == null ? 0 : 1);
+            }
+            out.pad();
+            for (int i = 0; i < n; i++) {
+                if (infos[i] != null) {
+                    out.putBytes(infos[i]);
+                }
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Reads a graph which was written with write, O(n+v).
+     * The header is checked against the size of the file before anything is allocated from it, and the file is
+     * rejected if a weight is NaN or negative, a node is its own neighbor or an edge is not stored from both ends
+     * with the same weight, so a truncated or corrupt file ends with an IOException and not with a half built graph.
+     * @param file String - file name
+     * @return WGraph_DS - the graph, with the same nodes, edges, tags, infos and Mode Count
+     * @throws IOException - if the file can't be read or is not a valid graph file
+     */
+    static WGraph_DS read(String file) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            In in = new In(ch);
+            byte[] magic = new byte[MAGIC.length];
+            in.getBytes(magic);
+            if (!isGraphFile(magic)) {
+                throw new IOException("not a graph file: " + file);
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported graph file version " + version);
+            }
+            int n = in.getInt();
+            int mc = in.getInt();
+            long edges = in.getLong();
+            long half = in.getLong();
+            if (n < 0 || edges < 0 || half != 2 * edges || half > Integer.MAX_VALUE) {
+                throw new IOException("corrupt graph file header: " + file);
+            }
+            long size = ch.size();
+            if (minimumSize(n, half) > size) { // checked before any array is allocated from the header
+                throw new IOException("graph file ends too early: " + file);
+            }
+            int[] keys = new int[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = in.getInt();
+            }
+            in.skipPadding();
+            WGraph_DS g = new WGraph_DS(n);
+            for (int i = 0; i < n; i++) {
+                g.addNode(keys[i]);
+                g.getNode(keys[i]).setTag(in.getDouble());
+            }
+            if (g.nodeSize() != n) {
+                throw new IOException("duplicate node keys in graph file: " + file);
+            }
+            int[] offsets = new int[n + 1];
+            for (int i = 0; i <= n; i++) {
+                offsets[i] = in.getInt();
+                if (i > 0 && offsets[i] < offsets[i - 1] || i == 0 && offsets[0] != 0) {
+                    throw new IOException("corrupt graph file offsets: " + file);
+                }
+            }
+            in.skipPadding();
+            if (offsets[n] != half) {
+                throw new IOException("corrupt graph file offsets: " + file);
+            }
+            int[] targets = new int[(int) half];
+            for (int p = 0; p < half; p++) {
+                targets[p] = in.getInt();
+                if (targets[p] < 0 || targets[p] >= n) {
+                    throw new IOException("corrupt graph file edges: " + file);
+                }
+            }
+            in.skipPadding();
+            IntDoubleMap[] rows = new IntDoubleMap[n];
+            for (int i = 0; i < n; i++) {
+                rows[i] = new IntDoubleMap(offsets[i + 1] - offsets[i]);
+                for (int p = offsets[i]; p < offsets[i + 1]; p++) {
+                    double w = in.getDouble();
+                    if (!(w >= 0) || targets[p] == i) {
+                        throw new IOException("corrupt graph file edges: " + file);
+                    }
+                    rows[i].put(keys[targets[p]], w);
+                }
+                if (rows[i].size() != offsets[i + 1] - offsets[i]) { // a neighbor listed twice
+                    throw new IOException("corrupt graph file edges: " + file);
+                }
+            }
+            for (int i = 0; i < n; i++) { // every edge must be stored from both ends with the same weight
+                for (int p = offsets[i]; p < offsets[i + 1]; p++) {
+                    if (rows[targets[p]].get(keys[i], -1) != rows[i].get(keys[targets[p]], -1)) {
+                        throw new IOException("corrupt graph file edges: " + file);
+                    }
+                }
+                g.restoreAdjacency(keys[i], rows[i]);
+            }
+            long[] infoOffsets = new long[n + 1];
+            for (int i = 0; i <= n; i++) {
+                infoOffsets[i] = in.getLong();
+                if (i == 0 ? infoOffsets[0] != 0 : infoOffsets[i] < infoOffsets[i - 1]
+                        || infoOffsets[i] - infoOffsets[i - 1] > Integer.MAX_VALUE) {
+                    throw new IOException("corrupt graph file infos: " + file);
+                }
+            }
+            byte[] flags = new byte[n];
+            in.getBytes(flags);
+            in.skipPadding();
+            if (infoOffsets[n] > size - in.position()) {
+                throw new IOException("graph file ends too early: " + file);
+            }
+            for (int i = 0; i < n; i++) {
+                long length = infoOffsets[i + 1] - infoOffsets[i];
+                byte[] bytes = new byte[(int) length];
+                in.getBytes(bytes);
+                if (flags[i] != 0) {
+                    g.getNode(keys[i]).setInfo(new String(bytes, StandardCharsets.UTF_8));
+                }
+            }
+            g.restoreCounts((int) edges, mc);
+            return g;
+        }
+    }
+
+    /**
+     * The size a file needs at least for the header it starts with: every block up to the info bytes.
+     * @param n int - number of nodes
+     * @param half long - number of half edges
+     * @return long - the size in bytes
+     */
+    private static long minimumSize(int n, long half) {
+        long size = Layout.align(Layout.align(HEADER_SIZE + 4L * n) + 8L * n + 4L * (n + 1));
+        size = Layout.align(size + 4 * half) + 8 * half;
+        return size + 8L * (n + 1) + n;
+    }
+
+    /**
+     * The positions of the blocks of a graph file, they follow from the header.
+     */
+    static class Layout {
+        final int n, mc;
+        final long edges, half;
+        final long keys, tags, offsets, targets, weights, infoOffsets, infoFlags, infoBytes;
+
+        /**
+         * Reads and checks the header of a mapped file.
+         * @param header ByteBuffer - the first HEADER_SIZE bytes of the file, little endian
+         * @param size long - the size of the file
+         * @throws IOException - if it is not a graph file of this version or it is too short
+         */
+        Layout(ByteBuffer header, long size) throws IOException {
+            byte[] magic = new byte[MAGIC.length];
+            header.get(0, magic);
+            if (!isGraphFile(magic) || header.getInt(4) != VERSION) {
+                throw new IOException("not a version " + VERSION + " graph file");
+            }
+            this.n = header.getInt(8);
+            this.mc = header.getInt(12);
+            this.edges = header.getLong(16);
+            this.half = header.getLong(24);
+            if (n < 0 || edges < 0 || half != 2 * edges || half > Integer.MAX_VALUE) {
+                throw new IOException("corrupt graph file header");
+            }
+            this.keys = HEADER_SIZE;
+            this.tags = align(keys + 4L * n);
+            this.offsets = tags + 8L * n;
+            this.targets = align(offsets + 4L * (n + 1));
+            this.weights = align(targets + 4 * half);
+            this.infoOffsets = weights + 8 * half;
+            this.infoFlags = infoOffsets + 8L * (n + 1);
+            this.infoBytes = align(infoFlags + n);
+            if (infoBytes > size) {
+                throw new IOException("graph file ends too early");
+            }
+        }
+
+        private static long align(long position) {
+            return (position + 7) & ~7L;
+        }
+    }
+
+    /**
+     * The neighbors of one node sorted by index, the buffers are reused from row to row.
+     */
+    private static class Row {
+        private final weighted_graph g;
+        private final WGraph_DS ds; // its adjacency maps are read directly
+        private final IntIntMap index;
+        int[] targets = new int[16];
+        double[] weights = new double[16];
+        int size;
+
+        Row(weighted_graph g, IntIntMap index) {
+            this.g = g;
+            this.ds = g instanceof WGraph_DS ? (WGraph_DS) g : null;
+            this.index = index;
+        }
+
+        void load(int key) {
+            size = 0;
+            if (ds != null) {
+                IntDoubleMap adj = ds.adjacency(key);
+                for (int s = 0; adj != null && s < adj.capacity(); s++) {
+                    if (adj.isUsed(s)) {
+                        add(index.get(adj.keyAt(s)), adj.valueAt(s));
+                    }
+                }
+            } else {
+                g.forEachNeighbor(key, (n, w) -> add(index.get(n), w));
+            }
+            sort();
+        }
+
+        private void add(int target, double weight) {
+            if (size == targets.length) {
+                targets = Arrays.copyOf(targets, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            targets[size] = target;
+            weights[size++] = weight;
+        }
+
+        private void sort() {
+            if (size <= 32) {
+                for (int i = 1; i < size; i++) {
+                    int t = targets[i];
+                    double w = weights[i];
+                    int j = i - 1;
+                    while (j >= 0 && targets[j] > t) {
+                        targets[j + 1] = targets[j];
+                        weights[j + 1] = weights[j];
+                        j--;
+                    }
+                    targets[j + 1] = t;
+                    weights[j + 1] = w;
+                }
+                return;
+            }
+            long[] packed = new long[size];
+            for (int i = 0; i < size; i++) {
+                packed[i] = ((long) targets[i] << 32) | i;
+            }
+            Arrays.sort(packed);
+            double[] w = Arrays.copyOf(weights, size);
+            for (int i = 0; i < size; i++) {
+                targets[i] = (int) (packed[i] >>> 32);
+                weights[i] = w[(int) packed[i]];
+            }
+        }
+    }
+
+    /**
+     * Buffered little endian writer on a channel.
+     */
+    private static class Out {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        Out(FileChannel ch) {
+            this.ch = ch;
+        }
+
+        void putInt(int x) throws IOException {
+            ensure(4);
+            buf.putInt(x);
+            position += 4;
+        }
+
+        void putLong(long x) throws IOException {
+            ensure(8);
+            buf.putLong(x);
+            position += 8;
+        }
+
+        void putDouble(double x) throws IOException {
+            ensure(8);
+            buf.putDouble(x);
+            position += 8;
+        }
+
+        void putByte(int x) throws IOException {
+            ensure(1);
+            buf.put((byte) x);
+            position++;
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            for (int from = 0; from < bytes.length; ) {
+                ensure(1);
+                int len = Math.min(buf.remaining(), bytes.length - from);
+                buf.put(bytes, from, len);
+                from += len;
+                position += len;
+            }
+        }
+
+        /**
+         * Writes zeros up to the next multiple of 8 bytes.
+         */
+        void pad() throws IOException {
+            while (position % 8 != 0) {
+                ensure(1);
+                buf.put((byte) 0);
+                position++;
+            }
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                ch.write(buf);
+            }
+            buf.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buf.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Buffered little endian reader on a channel.
+     */
+    private static class In {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        In(FileChannel ch) {
+            this.ch = ch;
+            buf.limit(0);
+        }
+
+        int getInt() throws IOException {
+            need(4);
+            position += 4;
+            return buf.getInt();
+        }
+
+        long getLong() throws IOException {
+            need(8);
+            position += 8;
+            return buf.getLong();
+        }
+
+        double getDouble() throws IOException {
+            need(8);
+            position += 8;
+            return buf.getDouble();
+        }
+
+        void getBytes(byte[] bytes) throws IOException {
+            for (int from = 0; from < bytes.length; ) {
+                need(1);
+                int len = Math.min(buf.remaining(), bytes.length - from);
+                buf.get(bytes, from, len);
+                from += len;
+                position += len;
+            }
+        }
+
+        /**
+         * @return long - number of bytes read so far
+         */
+        long position() {
+            return position;
+        }
+
+        /**
+         * Skips to the next multiple of 8 bytes.
+         */
+        void skipPadding() throws IOException {
+            while (position % 8 != 0) {
+                need(1);
+                buf.get();
+                position++;
+            }
+        }
+
+        private void need(int bytes) throws IOException {
+            if (buf.remaining() >= bytes) {
+                return;
+            }
+            buf.compact();
+            while (buf.position() < bytes) {
+                if (ch.read(buf) < 0) {
+                    throw new EOFException("graph file ends too early");
+                }
+            }
+            buf.flip();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * Binary min heap of dense node indices (0..capacity-1) ordered by a double priority.
+ * Unlike java.util.PriorityQueue it knows the position of every index in the heap,
+ * so contains(i) is O(1) and the priority of an index can be lowered with decreaseKey(i, p) in O(log(n)).
+ * Used as the queue of Dijkstra-style searches.
+ */
+class IndexedMinHeap {
+    private final int[] heap;   // heap position -> index
+    private final int[] pos;    // index -> heap position, -1 if not in the heap
+    private final double[] pri; // index -> priority
+    private int size;
+
+    /**
+     * Constructor
+     * @param capacity int - the indices must be in the range 0..capacity-1
+     */
+    IndexedMinHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.pos = new int[capacity];
+        this.pri = new double[capacity];
+        Arrays.fill(pos, -1);
+    }
+
+    /**
+     * @return int - the largest index + 1 this heap can hold
+     */
+    int capacity() {
+        return pos.length;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param i int - index
+     * @return boolean - true if the index is currently in the heap
+     */
+    boolean contains(int i) {
+        return pos[i] >= 0;
+    }
+
+    /**
+     * @return double - the smallest priority in the heap, the heap must not be empty
+     */
+    double peekPriority() {
+        return pri[heap[0]];
+    }
+
+    /**
+     * Inserts the index, or lowers its priority if it is already in the heap with a higher one.
+     * @param i int - index
+     * @param p double - priority
+     */
+    void push(int i, double p) {
+        if (pos[i] >= 0) {
+            decreaseKey(i, p);
+            return;
+        }
+        pri[i] = p;
+        pos[i] = size;
+        heap[size] = i;
+        siftUp(size++);
+    }
+
+    /**
+     * Lowers the priority of an index which is in the heap, a higher priority is ignored.
+     * @param i int - index
+     * @param p double - the new priority
+     */
+    void decreaseKey(int i, double p) {
+        if (p < pri[i]) {
+            pri[i] = p;
+            siftUp(pos[i]);
+        }
+    }
+
+    /**
+     * Removes the index with the smallest priority.
+     * @return int - the removed index
+     */
+    int pop() {
+        int top = heap[0];
+        pos[top] = -1;
+        if (--size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            pos[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Empties the heap, O(size) so a heap can be reused between searches.
+     */
+    void clear() {
+        for (int k = 0; k < size; k++) {
+            pos[heap[k]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int k) {
+        int i = heap[k];
+        double p = pri[i];
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            int pi = heap[parent];
+            if (pri[pi] <= p) {
+                break;
+            }
+            heap[k] = pi;
+            pos[pi] = k;
+            k = parent;
+        }
+        heap[k] = i;
+        pos[i] = k;
+    }
+
+    private void siftDown(int k) {
+        int i = heap[k];
+        double p = pri[i];
+        int half = size >>> 1;
+        while (k < half) {
+            int child = 2 * k + 1;
+            int ci = heap[child];
+            int right = child + 1;
+            if (right < size && pri[heap[right]] < pri[ci]) {
+                child = right;
+                ci = heap[child];
+            }
+            if (p <= pri[ci]) {
+                break;
+            }
+            heap[k] = ci;
+            pos[ci] = k;
+            k = child;
+        }
+        heap[k] = i;
+        pos[i] = k;
+    }
+}
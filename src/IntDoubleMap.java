@@ -0,0 +1,275 @@
+package ex1.src;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from a primitive int key to a primitive double value,
+ * used by WGraph_DS to hold the neighbors of a node (neighbor key -> edge weight).
+ * Nothing is boxed, an entry costs one int and one double.
+ * Collisions are resolved with linear probing, removal uses backward shifting so no tombstones are left behind.
+ * A NaN value marks an empty slot, edge weights are never NaN (connect only accepts w >= 0).
+ * The slots can be scanned directly with capacity(), isUsed(slot), keyAt(slot) and valueAt(slot).
+ */
+class IntDoubleMap implements Serializable {
+    private static final long serialVersionUID = -7049391432341638152L;
+    private static final double FREE = Double.NaN;
+
+    private int[] keys;
+    private double[] vals;
+    private int size, mask;
+    transient Object owner; // the WGraph_DS which may change this map in place, see WGraph_DS.writable
+
+    /**
+     * Default constructor
+     */
+    IntDoubleMap() {
+        this(0);
+    }
+
+    /**
+     * Constructor, pre-sizes the table so the given number of entries fits without resizing.
+     * @param expected int - expected number of entries
+     */
+    IntDoubleMap(int expected) {
+        allocate(IntObjectMap.tableSizeFor(expected));
+    }
+
+    /**
+     * Copy constructor, the copy has the same table (no rehashing) and no owner.
+     * @param other IntDoubleMap - the map to copy
+     */
+    IntDoubleMap(IntDoubleMap other) {
+        this.keys = other.keys.clone();
+        this.vals = other.vals.clone();
+        this.size = other.size;
+        this.mask = other.mask;
+    }
+
+    /**
+     * return the value associated with the key, or the given default.
+     * @param key int - the key
+     * @param missing double - returned if there is no such key
+     * @return double - the value
+     */
+    double get(int key, double missing) {
+        int i = IntObjectMap.hash(key) & mask;
+        double v;
+        while ((v = vals[i]) == v) { // a used slot, NaN != NaN
+            if (keys[i] == key) {
+                return v;
+            }
+            i = (i + 1) & mask;
+        }
+        return missing;
+    }
+
+    /**
+     * return true if and only if the map contains the key.
+     * @param key int - the key
+     * @return boolean
+     */
+    boolean containsKey(int key) {
+        int i = IntObjectMap.hash(key) & mask;
+        while (!Double.isNaN(vals[i])) {
+            if (keys[i] == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Associates the value with the key.
+     * @param key int - the key
+     * @param value double - any value but NaN
+     * @return double - the previous value, NaN if none.
+     */
+    double put(int key, double value) {
+        int i = IntObjectMap.hash(key) & mask;
+        double v;
+        while ((v = vals[i]) == v) {
+            if (keys[i] == key) {
+                vals[i] = value;
+                return v;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        vals[i] = value;
+        if (++size > vals.length - (vals.length >>> 2)) {
+            resize(vals.length << 1);
+        }
+        return FREE;
+    }
+
+    /**
+     * Removes the key from the map.
+     * @param key int - the key
+     * @return double - the removed value, NaN if none.
+     */
+    double remove(int key) {
+        int i = IntObjectMap.hash(key) & mask;
+        double v;
+        while ((v = vals[i]) == v) {
+            if (keys[i] == key) {
+                shiftBack(i);
+                size--;
+                return v;
+            }
+            i = (i + 1) & mask;
+        }
+        return FREE;
+    }
+
+    /**
+     * return the number of entries.
+     * @return int - size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * return the number of slots, for scanning the map with isUsed/keyAt/valueAt.
+     * @return int - the table length
+     */
+    int capacity() {
+        return vals.length;
+    }
+
+    /**
+     * @param slot - slot index, 0..capacity()-1
+     * @return boolean - true if the slot holds an entry
+     */
+    boolean isUsed(int slot) {
+        return !Double.isNaN(vals[slot]);
+    }
+
+    /**
+     * @param slot - a used slot
+     * @return int - the key in the slot
+     */
+    int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * @param slot - a used slot
+     * @return double - the value in the slot
+     */
+    double valueAt(int slot) {
+        return vals[slot];
+    }
+
+    /**
+     * Two maps are equal if they hold the same keys with the same values.
+     * @param obj - the map to compare to
+     * @return boolean
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof IntDoubleMap)) {
+            return false;
+        }
+        IntDoubleMap other = (IntDoubleMap) obj;
+        if (other.size != size) {
+            return false;
+        }
+        for (int i = 0; i < vals.length; i++) {
+            if (isUsed(i) && other.get(keys[i], FREE) != vals[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Overrides hashCode method, a must if equals method is overridden
+     * @return int - order independent hash of the entries
+     */
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int i = 0; i < vals.length; i++) {
+            if (isUsed(i)) {
+                h += keys[i] ^ Double.hashCode(vals[i]);
+            }
+        }
+        return h;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        vals = new double[capacity];
+        Arrays.fill(vals, FREE);
+        mask = capacity - 1;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        double[] oldVals = vals;
+        allocate(capacity);
+        for (int j = 0; j < oldVals.length; j++) {
+            if (!Double.isNaN(oldVals[j])) {
+                int i = IntObjectMap.hash(oldKeys[j]) & mask;
+                while (!Double.isNaN(vals[i])) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                vals[i] = oldVals[j];
+            }
+        }
+    }
+
+    /**
+     * Backward shift deletion, see IntObjectMap.
+     * @param gap - the slot which was freed
+     */
+    private void shiftBack(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            if (Double.isNaN(vals[i])) {
+                break;
+            }
+            int home = IntObjectMap.hash(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                vals[gap] = vals[i];
+                gap = i;
+            }
+        }
+        vals[gap] = FREE;
+    }
+
+    /**
+     * Reads a map saved by this class. A map saved before the keys were mixed (see IntObjectMap.hash)
+     * has its entries in the slots of the old hash, so unless every key is still found from its home slot
+     * the map is rehashed at the same size.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        for (int slot = 0; slot < vals.length; slot++) {
+            if (!Double.isNaN(vals[slot]) && !reachable(slot)) {
+                resize(vals.length);
+                return;
+            }
+        }
+    }
+
+    /**
+     * return true if there is no free slot between the home slot of the key in the given slot and the slot itself.
+     */
+    private boolean reachable(int slot) {
+        for (int i = IntObjectMap.hash(keys[slot]) & mask; i != slot; i = (i + 1) & mask) {
+            if (Double.isNaN(vals[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
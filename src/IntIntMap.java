@@ -0,0 +1,160 @@
+package ex1.src;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from a primitive int key to a non negative int value,
+ * used to map node keys to dense node indices without boxing.
+ * Collisions are resolved with linear probing, removal uses backward shifting so no tombstones are left behind.
+ * A negative value marks an empty slot, hence only values >= 0 can be stored.
+ */
+class IntIntMap implements Serializable {
+    private static final long serialVersionUID = 8943351088092530416L;
+    private static final int FREE = -1;
+
+    private int[] keys;
+    private int[] vals;
+    private int size, mask;
+
+    /**
+     * Default constructor
+     */
+    IntIntMap() {
+        this(0);
+    }
+
+    /**
+     * Constructor, pre-sizes the table so the given number of entries fits without resizing.
+     * @param expected int - expected number of entries
+     */
+    IntIntMap(int expected) {
+        allocate(IntObjectMap.tableSizeFor(expected));
+    }
+
+    /**
+     * Copy constructor, the copy has the same table (no rehashing).
+     * @param other IntIntMap - the map to copy
+     */
+    IntIntMap(IntIntMap other) {
+        this.keys = other.keys.clone();
+        this.vals = other.vals.clone();
+        this.size = other.size;
+        this.mask = other.mask;
+    }
+
+    /**
+     * return the value associated with the key.
+     * @param key int - the key
+     * @return int - the value, -1 if none.
+     */
+    int get(int key) {
+        int i = IntObjectMap.hash(key) & mask;
+        int v;
+        while ((v = vals[i]) >= 0) {
+            if (keys[i] == key) {
+                return v;
+            }
+            i = (i + 1) & mask;
+        }
+        return FREE;
+    }
+
+    /**
+     * Associates the value with the key.
+     * @param key int - the key
+     * @param value int - value >= 0
+     * @return int - the previous value, -1 if none.
+     */
+    int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("negative value " + value);
+        }
+        int i = IntObjectMap.hash(key) & mask;
+        int v;
+        while ((v = vals[i]) >= 0) {
+            if (keys[i] == key) {
+                vals[i] = value;
+                return v;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        vals[i] = value;
+        if (++size > vals.length - (vals.length >>> 2)) {
+            resize(vals.length << 1);
+        }
+        return FREE;
+    }
+
+    /**
+     * Removes the key from the map.
+     * @param key int - the key
+     * @return int - the removed value, -1 if none.
+     */
+    int remove(int key) {
+        int i = IntObjectMap.hash(key) & mask;
+        int v;
+        while ((v = vals[i]) >= 0) {
+            if (keys[i] == key) {
+                shiftBack(i);
+                size--;
+                return v;
+            }
+            i = (i + 1) & mask;
+        }
+        return FREE;
+    }
+
+    /**
+     * return the number of entries.
+     * @return int - size
+     */
+    int size() {
+        return size;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        vals = new int[capacity];
+        Arrays.fill(vals, FREE);
+        mask = capacity - 1;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldVals = vals;
+        allocate(capacity);
+        for (int j = 0; j < oldVals.length; j++) {
+            if (oldVals[j] >= 0) {
+                int i = IntObjectMap.hash(oldKeys[j]) & mask;
+                while (vals[i] >= 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                vals[i] = oldVals[j];
+            }
+        }
+    }
+
+    /**
+     * Backward shift deletion, see IntObjectMap.
+     * @param gap - the slot which was freed
+     */
+    private void shiftBack(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            if (vals[i] < 0) {
+                break;
+            }
+            int home = IntObjectMap.hash(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                vals[gap] = vals[i];
+                gap = i;
+            }
+        }
+        vals[gap] = FREE;
+    }
+}
@@ -0,0 +1,30 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of ints, used as a stack, a queue (with an outside head position) or a list of touched indices.
+ * The fields are open to the package so hot loops read them without calls.
+ */
+class IntList {
+    int[] data = new int[16];
+    int size;
+
+    /**
+     * Appends a value, the array doubles when it is full.
+     * @param x int - the value
+     */
+    void add(int x) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, size * 2);
+        }
+        data[size++] = x;
+    }
+
+    /**
+     * Removes all the values, the array is kept.
+     */
+    void clear() {
+        size = 0;
+    }
+}
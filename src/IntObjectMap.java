@@ -0,0 +1,350 @@
+package ex1.src;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.UnaryOperator;
+
+/**
+ * Open addressing hash map from a primitive int key to an object value.
+ * Used instead of HashMap<Integer, V> so a lookup does not box the key and an entry costs
+ * one int and one reference instead of a HashMap.Node and an Integer.
+ * The entries are kept in insertion order in two dense arrays (keys and values), the hash table only holds
+ * the position of every entry, so iteration follows the insertion order whatever the hash of the keys is.
+ * Collisions are resolved with linear probing, removal uses backward shifting so no tombstones are left in the table,
+ * the removed entry leaves a hole in the dense arrays which is squeezed out when they are full.
+ * A null value marks an empty entry, hence null values are not allowed.
+ * @param <V> the value type
+ */
+class IntObjectMap<V> implements Serializable {
+    private static final long serialVersionUID = -671444306539741532L;
+    private static final int MIN_CAPACITY = 4;
+
+    private int[] keys;     // entry -> key
+    private Object[] vals;  // entry -> value, null for a removed entry
+    private int[] table;    // slot -> entry + 1, 0 for an empty slot
+    private int used, size, mask, modCount;
+    private transient Collection<V> valuesView;
+
+    /**
+     * Default constructor
+     */
+    IntObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Constructor, pre-sizes the table so the given number of entries fits without resizing.
+     * @param expected int - expected number of entries
+     */
+    IntObjectMap(int expected) {
+        allocate(tableSizeFor(expected));
+    }
+
+    /**
+     * Copy constructor, the copy has the same table and entry order (no rehashing),
+     * every value is replaced by copyValue(value).
+     * @param other IntObjectMap - the map to copy
+     * @param copyValue UnaryOperator - copies a value, identity to share the values
+     */
+    IntObjectMap(IntObjectMap<V> other, UnaryOperator<V> copyValue) {
+        this.keys = other.keys.clone();
+        this.table = other.table.clone();
+        this.vals = new Object[other.vals.length];
+        for (int e = 0; e < other.used; e++) {
+            if (other.vals[e] != null) {
+                @SuppressWarnings("unchecked")
+                V v = (V) other.vals[e];
+                vals[e] = copyValue.apply(v);
+            }
+        }
+        this.used = other.used;
+        this.size = other.size;
+        this.mask = other.mask;
+    }
+
+    /**
+     * return the value associated with the key.
+     * @param key int - the key
+     * @return V - the value, null if none.
+     */
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        int i = hash(key) & mask;
+        int e;
+        while ((e = table[i]) != 0) {
+            if (keys[e - 1] == key) {
+                return (V) vals[e - 1];
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * return true if and only if the map contains the key.
+     * @param key int - the key
+     * @return boolean
+     */
+    boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Associates the value with the key, a new key is placed after all the others.
+     * @param key int - the key
+     * @param value V - non null value
+     * @return V - the previous value, null if none.
+     */
+    @SuppressWarnings("unchecked")
+    V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        int i = hash(key) & mask;
+        int e;
+        while ((e = table[i]) != 0) {
+            if (keys[e - 1] == key) {
+                Object old = vals[e - 1];
+                vals[e - 1] = value;
+                return (V) old;
+            }
+            i = (i + 1) & mask;
+        }
+        if (used == keys.length) {
+            // squeeze out the holes, the table grows only if more than half of the entries are live
+            rebuild(size > used / 2 ? table.length << 1 : table.length);
+            put(key, value);
+            return null;
+        }
+        keys[used] = key;
+        vals[used] = value;
+        table[i] = ++used;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    /**
+     * Removes the key from the map.
+     * @param key int - the key
+     * @return V - the removed value, null if none.
+     */
+    @SuppressWarnings("unchecked")
+    V remove(int key) {
+        int i = hash(key) & mask;
+        int e;
+        while ((e = table[i]) != 0) {
+            if (keys[e - 1] == key) {
+                Object v = vals[e - 1];
+                vals[e - 1] = null;
+                if (e == used) {
+                    used--;
+                }
+                shiftBack(i);
+                size--;
+                modCount++;
+                return (V) v;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * return the number of entries.
+     * @return int - size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * return a live view of the values, in insertion order.
+     * @return Collection<V>
+     */
+    Collection<V> values() {
+        if (valuesView == null) {
+            valuesView = new Values();
+        }
+        return valuesView;
+    }
+
+    /**
+     * Two maps are equal if they hold the same keys and equal values.
+     * @param obj - the map to compare to
+     * @return boolean
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof IntObjectMap)) {
+            return false;
+        }
+        IntObjectMap<?> other = (IntObjectMap<?>) obj;
+        if (other.size != size) {
+            return false;
+        }
+        for (int e = 0; e < used; e++) {
+            if (vals[e] != null && !vals[e].equals(other.get(keys[e]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Overrides hashCode method, a must if equals method is overridden
+     * @return int - order independent hash of the entries
+     */
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int e = 0; e < used; e++) {
+            if (vals[e] != null) {
+                h += keys[e] ^ vals[e].hashCode();
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Mixes the key (Fibonacci hashing: multiply by 2^32 / golden ratio and fold the high bits down).
+     * Linear probing needs the mixing, with an identity like hash a run of consecutive keys fills a run of
+     * consecutive slots and every other key which lands inside it probes to its end.
+     */
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * return the smallest power of two table size which holds the expected entries under the max load factor (3/4).
+     */
+    static int tableSizeFor(int expected) {
+        int cap = MIN_CAPACITY;
+        while (cap - (cap >>> 2) < expected) {
+            cap <<= 1;
+        }
+        return cap;
+    }
+
+    /**
+     * Allocates an empty table of the given size, with room for 3/4 of it in the entry arrays.
+     */
+    private void allocate(int capacity) {
+        table = new int[capacity];
+        mask = capacity - 1;
+        keys = new int[capacity - (capacity >>> 2)];
+        vals = new Object[keys.length];
+        used = 0;
+        size = 0;
+    }
+
+    /**
+     * Moves the live entries (in their order) to new arrays under a new table.
+     * @param capacity - the new table size
+     */
+    private void rebuild(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldVals = vals;
+        int oldUsed = used;
+        allocate(capacity);
+        for (int j = 0; j < oldUsed; j++) {
+            if (oldVals[j] != null) {
+                int i = hash(oldKeys[j]) & mask;
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[used] = oldKeys[j];
+                vals[used] = oldVals[j];
+                table[i] = ++used;
+            }
+        }
+        size = used;
+    }
+
+    /**
+     * Reads a map saved by this class, or by the IntObjectMap which kept no insertion order (same serialVersionUID):
+     * that one had no table, its keys and values were the hash slots themselves (null for an empty slot),
+     * so its entries are moved into the dense arrays in slot order, the order its values() had.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (table == null) {
+            used = vals.length;
+            rebuild(tableSizeFor(size));
+        }
+    }
+
+    /**
+     * Backward shift deletion, moves the following slots of the cluster into the freed slot
+     * when their home slot allows it.
+     * @param gap - the slot which was freed
+     */
+    private void shiftBack(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            if (table[i] == 0) {
+                break;
+            }
+            int home = hash(keys[table[i] - 1]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                table[gap] = table[i];
+                gap = i;
+            }
+        }
+        table[gap] = 0;
+    }
+
+    /**
+     * Values view, iterates the entries in insertion order.
+     */
+    private class Values extends AbstractCollection<V> {
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<V>() {
+                private final int expectedModCount = modCount;
+                private final Object[] entries = vals;
+                private final int end = used;
+                private int next = advance(0);
+
+                private int advance(int from) {
+                    while (from < end && entries[from] == null) {
+                        from++;
+                    }
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < end;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public V next() {
+                    if (expectedModCount != modCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (next >= end) {
+                        throw new NoSuchElementException();
+                    }
+                    V v = (V) entries[next];
+                    next = advance(next + 1);
+                    return v;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * Preprocessing of the ALT (A*, Landmarks, Triangle inequality) shortest path search.
+ * K landmark nodes are picked and a full Dijkstra is run from each of them, the distance from every landmark
+ * to every node is kept in one float array (node major, so the K distances of a node are next to each other).
+ * By the triangle inequality |d(L,t) - d(L,v)| <= d(v,t) for every landmark L, so the largest of these differences
+ * is a lower bound on the distance from v to t, which guides the A* search towards t.
+ * The floats are rounded, so every difference is lowered by the rounding error of both values to keep the bound valid.
+ * A table belongs to one NodeIndex, i.e. to one Mode Count of the graph, and must be rebuilt once the graph changes.
+ */
+class LandmarkTable {
+    private final NodeIndex index;
+    private final int k;
+    private final int[] landmarks;
+    private final float[] dist;
+
+    /**
+     * Constructor, picks the landmarks and runs the searches, O(k * (n+v) * log(n)).
+     * The first landmark is the first node of the index, every next one is the node farthest from all the
+     * landmarks picked so far (a node no landmark reached comes first, so every component gets a landmark).
+     * @param g weighted_graph - the graph
+     * @param index NodeIndex - the index of the graph
+     * @param count int - the number of landmarks to pick
+     */
+    LandmarkTable(weighted_graph g, NodeIndex index, int count) {
+        this.index = index;
+        int n = index.size();
+        this.k = Math.max(0, Math.min(count, n));
+        this.landmarks = new int[k];
+        this.dist = new float[n * k];
+        double[] closest = new double[n]; // distance from every node to its closest landmark
+        Arrays.fill(closest, Double.POSITIVE_INFINITY);
+        SearchState state = new SearchState();
+        int next = 0;
+        for (int l = 0; l < k; l++) {
+            landmarks[l] = next;
+            state.reset(index);
+            state.dijkstra(g, next, SearchState.NONE);
+            int farthest = -1;
+            for (int v = 0; v < n; v++) {
+                double d = state.dist(v);
+                dist[v * k + l] = (float) d;
+                if (d < closest[v]) {
+                    closest[v] = d;
+                }
+                if (farthest == -1 || closest[v] > closest[farthest]) {
+                    farthest = v;
+                }
+            }
+            next = farthest;
+        }
+    }
+
+    /**
+     * @param index NodeIndex - the current index of the graph
+     * @return boolean - true if this table was built for that index
+     */
+    boolean isValidFor(NodeIndex index) {
+        return this.index == index;
+    }
+
+    /**
+     * @return int - the number of landmarks
+     */
+    int landmarkCount() {
+        return k;
+    }
+
+    /**
+     * @param l int - landmark number, 0..landmarkCount()-1
+     * @return int - the node index of the landmark
+     */
+    int landmark(int l) {
+        return landmarks[l];
+    }
+
+    /**
+     * Lower bound on the distance between two nodes.
+     * @param v int - node index
+     * @param t int - node index
+     * @return double - a value <= the shortest distance between v and t, infinity if a landmark proves there is no path
+     */
+    double lowerBound(int v, int t) {
+        double bound = 0;
+        int rv = v * k;
+        int rt = t * k;
+        for (int l = 0; l < k; l++) {
+            float a = dist[rv + l];
+            float b = dist[rt + l];
+            if (a == Float.POSITIVE_INFINITY || b == Float.POSITIVE_INFINITY) {
+                if (a != b) { // one of them is in the component of the landmark and the other is not
+                    return Double.POSITIVE_INFINITY;
+                }
+                continue;
+            }
+            double diff = Math.abs((double) a - b) - Math.ulp(a) - Math.ulp(b);
+            if (diff > bound) {
+                bound = diff;
+            }
+        }
+        return bound;
+    }
+}
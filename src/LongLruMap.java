@@ -0,0 +1,176 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * Bounded map from a primitive long key to an object value which evicts the least recently used entry when it is full.
+ * The entries live in fixed slots (0..capacity-1) linked in recency order by two int arrays, an open addressing
+ * table (linear probing, backward shift removal, see IntObjectMap) finds the slot of a key.
+ * Nothing is boxed and nothing is allocated after the constructor, an evicted slot is reused by the new entry.
+ * @param <V> the value type
+ */
+class LongLruMap<V> {
+    private static final int NONE = -1;
+
+    private final long[] keys;
+    private final Object[] vals;
+    private final int[] prev, next; // slot -> the more / less recently used slot
+    private final int[] table;      // table slot -> entry slot + 1, 0 for an empty table slot
+    private final int mask;
+    private int size, head = NONE, tail = NONE; // head is the most recently used entry
+
+    /**
+     * Constructor
+     * @param capacity int - the maximal number of entries, at least 1
+     */
+    LongLruMap(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1, got " + capacity);
+        }
+        keys = new long[capacity];
+        vals = new Object[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        table = new int[IntObjectMap.tableSizeFor(capacity)];
+        mask = table.length - 1;
+    }
+
+    /**
+     * return the value of the key and marks it as the most recently used.
+     * @param key long - the key
+     * @return V - the value, null if none
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int slot = find(key);
+        if (slot == NONE) {
+            return null;
+        }
+        moveToHead(slot);
+        return (V) vals[slot];
+    }
+
+    /**
+     * Associates the value with the key as the most recently used entry,
+     * if the map is full the least recently used entry is evicted first.
+     * @param key long - the key
+     * @param value V - non null value
+     * @return boolean - true if an entry was evicted
+     */
+    boolean put(long key, V value) {
+        int slot = find(key);
+        if (slot != NONE) {
+            vals[slot] = value;
+            moveToHead(slot);
+            return false;
+        }
+        boolean evicted = size == keys.length;
+        if (evicted) {
+            slot = tail;
+            unlink(slot);
+            removeFromTable(keys[slot]);
+        } else {
+            slot = size++;
+        }
+        keys[slot] = key;
+        vals[slot] = value;
+        int i = hash(key) & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = slot + 1;
+        linkAtHead(slot);
+        return evicted;
+    }
+
+    /**
+     * return the number of entries.
+     * @return int - size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    void clear() {
+        Arrays.fill(table, 0);
+        Arrays.fill(vals, null);
+        size = 0;
+        head = tail = NONE;
+    }
+
+    private int find(long key) {
+        int i = hash(key) & mask;
+        int s;
+        while ((s = table[i]) != 0) {
+            if (keys[s - 1] == key) {
+                return s - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        return NONE;
+    }
+
+    private void removeFromTable(long key) {
+        int gap = hash(key) & mask;
+        while (keys[table[gap] - 1] != key) {
+            gap = (gap + 1) & mask;
+        }
+        int i = gap;
+        while (true) { // backward shift
+            i = (i + 1) & mask;
+            if (table[i] == 0) {
+                break;
+            }
+            int home = hash(keys[table[i] - 1]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                table[gap] = table[i];
+                gap = i;
+            }
+        }
+        table[gap] = 0;
+    }
+
+    private void moveToHead(int slot) {
+        if (slot != head) {
+            unlink(slot);
+            linkAtHead(slot);
+        }
+    }
+
+    private void unlink(int slot) {
+        if (prev[slot] != NONE) {
+            next[prev[slot]] = next[slot];
+        } else {
+            head = next[slot];
+        }
+        if (next[slot] != NONE) {
+            prev[next[slot]] = prev[slot];
+        } else {
+            tail = prev[slot];
+        }
+    }
+
+    private void linkAtHead(int slot) {
+        prev[slot] = NONE;
+        next[slot] = head;
+        if (head != NONE) {
+            prev[head] = slot;
+        }
+        head = slot;
+        if (tail == NONE) {
+            tail = slot;
+        }
+    }
+
+    /**
+     * Fibonacci hashing of the whole long, folding the two halves first would send e.g. all the pairs (a, b)
+     * with the same a ^ b to one slot.
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,99 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * Dense index snapshot of the nodes of a weighted_graph: every node gets an index in the range 0..n-1
+ * (by the iteration order of getV()), so searches can keep their state in flat arrays instead of in the nodes.
+ * The snapshot is taken for one Mode Count of the graph, isValidFor(g) tells whether it can still be used.
+ * A WGraph_DS keeps a dense index of its own (WGraph_DS.indexOf), while it has no free index the snapshot
+ * copies its arrays (no hashing, the table is cloned as is) and the order is the index order of the graph.
+ * The keys and the indices of a snapshot never change, nodeAt reads the nodes of such a snapshot from the graph,
+ * so it is only meaningful while the snapshot is valid.
+ */
+class NodeIndex {
+    private final weighted_graph g;
+    private final int mc;
+    private final int size;
+    private final int[] keys;
+    private final node_info[] nodes; // null if the index of a WGraph_DS was copied
+    private final IntIntMap indices;
+
+    /**
+     * Constructor, takes the snapshot of the given graph, O(n) (array copies only for a WGraph_DS without free indexes).
+     * @param g weighted_graph - the graph to index
+     */
+    NodeIndex(weighted_graph g) {
+        this.g = g;
+        this.mc = g.getMC();
+        int n = g.nodeSize();
+        this.size = n;
+        if (g instanceof WGraph_DS && ((WGraph_DS) g).indexBound() == n) { // dense, no free index
+            this.keys = Arrays.copyOf(((WGraph_DS) g).slotKeys(), n);
+            this.nodes = null;
+            this.indices = new IntIntMap(((WGraph_DS) g).slotOf());
+            return;
+        }
+        this.keys = new int[n];
+        this.nodes = new node_info[n];
+        this.indices = new IntIntMap(n);
+        int i = 0;
+        for (node_info node : g.getV()) {
+            keys[i] = node.getKey();
+            nodes[i] = node;
+            indices.put(node.getKey(), i++);
+        }
+    }
+
+    /**
+     * Returns the index of the given graph, reusing the previous one if the graph did not change since.
+     * @param g weighted_graph - the graph
+     * @param previous NodeIndex - the last index (may be null)
+     * @return NodeIndex - an index which is valid for g
+     */
+    static NodeIndex of(weighted_graph g, NodeIndex previous) {
+        if (previous != null && previous.isValidFor(g)) {
+            return previous;
+        }
+        return new NodeIndex(g);
+    }
+
+    /**
+     * @param g weighted_graph - a graph
+     * @return boolean - true if this is an index of g and g was not changed since it was taken
+     */
+    boolean isValidFor(weighted_graph g) {
+        return this.g == g && this.mc == g.getMC();
+    }
+
+    /**
+     * @return int - the number of indexed nodes
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param key int - a node key
+     * @return int - the index of the node, -1 if there is no such node
+     */
+    int indexOf(int key) {
+        return indices.get(key);
+    }
+
+    /**
+     * @param index int - a node index
+     * @return int - the key of the node
+     */
+    int keyAt(int index) {
+        return keys[index];
+    }
+
+    /**
+     * @param index int - a node index
+     * @return node_info - the node
+     */
+    node_info nodeAt(int index) {
+        return nodes != null ? nodes[index] : g.getNode(keys[index]);
+    }
+}
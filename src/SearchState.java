@@ -0,0 +1,456 @@
+package ex1.src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The state of one shortest path query: the distance and the predecessor of every node (by dense index)
+ * and the queue of the search. The algorithms keep their state here instead of in the tag and info
+ * of the nodes, so the graph is only read during a query and two queries don't interfere.
+ * A state is reusable, every search only resets the entries the previous search touched,
+ * so one state (per thread) can be kept and reused for all the queries on a graph.
+ * The state is also the visitor of the edges it scans (weighted_graph.forEachNeighbor), so a search allocates nothing per node.
+ */
+class SearchState implements weighted_graph.NeighborVisitor {
+    static final int NONE = -1;
+
+    private NodeIndex index;
+    private double[] dist = new double[0];
+    private int[] pred = new int[0];
+    private int[] touched = new int[0];
+    private boolean[] isTarget = new boolean[0];
+    private boolean[] settled = new boolean[0];
+    private int touchedCount, settledCount;
+    private IndexedMinHeap heap = new IndexedMinHeap(0);
+    private SearchState reverse;
+    private boolean bidirectional;
+    private long pushes, pops, settles, relaxed, resetNanos; // statistics since startStats, for WGraph_QueryListener
+    private boolean timed, cacheHit;
+    private int from; // the node whose edges visit gets, and its distance
+    private double fromDist;
+    private LandmarkTable bounds; // set while astar runs, the edges are relaxed towards boundTarget
+    private int boundTarget;
+    private SearchState other; // set while relax looks for the meeting point of a bidirectional search
+    private double meetDist;
+    private int meetNode;
+
+    /**
+     * Prepares the state for a search over the given index, the arrays are only reallocated
+     * if the graph grew, otherwise only the touched entries are reset.
+     * @param index NodeIndex - the dense index of the searched graph
+     */
+    void reset(NodeIndex index) {
+        long start = timed ? System.nanoTime() : 0;
+        this.index = index;
+        int n = index.size();
+        if (dist.length < n) {
+            dist = new double[n];
+            pred = new int[n];
+            touched = new int[n];
+            settled = new boolean[n];
+            heap = new IndexedMinHeap(n);
+            Arrays.fill(dist, Double.POSITIVE_INFINITY);
+            Arrays.fill(pred, NONE);
+        }
+        else {
+            for (int k = 0; k < touchedCount; k++) {
+                dist[touched[k]] = Double.POSITIVE_INFINITY;
+                pred[touched[k]] = NONE;
+                settled[touched[k]] = false;
+            }
+            heap.clear();
+        }
+        touchedCount = 0;
+        settledCount = 0;
+        bidirectional = false;
+        if (timed) {
+            resetNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Dijkstra search from src, stops when target is settled (removed from the queue).
+     * Runs in O((n+v) * log(n)) with the indexed heap.
+     * @param g weighted_graph - the graph, must match the index given to reset
+     * @param src int - index of the source node
+     * @param target int - index of the node to stop at, NONE to search the whole component of src
+     */
+    void dijkstra(weighted_graph g, int src, int target) {
+        start(src);
+        while (!heap.isEmpty()) {
+            int u = pop();
+            if (u == target) {
+                return;
+            }
+            relax(g, u);
+        }
+    }
+
+    /**
+     * Dijkstra search from src which stops when all the targets are settled (one to many).
+     * @param g weighted_graph - the graph, must match the index given to reset
+     * @param src int - index of the source node
+     * @param targets int[] - indices of the nodes to stop after, repeats and NONE entries are ignored
+     */
+    void dijkstra(weighted_graph g, int src, int[] targets) {
+        if (isTarget.length < index.size()) {
+            isTarget = new boolean[index.size()];
+        }
+        int remaining = 0;
+        for (int t : targets) {
+            if (t != NONE && !isTarget[t]) {
+                isTarget[t] = true;
+                remaining++;
+            }
+        }
+        start(src);
+        while (remaining > 0 && !heap.isEmpty()) {
+            int u = pop();
+            if (isTarget[u]) {
+                isTarget[u] = false;
+                if (--remaining == 0) {
+                    return;
+                }
+            }
+            relax(g, u);
+        }
+        for (int t : targets) { // the unreachable targets
+            if (t != NONE) {
+                isTarget[t] = false;
+            }
+        }
+    }
+
+    /**
+     * A* search from src to target, guided by the landmark lower bounds (ALT).
+     * The queue is ordered by dist + lowerBound(node, target), so the search heads towards the target
+     * and settles far fewer nodes than Dijkstra. A node whose bound is infinite can't reach the target and is skipped.
+     * The bounds are admissible, a node which is reached again with a shorter distance is simply queued again,
+     * so the distance of the target is exact once it is removed from the queue.
+     * @param g weighted_graph - the graph, must match the index given to reset
+     * @param src int - index of the source node
+     * @param target int - index of the destination node
+     * @param table LandmarkTable - landmark distances of the same index
+     */
+    void astar(weighted_graph g, int src, int target, LandmarkTable table) {
+        double h = table.lowerBound(src, target);
+        if (h == Double.POSITIVE_INFINITY) {
+            return;
+        }
+        setDist(src, 0, NONE);
+        heap.push(src, h);
+        pushes++;
+        bounds = table;
+        boundTarget = target;
+        while (!heap.isEmpty()) {
+            int u = pop();
+            if (u == target) {
+                break;
+            }
+            scan(g, u);
+        }
+        bounds = null;
+    }
+
+    /**
+     * Puts the source node in the queue with distance 0.
+     * @param src int - index of the source node
+     */
+    void start(int src) {
+        setDist(src, 0, NONE);
+        heap.push(src, 0);
+        pushes++;
+    }
+
+    /**
+     * @return boolean - true if there are no more nodes in the queue
+     */
+    boolean queueEmpty() {
+        return heap.isEmpty();
+    }
+
+    /**
+     * @return double - the smallest distance in the queue, the queue must not be empty
+     */
+    double queueMin() {
+        return heap.peekPriority();
+    }
+
+    /**
+     * Removes the closest node from the queue, its distance is final.
+     * A node is counted as settled the first time only, A* may queue a settled node again (see astar).
+     * @return int - index of the settled node
+     */
+    int pop() {
+        pops++;
+        int u = heap.pop();
+        if (!settled[u]) {
+            settled[u] = true;
+            settledCount++;
+            settles++;
+        }
+        return u;
+    }
+
+    /**
+     * Relaxes all the edges of a settled node, lowering the distance of every neighbor it gives a shorter path to.
+     * @param g weighted_graph - the graph
+     * @param u int - index of a settled node
+     */
+    void relax(weighted_graph g, int u) {
+        scan(g, u);
+    }
+
+    /**
+     * Relaxes the edges of a settled node of one side of a bidirectional search (see BidirectionalDijkstra)
+     * and looks for a shorter path through the nodes it reaches which the other side has reached too.
+     * @param g weighted_graph - the graph
+     * @param u int - index of a settled node
+     * @param other SearchState - the state of the other side
+     * @param best double - the length of the shortest path found so far
+     * @return int - the node of a path shorter than best (its length is meetDist()), NONE if there is none
+     */
+    int relax(weighted_graph g, int u, SearchState other, double best) {
+        this.other = other;
+        meetDist = best;
+        meetNode = NONE;
+        scan(g, u);
+        this.other = null;
+        return meetNode;
+    }
+
+    /**
+     * @return double - the length of the path through the node the last relax(g, u, other, best) returned
+     */
+    double meetDist() {
+        return meetDist;
+    }
+
+    /**
+     * Relaxes one edge of the node being scanned, it is called by forEachNeighbor (see scan).
+     * @param neighbor int - the key of the neighbor
+     * @param weight double - the weight of the edge
+     */
+    @Override
+    public void visit(int neighbor, double weight) {
+        relaxed++;
+        int v = index.indexOf(neighbor);
+        double d = fromDist + weight;
+        if (d < dist[v]) {
+            if (bounds == null) {
+                update(v, d, from);
+                if (other != null && d + other.dist[v] < meetDist) { // v was reached by the other side, closes a shorter path
+                    meetDist = d + other.dist[v];
+                    meetNode = v;
+                }
+            }
+            else {
+                double h = bounds.lowerBound(v, boundTarget);
+                if (h != Double.POSITIVE_INFINITY) {
+                    setDist(v, d, from);
+                    heap.push(v, d + h);
+                    pushes++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Scans the edges of a settled node, visit gets them one by one.
+     */
+    private void scan(weighted_graph g, int u) {
+        from = u;
+        fromDist = dist[u];
+        g.forEachNeighbor(index.keyAt(u), this);
+    }
+
+    /**
+     * Lowers the distance of a node and queues it (or lowers its priority in the queue).
+     * @param v int - node index
+     * @param d double - the new, shorter, distance
+     * @param p int - index of the predecessor
+     */
+    void update(int v, double d, int p) {
+        setDist(v, d, p);
+        heap.push(v, d);
+        pushes++;
+    }
+
+    /**
+     * return the second state used by searches which also grow from the destination, it is created once and reused.
+     * @return SearchState - the state of the backward search
+     */
+    SearchState reverse() {
+        if (reverse == null) {
+            reverse = new SearchState();
+            reverse.timed = timed;
+        }
+        return reverse;
+    }
+
+    /**
+     * Marks the last search as bidirectional, paths and distances then go through both this state and reverse().
+     */
+    void setBidirectional() {
+        bidirectional = true;
+    }
+
+    /**
+     * @param meet int - node index, the destination of a one sided search or the meeting node of a bidirectional one
+     * @return double - the length of the shortest path found through the node, infinity if none
+     */
+    double distThrough(int meet) {
+        return bidirectional ? dist[meet] + reverse.dist[meet] : dist[meet];
+    }
+
+    /**
+     * @return NodeIndex - the index of the last search
+     */
+    NodeIndex index() {
+        return index;
+    }
+
+    /**
+     * @param i int - node index
+     * @return double - the distance found to the node, infinity if it was not reached
+     */
+    double dist(int i) {
+        return dist[i];
+    }
+
+    /**
+     * @param i int - node index
+     * @return int - the index of the predecessor on the shortest path, NONE for the source or an unreached node
+     */
+    int pred(int i) {
+        return pred[i];
+    }
+
+    /**
+     * @return int - the number of distinct nodes which were removed from the queue in the last search
+     */
+    int settledCount() {
+        return settledCount;
+    }
+
+    /**
+     * Zeroes the statistics of this state and of reverse() (heap pushes and pops, settled nodes, relaxed edges, reset time),
+     * they then add up over the searches until the next call.
+     * @param timed boolean - true to also time reset (two System.nanoTime calls per reset)
+     */
+    void startStats(boolean timed) {
+        pushes = pops = settles = relaxed = resetNanos = 0;
+        cacheHit = false;
+        this.timed = timed;
+        if (reverse != null) {
+            reverse.startStats(timed);
+        }
+    }
+
+    /**
+     * Adds the counters of a search which didn't run on this state (a WGraph_CH query) to its statistics.
+     * @param pushes long - heap pushes
+     * @param pops long - heap pops
+     * @param settles long - distinct nodes removed from the queues
+     * @param relaxed long - edges scanned from the settled nodes
+     */
+    void addStats(long pushes, long pops, long settles, long relaxed) {
+        this.pushes += pushes;
+        this.pops += pops;
+        this.settles += settles;
+        this.relaxed += relaxed;
+    }
+
+    /**
+     * Marks the query since startStats as answered by a WGraph_PathCache.
+     */
+    void cacheHit() {
+        cacheHit = true;
+    }
+
+    /**
+     * @return boolean - true if the query since startStats was answered by a WGraph_PathCache
+     */
+    boolean wasCacheHit() {
+        return cacheHit;
+    }
+
+    /**
+     * @return long - the heap pushes (insertions and decreases) since startStats, of this state and reverse()
+     */
+    long heapPushes() {
+        return pushes + (reverse == null ? 0 : reverse.pushes);
+    }
+
+    /**
+     * @return long - the heap pops since startStats, of this state and reverse()
+     */
+    long heapPops() {
+        return pops + (reverse == null ? 0 : reverse.pops);
+    }
+
+    /**
+     * @return long - the settled nodes since startStats, of this state and reverse(), a node which was popped
+     * more than once in a search is counted once (the two sides of a bidirectional search count on their own)
+     */
+    long nodesSettled() {
+        return settles + (reverse == null ? 0 : reverse.settles);
+    }
+
+    /**
+     * @return long - the edges scanned from settled nodes since startStats, of this state and reverse()
+     */
+    long edgesRelaxed() {
+        return relaxed + (reverse == null ? 0 : reverse.relaxed);
+    }
+
+    /**
+     * @return long - the nanoseconds spent in reset since startStats(true), of this state and reverse()
+     */
+    long resetNanos() {
+        return resetNanos + (reverse == null ? 0 : reverse.resetNanos);
+    }
+
+    /**
+     * Sets the distance and the predecessor of a node and remembers it for the next reset.
+     */
+    void setDist(int i, double d, int p) {
+        if (dist[i] == Double.POSITIVE_INFINITY) {
+            touched[touchedCount++] = i;
+        }
+        dist[i] = d;
+        pred[i] = p;
+    }
+
+    /**
+     * Builds the path from the source of the last search to the given node by walking the predecessors, O(path length).
+     * After a bidirectional search the path continues from the meeting node to the source of the backward search.
+     * @param dest int - index of a reached node (the meeting node of a bidirectional search)
+     * @return List<node_info> - the path src -> ... -> dest
+     */
+    List<node_info> path(int dest) {
+        int length = 0;
+        for (int i = dest; i != NONE; i = pred[i]) {
+            length++;
+        }
+        int forward = length;
+        if (bidirectional) { // the rest of the path is the chain of the backward search, from dest to its source
+            for (int i = reverse.pred[dest]; i != NONE; i = reverse.pred[i]) {
+                length++;
+            }
+        }
+        node_info[] path = new node_info[length];
+        int k = forward;
+        for (int i = dest; i != NONE; i = pred[i]) {
+            path[--k] = index.nodeAt(i);
+        }
+        k = forward;
+        if (bidirectional) {
+            for (int i = reverse.pred[dest]; i != NONE; i = reverse.pred[i]) {
+                path[k++] = index.nodeAt(i);
+            }
+        }
+        return new ArrayList<>(Arrays.asList(path));
+    }
+}
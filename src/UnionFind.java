@@ -0,0 +1,103 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * Disjoint sets of dense indices (0..n-1), union by size and path halving,
+ * so find and union run in near constant (inverse Ackermann) amortized time.
+ * Used to find the connected components of a graph: every edge unions the sets of its two nodes.
+ */
+class UnionFind {
+    private int[] parent;
+    private int[] size;
+    private int sets;
+
+    /**
+     * Constructor, every index starts in a set of its own.
+     * @param n int - number of indices
+     */
+    UnionFind(int n) {
+        this.parent = new int[n];
+        this.size = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+        Arrays.fill(size, 1);
+        this.sets = n;
+    }
+
+    /**
+     * @return int - the number of indices
+     */
+    int capacity() {
+        return parent.length;
+    }
+
+    /**
+     * Adds indices up to n-1, each in a set of its own.
+     * @param n int - the new number of indices
+     */
+    void grow(int n) {
+        int old = parent.length;
+        if (n <= old) {
+            return;
+        }
+        parent = Arrays.copyOf(parent, n);
+        size = Arrays.copyOf(size, n);
+        for (int i = old; i < n; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+        sets += n - old;
+    }
+
+    /**
+     * @param i int - index
+     * @return int - the representative of the set of i
+     */
+    int find(int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]]; // path halving
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Merges the sets of two indices.
+     * @param a int - index
+     * @param b int - index
+     * @return boolean - true if they were in different sets
+     */
+    boolean union(int a, int b) {
+        int ra = find(a);
+        int rb = find(b);
+        if (ra == rb) {
+            return false;
+        }
+        if (size[ra] < size[rb]) {
+            int t = ra;
+            ra = rb;
+            rb = t;
+        }
+        parent[rb] = ra;
+        size[ra] += size[rb];
+        sets--;
+        return true;
+    }
+
+    /**
+     * @param i int - index
+     * @return int - the size of the set of i
+     */
+    int sizeOf(int i) {
+        return size[find(i)];
+    }
+
+    /**
+     * @return int - the number of sets
+     */
+    int sets() {
+        return sets;
+    }
+}
@@ -2,21 +2,54 @@ package ex1.src;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This class contains set of algorithms which the initialized graph operates on, including:
  * 0. copy; (Deep copy of a graph).
  * 1. init(graph); (Initialize the graph to the Graph_Algo class).
- * 2. isConnected(); (Check if all nodes in graph are connected).
+ * 2. isConnected(); (Check if all nodes in graph are connected), components(); (The connected components).
  * 3. int shortestPathDist(int src, int dest); (Return the shortest path of two nodes).
  * 4. List<node_data> shortestPath(int src, int dest);(Return a list of the shortest path of two nodes).
- * 5. Save(file);
- * 6. Load(file);
+ * 5. Save(file); (Binary graph file).
+ * 6. Load(file); (Binary graph file, or a file saved with Java serialization by the older versions),
+ *    loadMapped(file); (Binary graph file, memory mapped and queried in place).
+ * The point to point queries (3, 4) run with the selected Strategy, Dijkstra by default,
+ * behind an optional WGraph_PathCache (setCache).
+ * shortestPathDists(src, targets) and distanceMatrix(sources, targets) answer one to many and many to many
+ * distance queries with one search per source, shortestPathDists(src, targets, threads) searches the whole
+ * component of src in parallel (delta-stepping).
  */
 
 public class WGraph_Algo implements weighted_graph_algorithms, Serializable {
 
+    /**
+     * The search used by shortestPathDist and shortestPath, all of them give the same distances.
+     * DIJKSTRA - one sided Dijkstra from src which stops when dest is settled.
+     * BIDIRECTIONAL - Dijkstra from both src and dest which stops when the two searches meet.
+     * ALT - A* guided by landmark distance bounds, the landmark tables are built on the first query
+     * and rebuilt on the first query after the graph changed (getMC()).
+     * CH - Contraction Hierarchy (see WGraph_CH), the slowest preprocessing and the fastest queries,
+     * it is rebuilt on the first query after the graph changed and is saved and loaded next to the graph.
+     */
+    public enum Strategy {
+        DIJKSTRA, BIDIRECTIONAL, ALT, CH
+    }
+
+    private static final String CH_SUFFIX = ".ch";
+
     private weighted_graph g;
+    private Strategy strategy = Strategy.DIJKSTRA;
+    private int landmarkCount = 8;
+    private transient volatile LandmarkTable landmarks;
+    private transient volatile WGraph_CH hierarchy;
+    private transient volatile WGraph_Components components;
+    private transient volatile DeltaStepping deltaStepping;
+    private transient volatile ForkJoinPool pool;
+    private transient volatile WGraph_PathCache cache;
+    private transient volatile WGraph_QueryListener listener;
+    private transient NodeIndex index;
+    private transient SearchState state;
 
 
     /**
@@ -27,6 +60,8 @@ public class WGraph_Algo implements weighted_graph_algorithms, Serializable {
     @Override
     public void init(weighted_graph g) {
         this.g = g;
+        this.hierarchy = null;
+        this.deltaStepping = null;
     }
 
     /**
@@ -39,6 +74,79 @@ public class WGraph_Algo implements weighted_graph_algorithms, Serializable {
         return g;
     }
 
+    /**
+     * Selects the search used by shortestPathDist and shortestPath.
+     * @param strategy Strategy - the new strategy, not null
+     */
+    public void setStrategy(Strategy strategy) {
+        this.strategy = Objects.requireNonNull(strategy);
+    }
+
+    /**
+     * returns the search used by shortestPathDist and shortestPath.
+     * @return Strategy - the current strategy
+     */
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Puts a cache in front of shortestPathDist and shortestPath, repeated pairs (and, after a source missed twice,
+     * any destination of that source) are answered without searching until the graph changes (getMC()).
+     * A cache may be shared by several WGraph_Algo objects, it only keeps the results of the last graph it served.
+     * @param cache WGraph_PathCache - the cache, null to query without one
+     */
+    public void setCache(WGraph_PathCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * returns the cache in front of shortestPathDist and shortestPath.
+     * @return WGraph_PathCache - the cache, null if there is none
+     */
+    public WGraph_PathCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the listener which gets the cost of every shortestPathDist, shortestPath and isConnected query
+     * (time, reset time, settled nodes, relaxed edges, heap pushes and pops), e.g. a WGraph_Metrics.
+     * Without a listener the queries are not timed at all.
+     * @param listener WGraph_QueryListener - the listener, null to stop reporting
+     */
+    public void setListener(WGraph_QueryListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * returns the listener which gets the cost of every query.
+     * @return WGraph_QueryListener - the listener, null if there is none
+     */
+    public WGraph_QueryListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Sets the number of landmarks the ALT strategy picks. More landmarks give tighter bounds (fewer settled nodes)
+     * for more preprocessing time and memory (4 bytes per node per landmark).
+     * @param count int - number of landmarks, at least 1
+     */
+    public void setLandmarks(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("at least one landmark is needed, got " + count);
+        }
+        this.landmarkCount = count;
+        this.landmarks = null;
+    }
+
+    /**
+     * returns the number of landmarks the ALT strategy picks.
+     * @return int - number of landmarks
+     */
+    public int getLandmarks() {
+        return landmarkCount;
+    }
+
     /**
      * Compute a deep copy of this graph.
      * @return g1 - the new deep copied graph
@@ -59,17 +167,43 @@ public class WGraph_Algo implements weighted_graph_algorithms, Serializable {
 
     @Override
     public boolean isConnected() {
+        WGraph_QueryListener l = listener;
+        if (l == null) {
+            return connected();
+        }
+        long start = System.nanoTime();
+        boolean connected = connected();
+        l.queryDone(new WGraph_QueryListener.Stats(WGraph_QueryListener.Query.IS_CONNECTED,
+                System.nanoTime() - start, 0, 0, 0, 0, 0, false));
+        return connected;
+    }
+
+    private boolean connected() {
         if (g == null || g.getV().size() <= 1) {
             return true;
         }
-        node_info node = g.getV().iterator().next();
-        DijkstraAlgo(node.getKey());
-        for (node_info n : g.getV()) {
-            if (n.getTag() == Double.MAX_VALUE) {
-                return false;
-            }
+        if (g instanceof WGraph_DS && ((WGraph_DS) g).connectivity() != null) { // kept up to date by the graph
+            return ((WGraph_DS) g).connectivity().isConnected();
         }
-        return true;
+        return components().isConnected();
+    }
+
+    /**
+     * Returns the connected components of the graph (component id of every node, sizes, largest component).
+     * The labeling is computed with union-find, without weights or a priority queue, and it is reused
+     * until the graph changes (getMC()).
+     * @return WGraph_Components - the components of the current graph, null if there is no graph
+     */
+    public WGraph_Components components() {
+        if (g == null) {
+            return null;
+        }
+        WGraph_Components c = components;
+        if (c == null || !c.isValidFor(g)) {
+            c = new WGraph_Components(nodeIndex(), g);
+            components = c;
+        }
+        return c;
     }
 
     /**
@@ -82,17 +216,38 @@ public class WGraph_Algo implements weighted_graph_algorithms, Serializable {
 
     @Override
     public double shortestPathDist(int src, int dest) {
+        WGraph_QueryListener l = listener;
+        if (l == null) {
+            return dist(src, dest);
+        }
+        SearchState s = searchState();
+        s.startStats(true);
+        long start = System.nanoTime();
+        double dist = dist(src, dest);
+        report(l, WGraph_QueryListener.Query.SHORTEST_PATH_DIST, start, s);
+        return dist;
+    }
+
+    private double dist(int src, int dest) {
         if (g == null || g.getNode(src) == null || g.getNode(dest) == null) {
             return -1;
         }
         if (src == dest) {
             return 0;
         }
-        DijkstraAlgo(src,dest);
-        if (g.getNode(dest).getTag() == Double.MAX_VALUE) {
-            return -1;
+        WGraph_PathCache c = cache;
+        if (c != null) {
+            return cached(c, src, dest, false).dist;
+        }
+        if (strategy == Strategy.CH) {
+            WGraph_CH h = hierarchy();
+            double dist = h.shortestPathDist(src, dest);
+            countQuery(h);
+            return dist;
         }
-        return g.getNode(dest).getTag();
+        SearchState s = searchState();
+        int meet = search(s, src, dest);
+        return meet == SearchState.NONE ? -1 : s.distThrough(meet);
     }
 
     /**
@@ -106,38 +261,146 @@ public class WGraph_Algo implements weighted_graph_algorithms, Serializable {
 
     @Override
     public List<node_info> shortestPath(int src, int dest) {
-        if (shortestPathDist(src, dest) == -1 || g.getV().isEmpty()) {
+        WGraph_QueryListener l = listener;
+        if (l == null) {
+            return path(src, dest);
+        }
+        SearchState s = searchState();
+        s.startStats(true);
+        long start = System.nanoTime();
+        List<node_info> path = path(src, dest);
+        report(l, WGraph_QueryListener.Query.SHORTEST_PATH, start, s);
+        return path;
+    }
+
+    private List<node_info> path(int src, int dest) {
+        if (g == null || g.getNode(src) == null || g.getNode(dest) == null) {
             return null;
         }
-        List<node_info> list = new ArrayList<>();
         if (src == dest) {
+            List<node_info> list = new ArrayList<>();
             list.add(g.getNode(src));
             return list;
         }
-        node_info srcNode = g.getNode(src);
-        node_info destNode = g.getNode(dest);
-        list.add(destNode);
-        boolean finished = false;
-        int nextNodeIndex = 0;
-        while (!finished) { // while loop, adds shortest path from dest to src
-            node_info node = list.get(nextNodeIndex);
-            for (node_info n : g.getV(node.getKey())) {
-                if (n.getKey() == srcNode.getKey()) {
-                    list.add(n);
-                    finished = true;
-                } else if (Integer.parseInt(node.getInfo()) == n.getKey() && !list.contains(n)) {
-                    list.add(n);
-                    nextNodeIndex++;
-                }
+        WGraph_PathCache c = cache;
+        if (c != null) {
+            return cached(c, src, dest, true).list();
+        }
+        if (strategy == Strategy.CH) {
+            WGraph_CH h = hierarchy();
+            List<node_info> path = h.shortestPath(src, dest);
+            countQuery(h);
+            return path;
+        }
+        SearchState s = searchState();
+        int meet = search(s, src, dest);
+        return meet == SearchState.NONE ? null : s.path(meet);
+    }
+
+    /**
+     * Returns the shortest path distances from one node to many, with a single Dijkstra search
+     * which stops once all the targets are settled.
+     * @param src - start node
+     * @param targets - end (target) nodes
+     * @return double[] - the distance to every target (in the order of targets), -1 if there is no path
+     */
+    public double[] shortestPathDists(int src, int[] targets) {
+        double[] row = new double[targets.length];
+        if (g == null) {
+            Arrays.fill(row, -1);
+            return row;
+        }
+        NodeIndex index = nodeIndex();
+        DistanceTable.row(g, index, searchState(), index.indexOf(src), DistanceTable.indicesOf(index, targets), row);
+        return row;
+    }
+
+    /**
+     * Returns the shortest path distances from one node to many with a parallel delta-stepping search
+     * (see DeltaStepping) of the whole component of src, for full single source trees on large graphs.
+     * It runs on the common fork-join pool if threads is its parallelism, else on a pool of this object
+     * which is kept for the next calls with the same number of threads. A call with another number of threads
+     * shuts the kept pool down and replaces it, callers which search concurrently with different numbers of threads
+     * should pass their own pools instead (see shortestPathDists(int, int[], ForkJoinPool)).
+     * @param src - start node
+     * @param targets - end (target) nodes
+     * @param threads - the number of threads which run the search, at least 1
+     * @return double[] - the distance to every target (in the order of targets), -1 if there is no path
+     */
+    public double[] shortestPathDists(int src, int[] targets, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1, got " + threads);
+        }
+        if (threads == ForkJoinPool.getCommonPoolParallelism()) {
+            return shortestPathDists(src, targets, ForkJoinPool.commonPool());
+        }
+        ForkJoinPool p = pool;
+        if (p == null || p.getParallelism() != threads) {
+            if (p != null) {
+                p.shutdown();
             }
+            p = new ForkJoinPool(threads);
+            pool = p;
+        }
+        return shortestPathDists(src, targets, p);
+    }
+
+    /**
+     * Returns the shortest path distances from one node to many with a parallel delta-stepping search
+     * (see DeltaStepping) of the whole component of src, on the given pool.
+     * The distances are the ones Dijkstra gives, up to the rounding of paths of equal length.
+     * The graph is copied into the arrays of the search on the first call and again after it changed (getMC()),
+     * the calls in between search the same copy. The graph must not be changed until it returns.
+     * @param src - start node
+     * @param targets - end (target) nodes
+     * @param pool - the pool which runs the search
+     * @return double[] - the distance to every target (in the order of targets), -1 if there is no path
+     */
+    public double[] shortestPathDists(int src, int[] targets, ForkJoinPool pool) {
+        double[] row = new double[targets.length];
+        if (g == null || g.getNode(src) == null) {
+            Arrays.fill(row, -1);
+            return row;
+        }
+        DeltaStepping d = deltaStepping;
+        if (d == null || !d.isValidFor(g)) {
+            d = new DeltaStepping(g, nodeIndex(), 0, pool);
+            deltaStepping = d;
+        }
+        NodeIndex index = d.index();
+        double[] dist = d.search(index.indexOf(src), pool);
+        for (int i = 0; i < targets.length; i++) {
+            int t = index.indexOf(targets[i]);
+            row[i] = t == SearchState.NONE || dist[t] == Double.POSITIVE_INFINITY ? -1 : dist[t];
         }
-        Collections.reverse(list);
-        return list;
+        return row;
     }
 
     /**
-     * Saves this weighted (undirected) graph as a stream of bits to the given
-     * file name
+     * Returns the shortest path distances between every source and every target, one search per source
+     * (see shortestPathDists), the sources run in parallel on the common fork-join pool.
+     * The graph must not be changed until it returns.
+     * @param sources - start nodes
+     * @param targets - end (target) nodes
+     * @return double[][] - matrix[i][j] is the distance from sources[i] to targets[j], -1 if there is no path
+     */
+    public double[][] distanceMatrix(int[] sources, int[] targets) {
+        if (g == null) {
+            double[][] matrix = new double[sources.length][targets.length];
+            for (double[] row : matrix) {
+                Arrays.fill(row, -1);
+            }
+            return matrix;
+        }
+        NodeIndex index = nodeIndex();
+        return DistanceTable.matrix(g, index, DistanceTable.indicesOf(index, sources),
+                DistanceTable.indicesOf(index, targets), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Saves this weighted (undirected) graph to the given file name in the binary graph format (see GraphFile):
+     * a header, the node keys and tags, the edges in compressed sparse row form and the node infos.
+     * No graph saves an empty graph. A valid Contraction Hierarchy of the graph is saved next to it (file + ".ch").
      * @param file - the file name (may include a relative path).
      * @return true - iff the file was successfully saved
      */
@@ -148,14 +411,16 @@ public class WGraph_Algo implements weighted_graph_algorithms, Serializable {
             return false;
         }
         try {
-            FileOutputStream fout = new FileOutputStream(file);
-            ObjectOutputStream obj = new ObjectOutputStream(fout);
-            obj.writeObject(g);
-            obj.close();
-            fout.close();
+            GraphFile.write(g == null ? new WGraph_DS() : g, file);
         } catch (IOException e) {
             return false;
         }
+        WGraph_CH h = hierarchy;
+        if (h != null && h.isValidFor(g)) {
+            h.save(file + CH_SUFFIX);
+        } else {
+            new File(file + CH_SUFFIX).delete(); // don't leave the hierarchy of an older graph next to this one
+        }
         return true;
     }
 
@@ -164,6 +429,10 @@ public class WGraph_Algo implements weighted_graph_algorithms, Serializable {
      * if the file was successfully loaded - the underlying graph
      * of this class will be changed (to the loaded one), in case the
      * graph was not loaded the original graph should remain "as is".
+     * The binary graph format is loaded into a WGraph_DS, files saved by the older versions
+     * (Java serialization, they start with 0xACED) are still loaded, a WGraph_DS saved by the HashMap version
+     * is read into the current WGraph_DS (see WGraph_DS.readObject).
+     * A hierarchy saved next to the file is loaded too if it matches the loaded graph.
      * @param file - file name
      * @return true - if the graph was successfully loaded else false.
      */
@@ -174,109 +443,218 @@ public class WGraph_Algo implements weighted_graph_algorithms, Serializable {
             return false;
         }
         try {
-            FileInputStream fin = new FileInputStream(file);
-            ObjectInputStream obj = new ObjectInputStream(fin);
-            g = (weighted_graph) obj.readObject();
-            obj.close();
-            fin.close();
-        } catch (IOException | ClassNotFoundException e) {
+            byte[] head = GraphFile.head(file, 4);
+            if (GraphFile.isGraphFile(head)) {
+                g = GraphFile.read(file);
+            } else if (GraphFile.isSerialized(head)) {
+                g = loadSerialized(file);
+            } else {
+                return false;
+            }
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
             return false;
         }
+        loadHierarchy(file);
         return true;
     }
 
     /**
-     * Dijkstra method.
-     * Dijkstra is a algorithm used to go over all the nodes in the graph by lowest weight connected.
-     * In this method, it iterates over the nodes with the lowest weight in the graph and marks them with 'tag'.
-     * The tag is then used to count how much far is every node in the graph.
-     * This method should run in a O(n+v * log(v)) time complexity (n = number of nodes in the graph, v = number of edges in the graph).
-     * @param node1 int - arbitrary node to perform the BTS algorithm.
+     * Opens a graph file saved by save as a WGraph_Mapped: the file is memory mapped and queried in place,
+     * so opening it takes about the same time for any graph size and nothing but the header is read,
+     * the pages of the file are loaded on first use and shared with other processes which map the same file.
+     * The loaded graph can't be changed. If the file was not opened the graph remains "as is".
+     * A hierarchy saved next to the file is loaded too if it matches the graph.
+     * @param file - file name
+     * @return true - if the graph was successfully opened else false.
+     */
+    public boolean loadMapped(String file) {
+        if (file == null) {
+            return false;
+        }
+        try {
+            g = new WGraph_Mapped(file);
+        } catch (IOException e) {
+            return false;
+        }
+        loadHierarchy(file);
+        return true;
+    }
+
+    /**
+     * Loads the hierarchy saved next to the given graph file, it is kept only if it matches the loaded graph.
+     * @param file - the graph file name
      */
+    private void loadHierarchy(String file) {
+        WGraph_CH h = new File(file + CH_SUFFIX).isFile() ? WGraph_CH.load(file + CH_SUFFIX) : null;
+        hierarchy = h != null && h.attach(g) ? h : null;
+    }
 
-    private void DijkstraAlgo(int node1) {
-        for (node_info n : g.getV()) {
-            n.setTag(Double.MAX_VALUE);
-            n.setInfo("");
+    /**
+     * Loads a graph which was saved as a stream of bits (Java serialization) by the older versions of save.
+     * @param file - file name
+     * @return weighted_graph - the loaded graph
+     */
+    private static weighted_graph loadSerialized(String file) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream obj = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return (weighted_graph) obj.readObject();
         }
-        g.getNode(node1).setTag(0);
-        node_info nodeOne = g.getNode(node1);
-        Queue<node_info> q = new PriorityQueue<>(new WeightComparator());
-        q.add(nodeOne);
-        while (!q.isEmpty()) {
-            node_info node = q.peek();
-            for (node_info n : g.getV(node.getKey())) {
-                if (n.getTag() > node.getTag() && !q.contains(n)) {
-                    q.add(n);
-                }
-                double edge = g.getEdge(node.getKey(), n.getKey());
-                if (node.getTag() + edge < n.getTag()) {
-                    n.setTag(node.getTag() + edge);
-                    n.setInfo("" + node.getKey());
-                }
+    }
+
+    /**
+     * Moves the counters of the hierarchy query this thread just ran to its search state, if there is a listener.
+     * @param h WGraph_CH - the hierarchy which answered the query
+     */
+    private void countQuery(WGraph_CH h) {
+        if (listener != null) {
+            h.addStatsTo(searchState());
+        }
+    }
+
+    /**
+     * Tells the listener the cost of a query.
+     * @param l WGraph_QueryListener - the listener
+     * @param query Query - the query
+     * @param start long - System.nanoTime() when the query started
+     * @param s SearchState - the state of the query, its statistics were started with the query
+     */
+    private static void report(WGraph_QueryListener l, WGraph_QueryListener.Query query, long start, SearchState s) {
+        long elapsed = System.nanoTime() - start;
+        WGraph_QueryListener.Stats stats = new WGraph_QueryListener.Stats(query, elapsed, s.resetNanos(),
+                s.nodesSettled(), s.edgesRelaxed(), s.heapPushes(), s.heapPops(), s.wasCacheHit());
+        s.startStats(false); // stops timing the resets, in case the listener is removed
+        l.queryDone(stats);
+    }
+
+    /**
+     * Answers a query from the cache, on a miss searches with the selected strategy and caches the result.
+     * The second miss of a source runs one full Dijkstra from it instead and caches its whole tree.
+     * @param c WGraph_PathCache - the cache
+     * @param src - source node (in the graph, not dest)
+     * @param dest - destination node (in the graph)
+     * @param withPath - true if the nodes of the path are needed, not only the distance
+     * @return WGraph_PathCache.Path - the result in the direction src -> dest
+     */
+    private WGraph_PathCache.Path cached(WGraph_PathCache c, int src, int dest, boolean withPath) {
+        WGraph_PathCache.Path p = c.lookup(g, src, dest, withPath);
+        if (p != null) {
+            if (listener != null) {
+                searchState().cacheHit();
             }
-            q.remove();
+            return p;
         }
+        int mc = g.getMC();
+        if (c.wantsTree(src)) {
+            SearchState s = searchState();
+            NodeIndex index = nodeIndex();
+            s.reset(index);
+            s.dijkstra(g, index.indexOf(src), SearchState.NONE);
+            WGraph_PathCache.SourceTree tree = new WGraph_PathCache.SourceTree(src, s);
+            c.put(g, mc, tree);
+            p = tree.path(dest, withPath);
+        } else if (strategy == Strategy.CH) {
+            WGraph_CH h = hierarchy();
+            double dist = h.shortestPathDist(src, dest);
+            countQuery(h);
+            List<node_info> path = null;
+            if (withPath && dist >= 0) {
+                path = h.shortestPath(src, dest);
+                countQuery(h);
+            }
+            p = WGraph_PathCache.Path.of(src, dest, dist, path);
+        } else {
+            SearchState s = searchState();
+            int meet = search(s, src, dest);
+            if (meet == SearchState.NONE) {
+                p = new WGraph_PathCache.Path(src, dest, -1, null);
+            } else {
+                p = WGraph_PathCache.Path.of(src, dest, s.distThrough(meet), withPath ? s.path(meet) : null);
+            }
+        }
+        c.put(g, mc, p);
+        return p;
     }
 
     /**
-     * Same as the first DijkstraAlgo method but stops when it encounters the dest node.
-     * Instead of running all over the graph, it stops on the dest node.
-     * Because we use priority queue it must be the shortest path.
+     * Point to point search, stops as soon as the shortest path to dest is known.
+     * The search itself depends on the selected strategy.
+     * @param state - the search state to use
      * @param src - source node to start the algorithm
-     * @param dest - destination node which stops the algorithm
-     */
-    private void DijkstraAlgo(int src, int dest) {
-        for (node_info n : g.getV()) {
-            n.setTag(Double.MAX_VALUE);
-            n.setInfo("");
-        }
-        g.getNode(src).setTag(0);
-        node_info nodeOne = g.getNode(src);
-        node_info nodeTwo = g.getNode(dest);
-        Queue<node_info> q = new PriorityQueue<>(new WeightComparator());
-        q.add(nodeOne);
-        while (!q.isEmpty()) {
-            node_info node = q.peek();
-            for (node_info n : g.getV(node.getKey())) {
-                if (node.getTag() < n.getTag() && !q.contains(n)) {
-                    q.add(n);
-                }
-                double edge = g.getEdge(node.getKey(), n.getKey());
-                if (node.getTag() + edge < n.getTag()) {
-                    n.setTag(node.getTag() + edge);
-                    n.setInfo("" + node.getKey());
-                }
-                if(q.peek() == nodeTwo){
-                    return;
+     * @param dest - destination node
+     * @return int - index of the node the shortest path goes through (for state.distThrough and state.path),
+     * SearchState.NONE if there is no path
+     */
+    private int search(SearchState state, int src, int dest) {
+        NodeIndex index = nodeIndex();
+        state.reset(index);
+        int s = index.indexOf(src);
+        int t = index.indexOf(dest);
+        switch (strategy) {
+            case BIDIRECTIONAL:
+                return BidirectionalDijkstra.search(g, state, s, t);
+            case ALT:
+                state.astar(g, s, t, landmarkTable(index));
+                return state.dist(t) == Double.POSITIVE_INFINITY ? SearchState.NONE : t;
+            default:
+                state.dijkstra(g, s, t);
+                return state.dist(t) == Double.POSITIVE_INFINITY ? SearchState.NONE : t;
+        }
+    }
+
+    /**
+     * return the landmark table of the given index, it is built once per index (i.e. per Mode Count of the graph),
+     * only one thread builds it when queries run concurrently.
+     * @param index NodeIndex - the current index of the graph
+     * @return LandmarkTable - the table of the index
+     */
+    private LandmarkTable landmarkTable(NodeIndex index) {
+        LandmarkTable table = landmarks;
+        if (table == null || !table.isValidFor(index)) {
+            synchronized (this) {
+                table = landmarks;
+                if (table == null || !table.isValidFor(index)) {
+                    table = new LandmarkTable(g, index, landmarkCount);
+                    landmarks = table;
                 }
             }
-            q.remove();
         }
+        return table;
     }
 
     /**
-     * Comparator class with one method
+     * return the Contraction Hierarchy of the graph, it is built on the first CH query and after the graph changed.
+     * @return WGraph_CH - a hierarchy which is valid for the graph
      */
-    private static class WeightComparator implements Comparator<node_info> {
+    private WGraph_CH hierarchy() {
+        WGraph_CH h = hierarchy;
+        if (h == null || !h.isValidFor(g)) {
+            synchronized (this) {
+                h = hierarchy;
+                if (h == null || !h.isValidFor(g)) {
+                    h = new WGraph_CH(g);
+                    hierarchy = h;
+                }
+            }
+        }
+        return h;
+    }
 
-        /**
-         * Overrides compare method by tag (weight), if node1 > node2 return 1, if node1 < node2 return -1, else return 0.
-         * used in the priorityQueue
-         * @param node1 - node1 to compare
-         * @param node2 - node2 to compare
-         * @return - int if node1 > node2 return 1, if node1 < node2 return -1, else return 0.
-         */
+    /**
+     * return the dense node index of the graph, it is rebuilt only after the graph was changed.
+     * @return NodeIndex - a valid index of the graph
+     */
+    NodeIndex nodeIndex() {
+        index = NodeIndex.of(g, index);
+        return index;
+    }
 
-        @Override
-        public int compare(node_info node1, node_info node2) {
-            if (node1.getTag() > node2.getTag()) {
-                return 1;
-            } else if (node1.getTag() < node2.getTag()) {
-                return -1;
-            }
-            return 0;
+    /**
+     * return the search state the next query should use, this class reuses a single state.
+     * @return SearchState - a state which no other query is using
+     */
+    SearchState searchState() {
+        if (state == null) {
+            state = new SearchState();
         }
+        return state;
     }
 }
-
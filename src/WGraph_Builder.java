@@ -0,0 +1,172 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * This class builds a WGraph_DS from bulk node and edge arrays in one pass, instead of one addNode/connect at a time.
+ * The builder only records: a node gets a dense index and an edge is appended to three primitive arrays
+ * (source index, destination index, weight), all pre-sized by the expected counts.
+ * build() groups the edges by node with a counting sort and fills every neighbor map at its final size,
+ * so no map is resized and no node is looked up while the edges are inserted.
+ * The result is the graph the same sequence of addNode/connect calls gives, Mode Count included:
+ * connect only accepts an edge between two nodes which were added before it, with w >= 0 and without self loops,
+ * and a repeated edge (in either direction) takes the weight of its last call.
+ */
+public class WGraph_Builder {
+    private final IntIntMap indices; // node key -> index
+    private int[] keys;
+    private int nodes;
+    private int[] src, dst;
+    private double[] weight;
+    private int edges;
+
+    /**
+     * Default constructor
+     */
+    public WGraph_Builder() {
+        this(16, 16);
+    }
+
+    /**
+     * Constructor, pre-sizes the storage so the given number of nodes and edges fit without resizing.
+     * @param expectedNodes int - expected number of nodes
+     * @param expectedEdges int - expected number of connect calls (repeated edges included)
+     */
+    public WGraph_Builder(int expectedNodes, int expectedEdges) {
+        if (expectedNodes < 0 || expectedEdges < 0) {
+            throw new IllegalArgumentException("negative expected size: " + expectedNodes + " nodes, " + expectedEdges + " edges");
+        }
+        this.indices = new IntIntMap(expectedNodes);
+        this.keys = new int[Math.max(1, expectedNodes)];
+        this.src = new int[Math.max(1, expectedEdges)];
+        this.dst = new int[src.length];
+        this.weight = new double[src.length];
+    }
+
+    /**
+     * Adds a node, like weighted_graph.addNode a key which was already added is ignored.
+     * @param key int - the node key
+     */
+    public void addNode(int key) {
+        if (indices.get(key) >= 0) {
+            return;
+        }
+        if (nodes == keys.length) {
+            keys = Arrays.copyOf(keys, nodes * 2);
+        }
+        indices.put(key, nodes);
+        keys[nodes++] = key;
+    }
+
+    /**
+     * Adds the nodes of the given keys, in their order.
+     * @param keys int[] - node keys
+     */
+    public void addNodes(int[] keys) {
+        for (int key : keys) {
+            addNode(key);
+        }
+    }
+
+    /**
+     * Connects two nodes, like weighted_graph.connect it does nothing if one of the nodes was not added yet,
+     * if w < 0 or if node1 == node2.
+     * @param node1 int - node key
+     * @param node2 int - node key
+     * @param w double - the weight of the edge
+     */
+    public void connect(int node1, int node2, double w) {
+        if (!(w >= 0) || node1 == node2) {
+            return;
+        }
+        int a = indices.get(node1);
+        int b = indices.get(node2);
+        if (a < 0 || b < 0) {
+            return;
+        }
+        if (edges == src.length) {
+            int capacity = edges * 2;
+            src = Arrays.copyOf(src, capacity);
+            dst = Arrays.copyOf(dst, capacity);
+            weight = Arrays.copyOf(weight, capacity);
+        }
+        src[edges] = a;
+        dst[edges] = b;
+        weight[edges++] = w;
+    }
+
+    /**
+     * Connects the edges src[i]-dst[i] with weight w[i], in the order of i, see connect.
+     * @param src int[] - node keys
+     * @param dst int[] - node keys
+     * @param w double[] - weights
+     */
+    public void connect(int[] src, int[] dst, double[] w) {
+        if (src.length != dst.length || src.length != w.length) {
+            throw new IllegalArgumentException("the edge arrays have different lengths: "
+                    + src.length + ", " + dst.length + ", " + w.length);
+        }
+        for (int i = 0; i < src.length; i++) {
+            connect(src[i], dst[i], w[i]);
+        }
+    }
+
+    /**
+     * @return int - the number of nodes added so far
+     */
+    public int nodeSize() {
+        return nodes;
+    }
+
+    /**
+     * Builds the graph, O(n+e). The builder keeps its nodes and edges, so it can go on and build again.
+     * @return WGraph_DS - a new graph with the nodes in the order they were added
+     */
+    public WGraph_DS build() {
+        int[] offsets = new int[nodes + 1];
+        for (int e = 0; e < edges; e++) {
+            offsets[src[e] + 1]++;
+            offsets[dst[e] + 1]++;
+        }
+        for (int i = 0; i < nodes; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] next = Arrays.copyOf(offsets, nodes);
+        int[] neighbor = new int[2 * edges]; // both directions of the edges grouped by node, in call order
+        double[] w = new double[2 * edges];
+        for (int e = 0; e < edges; e++) {
+            int p = next[src[e]]++;
+            neighbor[p] = dst[e];
+            w[p] = weight[e];
+            p = next[dst[e]]++;
+            neighbor[p] = src[e];
+            w[p] = weight[e];
+        }
+        WGraph_DS g = new WGraph_DS(nodes);
+        for (int i = 0; i < nodes; i++) {
+            g.addNode(keys[i]);
+        }
+        long changes = nodes; // Mode Count: one per node, new edge and changed weight
+        int edgeSize = 0;
+        for (int i = 0; i < nodes; i++) {
+            if (offsets[i] == offsets[i + 1]) {
+                continue;
+            }
+            IntDoubleMap neighbors = new IntDoubleMap(offsets[i + 1] - offsets[i]);
+            for (int p = offsets[i]; p < offsets[i + 1]; p++) {
+                double old = neighbors.put(keys[neighbor[p]], w[p]);
+                if (i < neighbor[p]) { // every edge is counted from its smaller index only
+                    if (Double.isNaN(old)) {
+                        edgeSize++;
+                        changes++;
+                    } else if (old != w[p]) {
+                        changes++;
+                    }
+                }
+            }
+            g.restoreAdjacency(keys[i], neighbors);
+        }
+        g.restoreCounts(edgeSize, (int) changes);
+        return g;
+    }
+}
@@ -0,0 +1,615 @@
+package ex1.src;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents a Contraction Hierarchy of a weighted graph, a preprocessing which answers
+ * shortest path queries while settling only a few hundred nodes even on very large graphs.
+ * Preprocessing: the nodes are contracted one by one in order of importance (least important first).
+ * Contracting a node v removes it from the remaining graph, and for every two neighbors u, w of v
+ * a shortcut edge u-w with weight d(u,v) + d(v,w) is added unless a local witness search finds
+ * a path u..w which is not longer and does not go through v.
+ * The rank of a node is its position in the contraction order, and the edges (original and shortcuts) are kept
+ * in an "upward" graph: every edge is stored at its lower ranked end.
+ * Query: a bidirectional Dijkstra where both sides only go up in rank, the shortest path goes up from src
+ * and up from dest to the highest ranked node on it. Shortcuts are then unpacked into the original nodes.
+ * A hierarchy belongs to one version (Mode Count) of the graph, see isValidFor. It is Serializable and can be
+ * saved next to the graph with save/load so the preprocessing is not repeated on every restart, it keeps a checksum
+ * of the nodes, edges and weights of its graph so attach rejects a hierarchy of any other graph.
+ */
+public class WGraph_CH implements Serializable {
+    private static final long serialVersionUID = -2820786124796706076L;
+    private static final int SIMULATE_SETTLE_LIMIT = 16;  // witness search limits, a witness which is not found
+    private static final int CONTRACT_SETTLE_LIMIT = 64;  // only costs an unneeded shortcut
+    private static final int NONE = -1;
+
+    private final int mc, edgeSize;
+    private final int[] keys;       // index -> key
+    private final int[] rank;       // index -> contraction order
+    private final int[] upOffsets;  // upward graph in CSR form, by index
+    private final int[] upTarget;
+    private final double[] upWeight;
+    private final int[] upMiddle;   // contracted node of a shortcut, NONE for an original edge
+    private final int shortcuts;
+    private final long checksum;    // of the keys, edges and weights, see checksum(g)
+    private transient weighted_graph g;
+    private transient IntIntMap indices; // key -> index, built by the constructor and by readObject
+    private transient ThreadLocal<Query> queries;
+
+    /**
+     * Constructor, builds the hierarchy of the given graph.
+     * @param g weighted_graph - the graph, it should not be changed afterwards (see isValidFor)
+     */
+    public WGraph_CH(weighted_graph g) {
+        this.g = g;
+        this.mc = g.getMC();
+        this.edgeSize = g.edgeSize();
+        NodeIndex index = new NodeIndex(g);
+        int n = index.size();
+        this.keys = new int[n];
+        IntDoubleMap[] adj = new IntDoubleMap[n];
+        IntIntMap[] mid = new IntIntMap[n];
+        for (int i = 0; i < n; i++) { // the remaining graph, by index
+            keys[i] = index.keyAt(i);
+            copyNeighbors(g, index, i, adj);
+            mid[i] = new IntIntMap();
+        }
+        this.rank = new int[n];
+        Contraction c = new Contraction(adj, mid);
+        int[][] up = c.run(rank);
+        this.upOffsets = up[0];
+        this.upTarget = up[1];
+        this.upMiddle = up[2];
+        this.upWeight = c.upWeights;
+        this.shortcuts = c.shortcuts;
+        this.checksum = checksum(g);
+        this.indices = indices(keys);
+    }
+
+    /**
+     * Copies the neighbors of node i into a primitive map (neighbor index -> weight).
+     */
+    private static void copyNeighbors(weighted_graph g, NodeIndex index, int i, IntDoubleMap[] adj) {
+        int key = index.keyAt(i);
+        IntDoubleMap row = new IntDoubleMap(g.getV(key).size());
+        g.forEachNeighbor(key, (n, w) -> row.put(index.indexOf(n), w));
+        adj[i] = row;
+    }
+
+    /**
+     * Attaches this hierarchy to a graph (e.g. after it was loaded from a file), the paths are built
+     * from the nodes of the attached graph. Besides isValidFor, the keys, the edges and the weights of the graph
+     * must match the ones the hierarchy was built from (by checksum, O(n+v)), so a hierarchy of another graph
+     * with the same counts is not attached.
+     * @param g weighted_graph - the graph the hierarchy was built for
+     * @return boolean - true if the hierarchy matches the graph and was attached, false otherwise
+     */
+    public boolean attach(weighted_graph g) {
+        if (!isValidFor(g) || checksum(g) != checksum) {
+            return false;
+        }
+        this.g = g;
+        return true;
+    }
+
+    /**
+     * return true if this hierarchy was built for the given graph in its current version:
+     * the same Mode Count, number of nodes and number of edges. This is the O(1) check of every query,
+     * a graph which was not the one the hierarchy was built from is checked by attach.
+     * @param g weighted_graph - a graph
+     * @return boolean - true if the hierarchy can answer queries on the graph
+     */
+    public boolean isValidFor(weighted_graph g) {
+        return g != null && g.getMC() == mc && g.nodeSize() == keys.length && g.edgeSize() == edgeSize;
+    }
+
+    /**
+     * @return int - the number of shortcut edges the preprocessing added
+     */
+    public int shortcutCount() {
+        return shortcuts;
+    }
+
+    /**
+     * returns the length of the shortest path between src to dest
+     * Note: if no such path --> returns -1
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return double - the sum of all the weights in the shortest path found
+     */
+    public double shortestPathDist(int src, int dest) {
+        int s = indexOf(src);
+        int t = indexOf(dest);
+        if (s < 0 || t < 0) {
+            return -1;
+        }
+        Query q = query();
+        int meet = q.run(s, t);
+        return meet == NONE ? -1 : q.fwd.dist[meet] + q.bwd.dist[meet];
+    }
+
+    /**
+     * returns the the shortest path between src to dest - as an ordered List of nodes of the attached graph:
+     * src--> n1-->n2-->...dest, shortcuts are unpacked into the nodes they stand for.
+     * Note if no such path --> returns null;
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return List<node_info> - the ordered list with the shortest path.
+     */
+    public List<node_info> shortestPath(int src, int dest) {
+        int s = indexOf(src);
+        int t = indexOf(dest);
+        if (s < 0 || t < 0) {
+            return null;
+        }
+        Query q = query();
+        int meet = q.run(s, t);
+        if (meet == NONE) {
+            return null;
+        }
+        IntList up = new IntList();   // edges from src up to meet, reversed
+        for (int i = meet; q.fwd.pred[i] != NONE; i = q.fwd.pred[i]) {
+            up.add(q.fwd.pred[i]);
+            up.add(i);
+        }
+        List<node_info> path = new ArrayList<>();
+        path.add(g.getNode(keys[s]));
+        IntList nodes = new IntList();
+        for (int k = up.size - 2; k >= 0; k -= 2) {
+            unpack(up.data[k], up.data[k + 1], nodes);
+        }
+        for (int i = meet; q.bwd.pred[i] != NONE; i = q.bwd.pred[i]) { // meet down to dest
+            unpack(i, q.bwd.pred[i], nodes);
+        }
+        for (int k = 0; k < nodes.size; k++) {
+            path.add(g.getNode(keys[nodes.data[k]]));
+        }
+        return path;
+    }
+
+    /**
+     * Saves this hierarchy to the given file name (Java serialization).
+     * @param file - the file name (may include a relative path).
+     * @return true - iff the file was successfully saved
+     */
+    public boolean save(String file) {
+        if (file == null) {
+            return false;
+        }
+        try (ObjectOutputStream obj = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            obj.writeObject(this);
+        } catch (IOException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Loads a hierarchy which was saved with save, it must be attached to its graph before paths are asked for.
+     * @param file - file name
+     * @return WGraph_CH - the loaded hierarchy, null if it could not be loaded.
+     */
+    public static WGraph_CH load(String file) {
+        if (file == null) {
+            return null;
+        }
+        try (ObjectInputStream obj = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return (WGraph_CH) obj.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    private int indexOf(int key) {
+        return indices.get(key);
+    }
+
+    private static IntIntMap indices(int[] keys) {
+        IntIntMap map = new IntIntMap(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        return map;
+    }
+
+    /**
+     * return an order independent checksum of the keys, the edges and the weights of a graph:
+     * the sum of a 64 bit mix of every node key and of every half-edge (key, neighbor, weight bits).
+     */
+    private static long checksum(weighted_graph g) {
+        long[] sum = new long[1];
+        for (node_info node : g.getV()) {
+            int key = node.getKey();
+            sum[0] += mix(key);
+            g.forEachNeighbor(key, (n, w) ->
+                    sum[0] += mix(((long) key << 32 | (n & 0xFFFFFFFFL)) ^ mix(Double.doubleToLongBits(w))));
+        }
+        return sum[0];
+    }
+
+    /**
+     * The finalizer of MurmurHash3, spreads every bit of x over the result.
+     */
+    private static long mix(long x) {
+        x = (x ^ (x >>> 33)) * 0xFF51AFD7ED558CCDL;
+        x = (x ^ (x >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return x ^ (x >>> 33);
+    }
+
+    /**
+     * The key -> index map is not saved, it is rebuilt before the hierarchy is handed out
+     * (so the threads which share a hierarchy only read it).
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        indices = indices(keys);
+    }
+
+    /**
+     * Adds the counters of the last upward search this thread ran (heap pushes and pops, edges scanned
+     * from the settled nodes) to a search state, for WGraph_QueryListener, and zeroes them.
+     * @param s SearchState - the search state of the query which used the hierarchy
+     */
+    void addStatsTo(SearchState s) {
+        Query q = query();
+        s.addStats(q.pushes, q.pops, q.pops, q.relaxed); // an upward search never queues a node it settled again
+        q.pushes = q.pops = q.relaxed = 0;
+    }
+
+    private Query query() {
+        ThreadLocal<Query> local = queries;
+        if (local == null) {
+            synchronized (this) {
+                if (queries == null) {
+                    queries = ThreadLocal.withInitial(Query::new);
+                }
+                local = queries;
+            }
+        }
+        return local.get();
+    }
+
+    /**
+     * return the position of the edge a-b in the upward graph (it is stored at the lower ranked end).
+     */
+    private int edgePos(int a, int b) {
+        int low = rank[a] < rank[b] ? a : b;
+        int high = low == a ? b : a;
+        for (int p = upOffsets[low]; p < upOffsets[low + 1]; p++) {
+            if (upTarget[p] == high) {
+                return p;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Appends the nodes of the edge a-b after a (b included) to out, shortcuts are unpacked with an explicit stack.
+     */
+    private void unpack(int a, int b, IntList out) {
+        IntList stack = new IntList();
+        stack.add(b);
+        stack.add(a);
+        while (stack.size > 0) {
+            int from = stack.data[--stack.size];
+            int to = stack.data[--stack.size];
+            int m = upMiddle[edgePos(from, to)];
+            if (m == NONE) {
+                out.add(to);
+            } else { // from..m is unpacked first, then m..to
+                stack.add(to);
+                stack.add(m);
+                stack.add(m);
+                stack.add(from);
+            }
+        }
+    }
+
+    /**
+     * The bidirectional upward query, one per thread and reused.
+     */
+    private class Query {
+        final Side fwd = new Side();
+        final Side bwd = new Side();
+        long pushes, pops, relaxed; // of the last search, both sides
+
+        /**
+         * @return int - the highest node of the shortest path, NONE if there is none
+         */
+        int run(int s, int t) {
+            fwd.reset();
+            bwd.reset();
+            fwd.set(s, 0, NONE);
+            fwd.heap.push(s, 0);
+            bwd.set(t, 0, NONE);
+            bwd.heap.push(t, 0);
+            pushes = 2;
+            pops = relaxed = 0;
+            double best = Double.POSITIVE_INFINITY;
+            int meet = NONE;
+            while (true) {
+                boolean f = !fwd.heap.isEmpty() && fwd.heap.peekPriority() < best;
+                boolean b = !bwd.heap.isEmpty() && bwd.heap.peekPriority() < best;
+                if (!f && !b) {
+                    return meet;
+                }
+                Side side = f && (!b || fwd.heap.peekPriority() <= bwd.heap.peekPriority()) ? fwd : bwd;
+                Side other = side == fwd ? bwd : fwd;
+                int u = side.heap.pop();
+                pops++;
+                relaxed += upOffsets[u + 1] - upOffsets[u];
+                double du = side.dist[u];
+                if (du + other.dist[u] < best) {
+                    best = du + other.dist[u];
+                    meet = u;
+                }
+                for (int p = upOffsets[u]; p < upOffsets[u + 1]; p++) {
+                    int v = upTarget[p];
+                    double d = du + upWeight[p];
+                    if (d < side.dist[v]) {
+                        side.set(v, d, u);
+                        side.heap.push(v, d);
+                        pushes++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * One side of the query: distances, predecessors and queue by index, reset in O(touched).
+     */
+    private class Side {
+        final double[] dist = new double[keys.length];
+        final int[] pred = new int[keys.length];
+        final IndexedMinHeap heap = new IndexedMinHeap(keys.length);
+        final IntList touched = new IntList();
+
+        Side() {
+            Arrays.fill(dist, Double.POSITIVE_INFINITY);
+            Arrays.fill(pred, NONE);
+        }
+
+        void set(int v, double d, int p) {
+            if (dist[v] == Double.POSITIVE_INFINITY) {
+                touched.add(v);
+            }
+            dist[v] = d;
+            pred[v] = p;
+        }
+
+        void reset() {
+            for (int k = 0; k < touched.size; k++) {
+                dist[touched.data[k]] = Double.POSITIVE_INFINITY;
+                pred[touched.data[k]] = NONE;
+            }
+            touched.size = 0;
+            heap.clear();
+        }
+    }
+
+    /**
+     * The preprocessing: node ordering, witness searches and shortcuts.
+     */
+    private static class Contraction {
+        private final IntDoubleMap[] adj; // remaining graph: neighbor -> weight
+        private final IntIntMap[] mid;    // remaining graph: neighbor -> contracted middle node of a shortcut
+        private final int n;
+        private final boolean[] contracted;
+        private final boolean[] target;
+        private final int[] deletedNeighbors;
+        private final int[] level;
+        private final double[] witnessDist;
+        private final IndexedMinHeap witnessHeap;
+        private final IntList witnessTouched = new IntList();
+        private double[] upWeights;
+        private int shortcuts;
+
+        Contraction(IntDoubleMap[] adj, IntIntMap[] mid) {
+            this.adj = adj;
+            this.mid = mid;
+            this.n = adj.length;
+            this.contracted = new boolean[n];
+            this.target = new boolean[n];
+            this.deletedNeighbors = new int[n];
+            this.level = new int[n];
+            this.witnessDist = new double[n];
+            Arrays.fill(witnessDist, Double.POSITIVE_INFINITY);
+            this.witnessHeap = new IndexedMinHeap(n);
+        }
+
+        /**
+         * Contracts all the nodes, fills rank and returns the upward graph as {offsets, targets, middles}.
+         */
+        int[][] run(int[] rank) {
+            IndexedMinHeap order = new IndexedMinHeap(n);
+            for (int v = 0; v < n; v++) {
+                order.push(v, priority(v));
+            }
+            int[][] upRows = new int[n][];
+            double[][] upRowWeights = new double[n][];
+            int[][] upRowMiddles = new int[n][];
+            int total = 0;
+            int next = 0;
+            while (!order.isEmpty()) {
+                int v = order.pop();
+                double p = priority(v); // lazy update, the priority may have grown since it was queued
+                if (!order.isEmpty() && p > order.peekPriority()) {
+                    order.push(v, p);
+                    continue;
+                }
+                rank[v] = next++;
+                IntDoubleMap nv = adj[v];
+                int deg = nv.size();
+                upRows[v] = new int[deg];
+                upRowWeights[v] = new double[deg];
+                upRowMiddles[v] = new int[deg];
+                int k = 0;
+                for (int i = 0; i < nv.capacity(); i++) { // the remaining neighbors are all ranked higher
+                    if (nv.isUsed(i)) {
+                        int u = nv.keyAt(i);
+                        upRows[v][k] = u;
+                        upRowWeights[v][k] = nv.valueAt(i);
+                        int m = mid[v].get(u);
+                        upRowMiddles[v][k++] = m < 0 ? NONE : m;
+                    }
+                }
+                total += deg;
+                contract(v, false);
+            }
+            int[] offsets = new int[n + 1];
+            int[] targets = new int[total];
+            int[] middles = new int[total];
+            upWeights = new double[total];
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] = offsets[v] + upRows[v].length;
+                System.arraycopy(upRows[v], 0, targets, offsets[v], upRows[v].length);
+                System.arraycopy(upRowWeights[v], 0, upWeights, offsets[v], upRows[v].length);
+                System.arraycopy(upRowMiddles[v], 0, middles, offsets[v], upRows[v].length);
+                upRows[v] = null;
+                upRowWeights[v] = null;
+                upRowMiddles[v] = null;
+            }
+            return new int[][]{offsets, targets, middles};
+        }
+
+        /**
+         * Importance of a node: shortcuts its contraction would add minus the edges it would remove (edge difference,
+         * counted twice), plus the number of its neighbors which were already contracted (spreads the contraction
+         * over the graph) and its level, the length of the longest chain of contracted nodes below it (keeps the
+         * hierarchy shallow).
+         */
+        private double priority(int v) {
+            return 2 * (contract(v, true) - adj[v].size()) + deletedNeighbors[v] + level[v];
+        }
+
+        /**
+         * Contracts v, or only counts the shortcuts its contraction needs.
+         * @param v int - the node
+         * @param simulate boolean - true to only count
+         * @return int - number of shortcuts
+         */
+        private int contract(int v, boolean simulate) {
+            IntDoubleMap nv = adj[v];
+            int count = 0;
+            contracted[v] = true; // witness searches must not go through v
+            for (int i = 0; i < nv.capacity(); i++) {
+                if (!nv.isUsed(i)) {
+                    continue;
+                }
+                int u = nv.keyAt(i);
+                double du = nv.valueAt(i);
+                int targets = 0;
+                double maxOut = 0;
+                for (int j = 0; j < nv.capacity(); j++) { // every pair once, the edges are undirected
+                    if (nv.isUsed(j) && nv.keyAt(j) > u) {
+                        target[nv.keyAt(j)] = true;
+                        targets++;
+                        maxOut = Math.max(maxOut, nv.valueAt(j));
+                    }
+                }
+                if (targets == 0) {
+                    continue;
+                }
+                witnessSearch(u, du + maxOut, targets, simulate ? SIMULATE_SETTLE_LIMIT : CONTRACT_SETTLE_LIMIT);
+                for (int j = 0; j < nv.capacity(); j++) {
+                    if (!nv.isUsed(j) || nv.keyAt(j) <= u) {
+                        continue;
+                    }
+                    int w = nv.keyAt(j);
+                    target[w] = false;
+                    double through = du + nv.valueAt(j);
+                    if (witnessDist[w] <= through) {
+                        continue;
+                    }
+                    count++;
+                    if (!simulate) {
+                        addShortcut(u, w, through, v);
+                    }
+                }
+            }
+            clearWitness();
+            if (simulate) {
+                contracted[v] = false;
+            } else {
+                for (int i = 0; i < nv.capacity(); i++) { // remove v from the remaining graph
+                    if (nv.isUsed(i)) {
+                        int u = nv.keyAt(i);
+                        adj[u].remove(v);
+                        mid[u].remove(v);
+                        deletedNeighbors[u]++;
+                        level[u] = Math.max(level[u], level[v] + 1);
+                    }
+                }
+                adj[v] = new IntDoubleMap();
+                mid[v] = new IntIntMap();
+            }
+            return count;
+        }
+
+        private void addShortcut(int u, int w, double weight, int middle) {
+            double old = adj[u].get(w, Double.POSITIVE_INFINITY);
+            if (weight < old) {
+                if (old == Double.POSITIVE_INFINITY) {
+                    shortcuts++;
+                }
+                adj[u].put(w, weight);
+                adj[w].put(u, weight);
+                mid[u].put(w, middle);
+                mid[w].put(u, middle);
+            }
+        }
+
+        /**
+         * Dijkstra from u in the remaining graph, bounded by a distance and a number of settled nodes,
+         * it stops once all the marked targets are settled.
+         * witnessDist then holds an upper bound of the distance to every node it reached without going through
+         * contracted nodes (infinity for the others).
+         */
+        private void witnessSearch(int u, double limit, int targets, int settleLimit) {
+            clearWitness();
+            witnessDist[u] = 0;
+            witnessTouched.add(u);
+            witnessHeap.push(u, 0);
+            int settled = 0;
+            while (!witnessHeap.isEmpty() && targets > 0 && settled++ < settleLimit) {
+                if (witnessHeap.peekPriority() > limit) {
+                    break;
+                }
+                int x = witnessHeap.pop();
+                if (target[x]) {
+                    targets--;
+                }
+                IntDoubleMap nx = adj[x];
+                for (int i = 0; i < nx.capacity(); i++) {
+                    if (!nx.isUsed(i)) {
+                        continue;
+                    }
+                    int y = nx.keyAt(i);
+                    if (contracted[y]) {
+                        continue;
+                    }
+                    double d = witnessDist[x] + nx.valueAt(i);
+                    if (d < witnessDist[y]) {
+                        if (witnessDist[y] == Double.POSITIVE_INFINITY) {
+                            witnessTouched.add(y);
+                        }
+                        witnessDist[y] = d;
+                        witnessHeap.push(y, d);
+                    }
+                }
+            }
+        }
+
+        private void clearWitness() {
+            for (int k = 0; k < witnessTouched.size; k++) {
+                witnessDist[witnessTouched.data[k]] = Double.POSITIVE_INFINITY;
+            }
+            witnessTouched.size = 0;
+            witnessHeap.clear();
+        }
+    }
+}
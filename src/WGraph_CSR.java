@@ -0,0 +1,536 @@
+package ex1.src;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * This class represents an immutable weighted graph stored in compressed sparse row (CSR) form.
+ * A CSR graph is created by freezing any other weighted_graph (usually a WGraph_DS).
+ * Every node gets a dense index (0..n-1) by the sorted order of the keys, and the
+ * neighbors of the node with index i are stored in neighbors[offsets[i]] .. neighbors[offsets[i+1] - 1]
+ * (sorted by index) together with the matching edge weights in the weights array.
+ * With the default DOUBLE storage each half-edge costs 12 bytes (an int and a double) and no node has a map of its own,
+ * about half the memory of the open addressing maps of WGraph_DS, which makes it the representation of choice
+ * for large graphs that are only queried.
+ * The weights can also be kept in 4 bytes (see WeightStorage), 8 bytes a half-edge, for a small and bounded error.
+ * FLOAT rounds every weight to the nearest float, at most 2^-24 (~6e-8) of the weight away (for weights above ~1.2e-38,
+ * the smallest normal float), so every path is scaled by a factor within 1 +- 2^-24 and shortestPathDist is within
+ * a relative 2^-24 of the exact distance (plus the rounding of the double sums, ~k * 2^-53 for a path of k edges).
+ * FIXED keeps round(w * scale) in an int, every weight is at most 0.5 / scale away (an absolute error), so
+ * shortestPathDist is within k * 0.5 / scale of the exact distance, k being the larger edge count of the exact
+ * and of the returned path (at most nodeSize() - 1).
+ * getEdge and the neighbor scans return the stored weight as a double, the algorithms run on the stored weights.
+ * All the methods which change the graph throw UnsupportedOperationException.
+ */
+public class WGraph_CSR implements weighted_graph, Serializable {
+    private final int[] keys;
+    private final int[] offsets;
+    private final int[] neighbors;
+    private final double[] weights; // DOUBLE, the other two are null
+    private final float[] floatWeights; // FLOAT
+    private final int[] fixedWeights; // FIXED, in units of 1 / scale
+    private final WeightStorage storage;
+    private final double scale;
+    private final node_info[] nodes;
+    private final int edgeSize, mc;
+    private transient Collection<node_info> nodesView;
+
+    /**
+     * Freeze constructor. Builds the CSR arrays from the given graph,
+     * the tag and info of every node are copied as well.
+     * @param g graph - the graph to freeze
+     */
+    public WGraph_CSR(weighted_graph g) {
+        this(g, WeightStorage.DOUBLE, 1);
+    }
+
+    /**
+     * Freeze constructor with a choice of weight storage (see WeightStorage and the class comment for the errors).
+     * @param g graph - the graph to freeze
+     * @param storage WeightStorage - how the weights are kept
+     * @param scale double - for FIXED the number of units in a weight of 1 (100 keeps 2 decimal digits),
+     *              ignored by DOUBLE and FLOAT
+     * @throws IllegalArgumentException if scale is not positive (FIXED) or a weight does not fit the storage
+     */
+    public WGraph_CSR(weighted_graph g, WeightStorage storage, double scale) {
+        Objects.requireNonNull(g);
+        this.storage = Objects.requireNonNull(storage);
+        if (storage == WeightStorage.FIXED && !(scale > 0 && scale < Double.POSITIVE_INFINITY)) {
+            throw new IllegalArgumentException("bad scale " + scale);
+        }
+        this.scale = storage == WeightStorage.FIXED ? scale : 1;
+        int n = g.nodeSize();
+        this.keys = new int[n];
+        int i = 0;
+        for (node_info node : g.getV()) {
+            keys[i++] = node.getKey();
+        }
+        Arrays.sort(keys);
+        this.offsets = new int[n + 1];
+        for (i = 0; i < n; i++) { // first pass, count the degree of each node
+            offsets[i + 1] = offsets[i] + g.getV(keys[i]).size();
+        }
+        this.neighbors = new int[offsets[n]];
+        this.weights = storage == WeightStorage.DOUBLE ? new double[offsets[n]] : null;
+        this.floatWeights = storage == WeightStorage.FLOAT ? new float[offsets[n]] : null;
+        this.fixedWeights = storage == WeightStorage.FIXED ? new int[offsets[n]] : null;
+        this.nodes = new node_info[n];
+        double[] row = new double[16]; // the weights of one row while it is sorted
+        for (i = 0; i < n; i++) { // second pass, fill each row and sort it by neighbor index
+            int key = keys[i];
+            int from = offsets[i], to = offsets[i + 1];
+            if (row.length < to - from) {
+                row = new double[Math.max(to - from, row.length * 2)];
+            }
+            int p = from;
+            for (node_info ni : g.getV(key)) {
+                neighbors[p] = indexOf(ni.getKey());
+                row[p - from] = g.getEdge(key, ni.getKey());
+                p++;
+            }
+            sortRow(from, to, row);
+            for (p = from; p < to; p++) {
+                store(p, row[p - from]);
+            }
+            nodes[i] = new Node(g.getNode(key));
+        }
+        this.edgeSize = g.edgeSize();
+        this.mc = g.getMC();
+    }
+
+    /**
+     * return the dense index (0..n-1) of the node with the given key.
+     * @param key - the node key
+     * @return int - the index of the node, or a negative number if there is no such node.
+     */
+    public int indexOf(int key) {
+        int idx = Arrays.binarySearch(keys, key);
+        return idx < 0 ? -1 : idx;
+    }
+
+    /**
+     * return the key of the node with the given dense index.
+     * @param index - a dense index in the range 0..nodeSize()-1
+     * @return int - the key of the node
+     */
+    public int keyAt(int index) {
+        return keys[index];
+    }
+
+    /**
+     * return the node_data by the key,
+     * O(log(n)) as the keys are located with a binary search.
+     * @param key the node key
+     * @return the node_info by the key, null if none.
+     */
+    @Override
+    public node_info getNode(int key) {
+        int idx = indexOf(key);
+        return idx < 0 ? null : nodes[idx];
+    }
+
+    /**
+     * return true if and only if there is an edge between node1 and node2,
+     * O(log(n) + log(k)), k being the degree of node1.
+     * @param node1 int , node with key 1
+     * @param node2 int , node with key 2
+     * @return boolean true if nodes are connected else false.
+     */
+    @Override
+    public boolean hasEdge(int node1, int node2) {
+        return edgePosition(node1, node2) >= 0;
+    }
+
+    /**
+     * return the value of the edge which is connection node1 and node2
+     * return -1 if no edge
+     * @param node1 - key of node 1
+     * @param node2 - key of node 2
+     * @return double - weight of the edge connecting the two nodes
+     */
+    @Override
+    public double getEdge(int node1, int node2) {
+        int p = edgePosition(node1, node2);
+        return p < 0 ? -1 : weight(p);
+    }
+
+    /**
+     * Not supported, the CSR graph is immutable.
+     */
+    @Override
+    public void addNode(int key) {
+        throw new UnsupportedOperationException("WGraph_CSR is immutable");
+    }
+
+    /**
+     * Not supported, the CSR graph is immutable.
+     */
+    @Override
+    public void connect(int node1, int node2, double w) {
+        throw new UnsupportedOperationException("WGraph_CSR is immutable");
+    }
+
+    /**
+     * This method return a pointer for the
+     * collection representing all the nodes in the graph (ordered by key).
+     * @return Collection<node_info> - all the nodes in the graph
+     */
+    @Override
+    public Collection<node_info> getV() {
+        if (nodesView == null) {
+            nodesView = Collections.unmodifiableList(Arrays.asList(nodes));
+        }
+        return nodesView;
+    }
+
+    /**
+     * This method returns a view of all the nodes connected to node_id,
+     * no adjacency data is copied.
+     * @return Collection<node_info> - the neighbors of node_id
+     */
+    @Override
+    public Collection<node_info> getV(int node_id) {
+        int idx = indexOf(node_id);
+        if (idx < 0) {
+            return Collections.emptyList();
+        }
+        return new Row(offsets[idx], offsets[idx + 1]);
+    }
+
+    /**
+     * Calls the visitor with every neighbor of node_id and the weight of the edge, by the row of the node.
+     * @param node_id int - the node key
+     * @param visitor NeighborVisitor - called once per neighbor
+     */
+    @Override
+    public void forEachNeighbor(int node_id, NeighborVisitor visitor) {
+        int idx = indexOf(node_id);
+        if (idx < 0) {
+            return;
+        }
+        for (int p = offsets[idx]; p < offsets[idx + 1]; p++) {
+            visitor.visit(keys[neighbors[p]], weight(p));
+        }
+    }
+
+    /**
+     * Not supported, the CSR graph is immutable.
+     */
+    @Override
+    public node_info removeNode(int key) {
+        throw new UnsupportedOperationException("WGraph_CSR is immutable");
+    }
+
+    /**
+     * Not supported, the CSR graph is immutable.
+     */
+    @Override
+    public void removeEdge(int node1, int node2) {
+        throw new UnsupportedOperationException("WGraph_CSR is immutable");
+    }
+
+    /**
+     * return the number of nodes in the graph.
+     * @return int - number of nodes.
+     */
+    @Override
+    public int nodeSize() {
+        return keys.length;
+    }
+
+    /**
+     * return the number of edges in the graph.
+     * @return int - number of edges
+     */
+    @Override
+    public int edgeSize() {
+        return edgeSize;
+    }
+
+    /**
+     * return the Mode Count of the graph this one was frozen from.
+     * @return int - number of changed in the graph.
+     */
+    @Override
+    public int getMC() {
+        return mc;
+    }
+
+    /**
+     * Equals method, two CSR graphs are equal if they have the same nodes, edges and weights.
+     * @param obj The graph you wish to compare it to,
+     * @return boolean true if both graphs are the same.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null || obj.getClass() != this.getClass()) {
+            return false;
+        }
+        final WGraph_CSR graph = (WGraph_CSR) obj;
+        return this.edgeSize == graph.edgeSize &&
+                this.storage == graph.storage &&
+                this.scale == graph.scale &&
+                Arrays.equals(keys, graph.keys) &&
+                Arrays.equals(offsets, graph.offsets) &&
+                Arrays.equals(neighbors, graph.neighbors) &&
+                Arrays.equals(weights, graph.weights) &&
+                Arrays.equals(floatWeights, graph.floatWeights) &&
+                Arrays.equals(fixedWeights, graph.fixedWeights);
+    }
+
+    /**
+     * Overrides the hashCode method, a must if equals method is overridden.
+     * @return int - new hashCode.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(Arrays.hashCode(keys), Arrays.hashCode(neighbors), this.edgeSize);
+    }
+
+    /**
+     * @return WeightStorage - how the weights of this graph are kept
+     */
+    public WeightStorage getWeightStorage() {
+        return storage;
+    }
+
+    /**
+     * @return double - the units in a weight of 1 of FIXED storage, 1 for the other storages
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * return the first position of the row of a node in the neighbors array, for the algorithms of this package.
+     * The row of index i ends where the row of index i+1 starts.
+     * @param index int - a node index, 0..nodeSize() (nodeSize() gives the end of the last row)
+     * @return int - position in the neighbors array
+     */
+    int rowStart(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * @param position int - a position in the neighbors array
+     * @return int - the index of the neighbor stored there
+     */
+    int neighborAt(int position) {
+        return neighbors[position];
+    }
+
+    /**
+     * Finds the position of the edge node1-node2 in the neighbors array.
+     * @param node1 - key of node 1
+     * @param node2 - key of node 2
+     * @return int - the position, negative if there is no such edge
+     */
+    private int edgePosition(int node1, int node2) {
+        int i = indexOf(node1);
+        int j = indexOf(node2);
+        if (i < 0 || j < 0) {
+            return -1;
+        }
+        int p = Arrays.binarySearch(neighbors, offsets[i], offsets[i + 1], j);
+        return p < 0 ? -1 : p;
+    }
+
+    /**
+     * return the weight stored at a position of the neighbors array, as a double.
+     */
+    private double weight(int p) {
+        if (weights != null) {
+            return weights[p];
+        }
+        if (floatWeights != null) {
+            return floatWeights[p];
+        }
+        return fixedWeights[p] / scale;
+    }
+
+    /**
+     * Stores a weight at a position of the neighbors array in the storage of the graph.
+     * @throws IllegalArgumentException if the weight does not fit the storage
+     */
+    private void store(int p, double w) {
+        switch (storage) {
+            case DOUBLE:
+                weights[p] = w;
+                break;
+            case FLOAT:
+                if (Double.isNaN(w) || Math.abs(w) > Float.MAX_VALUE && w != Double.POSITIVE_INFINITY) { // +Infinity stays
+                    throw new IllegalArgumentException("weight " + w + " does not fit a float");
+                }
+                floatWeights[p] = (float) w;
+                break;
+            default:
+                double units = Math.rint(w * scale);
+                if (!(units >= Integer.MIN_VALUE && units <= Integer.MAX_VALUE)) { // NaN and infinities too, an int has neither
+                    throw new IllegalArgumentException("weight " + w + " does not fit an int at scale " + scale);
+                }
+                fixedWeights[p] = (int) units;
+        }
+    }
+
+    /**
+     * Sorts neighbors[from..to) by index and moves the weights of the row (row[0..to-from)) along.
+     * Rows are short on average so insertion sort is used, long rows are sorted by packing
+     * (neighbor, position) pairs into longs.
+     * @param from - first position of the row
+     * @param to - end of the row (exclusive)
+     * @param row - the weights of the row
+     */
+    private void sortRow(int from, int to, double[] row) {
+        if (to - from <= 32) {
+            for (int i = from + 1; i < to; i++) {
+                int nb = neighbors[i];
+                double w = row[i - from];
+                int j = i - 1;
+                while (j >= from && neighbors[j] > nb) {
+                    neighbors[j + 1] = neighbors[j];
+                    row[j + 1 - from] = row[j - from];
+                    j--;
+                }
+                neighbors[j + 1] = nb;
+                row[j + 1 - from] = w;
+            }
+            return;
+        }
+        long[] packed = new long[to - from];
+        for (int i = from; i < to; i++) {
+            packed[i - from] = ((long) neighbors[i] << 32) | (i - from);
+        }
+        Arrays.sort(packed);
+        double[] w = Arrays.copyOf(row, to - from);
+        for (int i = 0; i < packed.length; i++) {
+            neighbors[from + i] = (int) (packed[i] >>> 32);
+            row[i] = w[(int) packed[i]];
+        }
+    }
+
+    /**
+     * How a WGraph_CSR keeps its edge weights, see the class comment for the error of each.
+     */
+    public enum WeightStorage {
+        /**
+         * 8 bytes a weight, exact.
+         */
+        DOUBLE,
+        /**
+         * 4 bytes a weight, the nearest float, a relative error of at most 2^-24. A +Infinity weight stays infinite,
+         * NaN, -Infinity and a finite weight beyond +-Float.MAX_VALUE do not fit.
+         */
+        FLOAT,
+        /**
+         * 4 bytes a weight, an int count of 1 / scale units, an absolute error of at most 0.5 / scale.
+         * A weight outside Integer.MIN_VALUE / scale .. Integer.MAX_VALUE / scale does not fit, NaN and infinite
+         * weights neither (an int has no NaN or infinity).
+         */
+        FIXED
+    }
+
+    /**
+     * Read only collection view of one row of the neighbors array.
+     */
+    private class Row extends AbstractCollection<node_info> {
+        private final int from, to;
+
+        Row(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Iterator<node_info> iterator() {
+            return new Iterator<node_info>() {
+                private int p = from;
+
+                @Override
+                public boolean hasNext() {
+                    return p < to;
+                }
+
+                @Override
+                public node_info next() {
+                    if (p >= to) {
+                        throw new NoSuchElementException();
+                    }
+                    return nodes[neighbors[p++]];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    /**
+     * A node of the CSR graph, it only holds the key and the algorithms' tag and info.
+     */
+    private static class Node implements node_info, Serializable {
+        private final int key;
+        private double tag;
+        private String info;
+
+        /**
+         * Constructor, copy the values of the given node.
+         * @param n - Node which is copied from.
+         */
+        Node(node_info n) {
+            this.key = n.getKey();
+            this.tag = n.getTag();
+            this.info = n.getInfo();
+        }
+
+        @Override
+        public int getKey() {
+            return this.key;
+        }
+
+        @Override
+        public String getInfo() {
+            return this.info;
+        }
+
+        @Override
+        public void setInfo(String s) {
+            this.info = s;
+        }
+
+        @Override
+        public double getTag() {
+            return this.tag;
+        }
+
+        @Override
+        public void setTag(double t) {
+            this.tag = t;
+        }
+
+        @Override
+        public String toString() {
+            return "" + this.key;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null || obj.getClass() != this.getClass()) {
+                return false;
+            }
+            return this.key == ((Node) obj).key;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(37 + this.key * 17);
+        }
+    }
+}
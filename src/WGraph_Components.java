@@ -0,0 +1,197 @@
+package ex1.src;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class represents the connected components of a weighted graph, computed once with union-find
+ * over the dense node indices: every edge unions the sets of its two nodes, the weights are never read.
+ * The components are numbered 0..count()-1 by the first node of each in the order of the dense index (NodeIndex),
+ * for a graph without removed nodes that is the node order of the graph.
+ * Building the labeling is O(n+v) (near linear), every query after it is O(1) (n = nodes, v = edges).
+ * The neighbors of WGraph_DS, WGraph_CSR and WGraph_Mapped are read from their adjacency arrays directly,
+ * other graphs through forEachNeighbor(key, visitor).
+ * A labeling belongs to one version (Mode Count) of the graph, see isValidFor. After the graph changes,
+ * count, componentOf, sameComponent and the sizes still answer for the version which was labeled,
+ * nodes throws IllegalStateException as the nodes of that version may be gone.
+ */
+public class WGraph_Components {
+    private final NodeIndex index;
+    private final weighted_graph g;
+    private final int[] component; // node index -> component id
+    private final int[] sizes;     // component id -> number of nodes
+    private final int largest;
+
+    /**
+     * Constructor, labels the components of the given graph.
+     * @param g weighted_graph - the graph
+     */
+    public WGraph_Components(weighted_graph g) {
+        this(new NodeIndex(Objects.requireNonNull(g)), g);
+    }
+
+    /**
+     * Constructor, labels the components of a graph over an existing index of it.
+     * @param index NodeIndex - a valid index of g
+     * @param g weighted_graph - the graph
+     */
+    WGraph_Components(NodeIndex index, weighted_graph g) {
+        this.index = index;
+        this.g = g;
+        int n = index.size();
+        UnionFind sets = new UnionFind(n);
+        if (g instanceof WGraph_DS) { // read the neighbor keys directly, without looking up their nodes
+            WGraph_DS ds = (WGraph_DS) g;
+            for (int i = 0; i < n; i++) {
+                IntDoubleMap adj = ds.adjacency(index.keyAt(i));
+                if (adj == null) {
+                    continue;
+                }
+                for (int slot = 0; slot < adj.capacity(); slot++) {
+                    if (adj.isUsed(slot)) {
+                        int j = index.indexOf(adj.keyAt(slot));
+                        if (i < j) { // every edge is seen from both ends
+                            sets.union(i, j);
+                        }
+                    }
+                }
+            }
+        }
+        else if (g instanceof WGraph_CSR) { // the CSR rows are by index, in the same (getV()) order as the node index
+            WGraph_CSR csr = (WGraph_CSR) g;
+            for (int i = 0; i < n; i++) {
+                for (int p = csr.rowStart(i); p < csr.rowStart(i + 1); p++) {
+                    int j = csr.neighborAt(p);
+                    if (i < j) {
+                        sets.union(i, j);
+                    }
+                }
+            }
+        }
+        else if (g instanceof WGraph_Mapped) { // same layout as the CSR graph, read from the mapped file
+            WGraph_Mapped mapped = (WGraph_Mapped) g;
+            for (int i = 0; i < n; i++) {
+                for (int p = mapped.rowStart(i); p < mapped.rowStart(i + 1); p++) {
+                    int j = mapped.neighborAt(p);
+                    if (i < j) {
+                        sets.union(i, j);
+                    }
+                }
+            }
+        }
+        else {
+            for (int i = 0; i < n; i++) {
+                int from = i;
+                g.forEachNeighbor(index.keyAt(i), (k, w) -> {
+                    int j = index.indexOf(k);
+                    if (from < j) {
+                        sets.union(from, j);
+                    }
+                });
+            }
+        }
+        this.component = new int[n];
+        this.sizes = new int[sets.sets()];
+        int[] idOfRoot = new int[n]; // ids are kept +1 so 0 means none yet
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int root = sets.find(i);
+            if (idOfRoot[root] == 0) {
+                idOfRoot[root] = ++count;
+            }
+            component[i] = idOfRoot[root] - 1;
+            sizes[component[i]]++;
+        }
+        int big = sizes.length == 0 ? -1 : 0;
+        for (int c = 1; c < sizes.length; c++) {
+            if (sizes[c] > sizes[big]) {
+                big = c;
+            }
+        }
+        this.largest = big;
+    }
+
+    /**
+     * @param g weighted_graph - a graph
+     * @return boolean - true if this labeling was built for g and g was not changed since
+     */
+    public boolean isValidFor(weighted_graph g) {
+        return index.isValidFor(g);
+    }
+
+    /**
+     * @return int - the number of connected components (0 for an empty graph)
+     */
+    public int count() {
+        return sizes.length;
+    }
+
+    /**
+     * return true if and only if all the nodes of the graph are in one component (an empty graph is connected).
+     * @return boolean - true if connected else false
+     */
+    public boolean isConnected() {
+        return sizes.length <= 1;
+    }
+
+    /**
+     * @param key int - a node key
+     * @return int - the id of the component of the node (0..count()-1), -1 if there is no such node
+     */
+    public int componentOf(int key) {
+        int i = index.indexOf(key);
+        return i < 0 ? -1 : component[i];
+    }
+
+    /**
+     * @param a int - a node key
+     * @param b int - a node key
+     * @return boolean - true if both nodes exist and there is a path between them
+     */
+    public boolean sameComponent(int a, int b) {
+        int ca = componentOf(a);
+        return ca != -1 && ca == componentOf(b);
+    }
+
+    /**
+     * @param id int - a component id, 0..count()-1
+     * @return int - the number of nodes in the component
+     */
+    public int size(int id) {
+        return sizes[id];
+    }
+
+    /**
+     * @return int[] - the number of nodes of every component, by component id (a copy)
+     */
+    public int[] sizes() {
+        return sizes.clone();
+    }
+
+    /**
+     * @return int - the id of the component with the most nodes (the first one on a tie), -1 for an empty graph
+     */
+    public int largest() {
+        return largest;
+    }
+
+    /**
+     * return the nodes of a component, in the order of the dense index, O(n).
+     * @param id int - a component id, 0..count()-1
+     * @return List<node_info> - the nodes of the component
+     * @throws IllegalStateException if the graph was changed since it was labeled (see isValidFor)
+     */
+    public List<node_info> nodes(int id) {
+        if (!index.isValidFor(g)) {
+            throw new IllegalStateException("the graph was changed since its components were labeled");
+        }
+        List<node_info> list = new ArrayList<>(sizes[id]);
+        for (int i = 0; i < component.length; i++) {
+            if (component[i] == id) {
+                list.add(index.nodeAt(i));
+            }
+        }
+        return list;
+    }
+}
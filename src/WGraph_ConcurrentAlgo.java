@@ -0,0 +1,52 @@
+package ex1.src;
+
+/**
+ * Thread safe variant of WGraph_Algo for answering many queries at once on one shared graph.
+ * isConnected, shortestPathDist and shortestPath may be called from any number of threads at the same time:
+ * the queries never change the graph, every thread gets its own reusable search state,
+ * and the dense node index is shared by all the threads and rebuilt (once) after the graph changes.
+ * The graph itself must not be changed while queries are running, and init/load should not be called
+ * concurrently with queries.
+ */
+public class WGraph_ConcurrentAlgo extends WGraph_Algo {
+    private transient volatile NodeIndex sharedIndex;
+    private transient volatile ThreadLocal<SearchState> states;
+
+    /**
+     * return the dense node index shared by all the threads, only one thread rebuilds it after a change.
+     * @return NodeIndex - a valid index of the graph
+     */
+    @Override
+    NodeIndex nodeIndex() {
+        weighted_graph g = getGraph();
+        NodeIndex index = sharedIndex;
+        if (index == null || !index.isValidFor(g)) {
+            synchronized (this) {
+                index = sharedIndex;
+                if (index == null || !index.isValidFor(g)) {
+                    index = new NodeIndex(g);
+                    sharedIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * return the search state of the calling thread, it is reused by all the queries of the thread.
+     * @return SearchState - the state of the current thread
+     */
+    @Override
+    SearchState searchState() {
+        ThreadLocal<SearchState> local = states;
+        if (local == null) {
+            synchronized (this) {
+                if (states == null) {
+                    states = ThreadLocal.withInitial(SearchState::new);
+                }
+                local = states;
+            }
+        }
+        return local.get();
+    }
+}
@@ -0,0 +1,538 @@
+package ex1.src;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class represents a thread safe weighted graph, any number of threads may change it and read it at the same time.
+ * The nodes are spread over 64 stripes by the hash of their key, every stripe has its own node table and read/write lock.
+ * The neighbors of a node are kept in an immutable row (the sorted neighbor keys, their weights and their nodes)
+ * which is replaced, never changed, under the write lock of the stripe of the node:
+ * connect, removeEdge and removeNode write lock the stripes of all the nodes they change, in stripe order so they never
+ * deadlock, and the readers get a row without any lock (getNode only read locks one stripe).
+ * getV() is a snapshot of the nodes taken under all the read locks, getV(node_id) and forEachNeighbor read the row of the
+ * node when they were called, so an iteration never fails and never sees a half made row whatever the writers do.
+ * The two rows of an edge are replaced one after the other, a reader may see a new edge (or a new weight) from one of
+ * its ends a moment before the other.
+ * The Mode Count and the sizes are atomic counters, the Mode Count is raised after the rows of a change are in place,
+ * so a reader which caches by getMC() (WGraph_Algo, WGraph_PathCache) never keeps an old answer under a new Mode Count.
+ * An edge costs two row entries of 20 bytes and a change copies the rows of its ends, O(degree),
+ * so this class is for graphs which are mostly read; WGraph_DS is faster for graphs which are built by one thread.
+ */
+public class WGraph_ConcurrentDS implements weighted_graph {
+    private static final int STRIPES = 64; // a lock set fits in a long
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicInteger mc = new AtomicInteger(), nodeSize = new AtomicInteger(), edgeSize = new AtomicInteger();
+
+    /**
+     * Default constructor
+     */
+    public WGraph_ConcurrentDS() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Copy constructor, copies the nodes (with their tag and info) and the edges of the given graph.
+     * g must not be changed while it is copied.
+     * @param g graph - the graph to copy
+     */
+    public WGraph_ConcurrentDS(weighted_graph g) {
+        this();
+        for (node_info n : g.getV()) {
+            stripe(n.getKey()).nodes.put(n.getKey(), new Node(n));
+        }
+        for (Stripe s : stripes) {
+            for (Node node : s.nodes.values()) {
+                Collection<node_info> ni = g.getV(node.key);
+                int[] keys = new int[ni.size()];
+                int k = 0;
+                for (node_info n : ni) {
+                    keys[k++] = n.getKey();
+                }
+                Arrays.sort(keys);
+                double[] weights = new double[keys.length];
+                Node[] nodes = new Node[keys.length];
+                for (k = 0; k < keys.length; k++) {
+                    weights[k] = g.getEdge(node.key, keys[k]);
+                    nodes[k] = stripe(keys[k]).nodes.get(keys[k]);
+                }
+                node.row = keys.length == 0 ? Row.EMPTY : new Row(keys, weights, nodes);
+            }
+        }
+        this.nodeSize.set(g.nodeSize());
+        this.edgeSize.set(g.edgeSize());
+        this.mc.set(g.getMC());
+    }
+
+    /**
+     * return the node_data by the key, read locks the stripe of the key.
+     * @param key the node key
+     * @return the node_info by the key, null if none.
+     */
+    @Override
+    public node_info getNode(int key) {
+        return node(key);
+    }
+
+    /**
+     * return true if and only if there is an edge between node1 and node2
+     * @param node1 int , node with key 1
+     * @param node2 int , node with key 2
+     * @return boolean true if nodes are connected else false.
+     */
+    @Override
+    public boolean hasEdge(int node1, int node2) {
+        Node n = node(node1);
+        return n != null && n.row.indexOf(node2) >= 0;
+    }
+
+    /**
+     * return the value of the edge which is connection node1 and node2
+     * return -1 if no edge
+     * @param node1 - key of node 1
+     * @param node2 - key of node 2
+     * @return double - weight of the edge connecting the two nodes
+     */
+    @Override
+    public double getEdge(int node1, int node2) {
+        Node n = node(node1);
+        if (n == null) {
+            return -1;
+        }
+        Row row = n.row;
+        int i = row.indexOf(node2);
+        return i < 0 ? -1 : row.weights[i];
+    }
+
+    /**
+     * adds new node to the graph with given key.
+     * only adds new node if graph do not contains the same key.
+     * @param key the unique key which is associated with the node
+     */
+    @Override
+    public void addNode(int key) {
+        Stripe s = stripe(key);
+        s.lock.writeLock().lock();
+        try {
+            if (!s.nodes.containsKey(key)) {
+                s.nodes.put(key, new Node(key));
+                nodeSize.incrementAndGet();
+                mc.incrementAndGet();
+            }
+        } finally {
+            s.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Connect an edge between node1 and node2 with the given weight,
+     * or sets the weight of the edge if they are already connected.
+     * If one or two of the nodes in null it simply does nothing.
+     * @param node1 node with key 1
+     * @param node2 node with key 2
+     * @param w the weight of the edge which is connecting the two nodes
+     */
+    @Override
+    public void connect(int node1, int node2, double w) {
+        if (!(w >= 0) || node1 == node2) {
+            return;
+        }
+        long locks = bit(node1) | bit(node2);
+        lock(locks);
+        try {
+            Node a = stripe(node1).nodes.get(node1), b = stripe(node2).nodes.get(node2);
+            if (a == null || b == null) {
+                return;
+            }
+            int i = a.row.indexOf(node2);
+            if (i < 0) {
+                a.row = a.row.with(-i - 1, b, w);
+                b.row = b.row.with(-b.row.indexOf(node1) - 1, a, w);
+                edgeSize.incrementAndGet();
+                mc.incrementAndGet();
+            } else if (a.row.weights[i] != w) {
+                a.row = a.row.withWeight(i, w);
+                b.row = b.row.withWeight(b.row.indexOf(node1), w);
+                mc.incrementAndGet();
+            }
+        } finally {
+            unlock(locks);
+        }
+    }
+
+    /**
+     * return a snapshot of all the nodes in the graph, taken under the read locks of all the stripes.
+     * The snapshot does not change after it was taken.
+     * @return Collection<node_info> - all the nodes in the graph
+     */
+    @Override
+    public Collection<node_info> getV() {
+        for (Stripe s : stripes) {
+            s.lock.readLock().lock();
+        }
+        try {
+            List<node_info> nodes = new ArrayList<>(nodeSize.get());
+            for (Stripe s : stripes) {
+                nodes.addAll(s.nodes.values());
+            }
+            return Collections.unmodifiableList(nodes);
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                stripes[i].lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * return the neighbors of node_id as they were when it was called, sorted by key.
+     * The collection does not change after it was returned.
+     * @return Collection<node_info> - of all the nodes in the graph
+     */
+    @Override
+    public Collection<node_info> getV(int node_id) {
+        Node n = node(node_id);
+        if (n == null) {
+            return Collections.emptyList();
+        }
+        return n.row;
+    }
+
+    /**
+     * Calls the visitor with every neighbor of node_id and the weight of the edge, from the row of the node
+     * when it was called: the neighbors and the weights are of the same moment, whatever the writers do.
+     * @param node_id int - the node key
+     * @param visitor NeighborVisitor - called once per neighbor
+     */
+    @Override
+    public void forEachNeighbor(int node_id, NeighborVisitor visitor) {
+        Node n = node(node_id);
+        if (n == null) {
+            return;
+        }
+        Row row = n.row;
+        for (int i = 0; i < row.keys.length; i++) {
+            visitor.visit(row.keys[i], row.weights[i]);
+        }
+    }
+
+    /**
+     * Delete the node (by the given key) from the graph.
+     * Removes all edges which are connected with this node, all in one step under the locks of the node
+     * and of all its neighbors.
+     * @param key int - the node you wish to delete
+     * @return node_info, the removed node (null if none).
+     */
+    @Override
+    public node_info removeNode(int key) {
+        Stripe s = stripe(key);
+        while (true) {
+            Node n = node(key);
+            if (n == null) {
+                return null;
+            }
+            Row row = n.row;
+            long locks = bit(key);
+            for (int k : row.keys) {
+                locks |= bit(k);
+            }
+            lock(locks);
+            try {
+                if (s.nodes.get(key) != n || n.row != row) { // changed before the locks were taken, a new neighbor may not be locked
+                    continue;
+                }
+                s.nodes.remove(key);
+                for (Node m : row.nodes) {
+                    m.row = m.row.without(m.row.indexOf(key));
+                }
+                n.row = Row.EMPTY;
+                nodeSize.decrementAndGet();
+                edgeSize.addAndGet(-row.size());
+                mc.addAndGet(row.size() + 1);
+                return n;
+            } finally {
+                unlock(locks);
+            }
+        }
+    }
+
+    /**
+     * Delete the edge which is connected to node1 and node2.
+     * @param node1 int - key of node 1
+     * @param node2 int - key of node 2
+     */
+    @Override
+    public void removeEdge(int node1, int node2) {
+        long locks = bit(node1) | bit(node2);
+        lock(locks);
+        try {
+            Node a = stripe(node1).nodes.get(node1), b = stripe(node2).nodes.get(node2);
+            if (a == null || b == null) {
+                return;
+            }
+            int i = a.row.indexOf(node2);
+            if (i >= 0) {
+                a.row = a.row.without(i);
+                b.row = b.row.without(b.row.indexOf(node1));
+                edgeSize.decrementAndGet();
+                mc.incrementAndGet();
+            }
+        } finally {
+            unlock(locks);
+        }
+    }
+
+    /**
+     * return the number of nodes in the graph.
+     * @return int - number of nodes.
+     */
+    @Override
+    public int nodeSize() {
+        return nodeSize.get();
+    }
+
+    /**
+     * return the number of edges in the graph.
+     * @return int - number of edges
+     */
+    @Override
+    public int edgeSize() {
+        return edgeSize.get();
+    }
+
+    /**
+     * return the Mode Count - for testing changes in the graph.
+     * @return int -  number of changed in the graph.
+     */
+    @Override
+    public int getMC() {
+        return mc.get();
+    }
+
+    private Node node(int key) {
+        Stripe s = stripe(key);
+        s.lock.readLock().lock();
+        try {
+            return s.nodes.get(key);
+        } finally {
+            s.lock.readLock().unlock();
+        }
+    }
+
+    private Stripe stripe(int key) {
+        return stripes[IntObjectMap.hash(key) & (STRIPES - 1)];
+    }
+
+    private static long bit(int key) {
+        return 1L << (IntObjectMap.hash(key) & (STRIPES - 1));
+    }
+
+    /**
+     * Write locks the stripes of the set, in stripe order.
+     * @param locks long - a bit per stripe
+     */
+    private void lock(long locks) {
+        for (long l = locks; l != 0; l &= l - 1) {
+            stripes[Long.numberOfTrailingZeros(l)].lock.writeLock().lock();
+        }
+    }
+
+    private void unlock(long locks) {
+        for (long l = locks; l != 0; l &= l - 1) {
+            stripes[Long.numberOfTrailingZeros(l)].lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * A part of the nodes, by the hash of the key, and the lock which guards their table and their rows.
+     */
+    private static class Stripe {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final IntObjectMap<Node> nodes = new IntObjectMap<>();
+    }
+
+    /**
+     * The immutable neighbors of a node: neighbor keys (sorted), the edge weights and the neighbor nodes,
+     * it is also the read only collection returned by getV(node_id).
+     */
+    private static class Row extends AbstractCollection<node_info> {
+        private static final Row EMPTY = new Row(new int[0], new double[0], new Node[0]);
+
+        private final int[] keys;
+        private final double[] weights;
+        private final Node[] nodes;
+
+        Row(int[] keys, double[] weights, Node[] nodes) {
+            this.keys = keys;
+            this.weights = weights;
+            this.nodes = nodes;
+        }
+
+        /**
+         * @return int - the position of the key, (-(insertion point) - 1) if it is not in the row
+         */
+        int indexOf(int key) {
+            return Arrays.binarySearch(keys, key);
+        }
+
+        /**
+         * @return Row - a copy of this row with the node inserted at position i
+         */
+        Row with(int i, Node n, double w) {
+            int len = keys.length;
+            int[] k = new int[len + 1];
+            double[] ws = new double[len + 1];
+            Node[] ns = new Node[len + 1];
+            System.arraycopy(keys, 0, k, 0, i);
+            System.arraycopy(weights, 0, ws, 0, i);
+            System.arraycopy(nodes, 0, ns, 0, i);
+            k[i] = n.key;
+            ws[i] = w;
+            ns[i] = n;
+            System.arraycopy(keys, i, k, i + 1, len - i);
+            System.arraycopy(weights, i, ws, i + 1, len - i);
+            System.arraycopy(nodes, i, ns, i + 1, len - i);
+            return new Row(k, ws, ns);
+        }
+
+        /**
+         * @return Row - a copy of this row with the weight at position i changed, the arrays of keys and nodes are shared
+         */
+        Row withWeight(int i, double w) {
+            double[] ws = weights.clone();
+            ws[i] = w;
+            return new Row(keys, ws, nodes);
+        }
+
+        /**
+         * @return Row - a copy of this row without the entry at position i
+         */
+        Row without(int i) {
+            int len = keys.length;
+            if (len == 1) {
+                return EMPTY;
+            }
+            int[] k = new int[len - 1];
+            double[] ws = new double[len - 1];
+            Node[] ns = new Node[len - 1];
+            System.arraycopy(keys, 0, k, 0, i);
+            System.arraycopy(weights, 0, ws, 0, i);
+            System.arraycopy(nodes, 0, ns, 0, i);
+            System.arraycopy(keys, i + 1, k, i, len - i - 1);
+            System.arraycopy(weights, i + 1, ws, i, len - i - 1);
+            System.arraycopy(nodes, i + 1, ns, i, len - i - 1);
+            return new Row(k, ws, ns);
+        }
+
+        @Override
+        public Iterator<node_info> iterator() {
+            return new Iterator<node_info>() {
+                private int p = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return p < nodes.length;
+                }
+
+                @Override
+                public node_info next() {
+                    if (p >= nodes.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return nodes[p++];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Node)) {
+                return false;
+            }
+            int i = indexOf(((Node) o).key);
+            return i >= 0 && nodes[i] == o;
+        }
+    }
+
+    /**
+     * A node of the concurrent graph: the key, the algorithms' tag and info and the current row of its neighbors.
+     */
+    private static class Node implements node_info {
+        private final int key;
+        private volatile double tag;
+        private volatile String info;
+        private volatile Row row = Row.EMPTY;
+
+        Node(int key) {
+            this.key = key;
+        }
+
+        /**
+         * Constructor, copy the values of the given node.
+         * @param n - Node which is copied from.
+         */
+        Node(node_info n) {
+            this.key = n.getKey();
+            this.tag = n.getTag();
+            this.info = n.getInfo();
+        }
+
+        @Override
+        public int getKey() {
+            return this.key;
+        }
+
+        @Override
+        public String getInfo() {
+            return this.info;
+        }
+
+        @Override
+        public void setInfo(String s) {
+            this.info = s;
+        }
+
+        @Override
+        public double getTag() {
+            return this.tag;
+        }
+
+        @Override
+        public void setTag(double t) {
+            this.tag = t;
+        }
+
+        @Override
+        public String toString() {
+            return "" + this.key;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null || obj.getClass() != this.getClass()) {
+                return false;
+            }
+            return this.key == ((Node) obj).key;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(37 + this.key * 17);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a connectivity index which is attached to a WGraph_DS and kept up to date by it
+ * (see WGraph_DS.trackConnectivity), so isConnected and sameComponent are answered in near constant time
+ * instead of scanning the whole graph on every call.
+ * Every node holds a slot in a union-find structure (slots of the same component are in the same set):
+ * a new node gets a new slot and a new edge unions the sets of its two nodes.
+ * A removed edge may split a component, union-find can't undo a union, so a bounded search runs from both ends
+ * of the removed edge, one step at a time from the side which has seen fewer nodes:
+ * if the two searches meet the component did not split, if one of them runs out of nodes it has found the whole
+ * part which broke off, and its nodes move to new slots in a set of their own (the old slots stay behind unused).
+ * Only if both searches pass SPLIT_BUDGET nodes, or the unused slots pile up, the index is marked stale and rebuilt
+ * from the graph on the next query, O(n+v).
+ */
+public class WGraph_Connectivity {
+    private static final int SPLIT_BUDGET = 4096;
+
+    private final WGraph_DS g;
+    private IntIntMap slots;   // node key -> slot
+    private UnionFind sets;
+    private int[] live;        // root slot -> number of nodes of the set (unused slots are not counted)
+    private int used;          // slots handed out
+    private int components;
+    private boolean stale;
+    private int rebuilds;
+
+    /**
+     * Constructor, builds the index of the given graph, O(n+v).
+     * @param g WGraph_DS - the graph, it reports every change to this index
+     */
+    WGraph_Connectivity(WGraph_DS g) {
+        this.g = g;
+        rebuild();
+    }
+
+    /**
+     * return true if and only if all the nodes of the graph are in one component (an empty graph is connected).
+     * @return boolean - true if connected else false
+     */
+    public boolean isConnected() {
+        return componentCount() <= 1;
+    }
+
+    /**
+     * @return int - the number of connected components of the graph
+     */
+    public int componentCount() {
+        refresh();
+        return components;
+    }
+
+    /**
+     * @param a int - a node key
+     * @param b int - a node key
+     * @return boolean - true if both nodes exist and there is a path between them
+     */
+    public boolean sameComponent(int a, int b) {
+        refresh();
+        int sa = slots.get(a);
+        int sb = slots.get(b);
+        return sa >= 0 && sb >= 0 && sets.find(sa) == sets.find(sb);
+    }
+
+    /**
+     * @return int - how many times the index was rebuilt from the whole graph (the first build included)
+     */
+    public int rebuildCount() {
+        return rebuilds;
+    }
+
+    /**
+     * A node was added to the graph.
+     * @param key int - the key of the new node
+     */
+    void nodeAdded(int key) {
+        if (stale) {
+            return;
+        }
+        slots.put(key, newSlot(1));
+        components++;
+    }
+
+    /**
+     * An edge was added to the graph (not called when only the weight of an edge changed).
+     * @param a int - node key
+     * @param b int - node key
+     */
+    void edgeAdded(int a, int b) {
+        if (stale) {
+            return;
+        }
+        union(slots.get(a), slots.get(b));
+    }
+
+    /**
+     * An edge was removed from the graph, the graph no longer has it.
+     * @param a int - node key
+     * @param b int - node key
+     */
+    void edgeRemoved(int a, int b) {
+        if (stale) {
+            return;
+        }
+        if (split(a, b, SPLIT_BUDGET) < 0) {
+            stale = true;
+        }
+    }
+
+    /**
+     * A node and all its edges were removed from the graph.
+     * Its neighbors were connected through it, every neighbor which is still in the set of the node
+     * is checked against one anchor neighbor, when the anchor's part is the one which breaks off the checked
+     * neighbor becomes the anchor. In the end the set holds only the part of the last anchor.
+     * @param key int - the key of the removed node
+     * @param neighbors IntDoubleMap - the neighbors it had (may be null)
+     */
+    void nodeRemoved(int key, IntDoubleMap neighbors) {
+        if (stale) {
+            return;
+        }
+        int root = sets.find(slots.remove(key));
+        checkUnusedSlots();
+        if (--live[root] == 0) { // it was alone in its component
+            components--;
+            return;
+        }
+        int budget = SPLIT_BUDGET;
+        int anchor = -1;
+        for (int i = 0; neighbors != null && i < neighbors.capacity(); i++) {
+            if (!neighbors.isUsed(i)) {
+                continue;
+            }
+            int u = neighbors.keyAt(i);
+            if (sets.find(slots.get(u)) != root) { // broke off with an earlier neighbor
+                continue;
+            }
+            if (anchor == -1) {
+                anchor = u;
+                continue;
+            }
+            int visited = split(anchor, u, budget);
+            if (visited < 0) {
+                stale = true;
+                return;
+            }
+            budget -= visited;
+            if (sets.find(slots.get(anchor)) != root) {
+                anchor = u;
+            }
+        }
+    }
+
+    /**
+     * Finds out if a and b (in the same set) are still connected in the graph, and if not moves the part of the
+     * smaller search to a new set.
+     * @return int - number of nodes visited, -1 if the budget ran out before the answer was known
+     */
+    private int split(int a, int b, int budget) {
+        IntIntMap side = new IntIntMap(); // node key -> 0 (seen from a) or 1 (seen from b)
+        IntList[] seen = {new IntList(), new IntList()}; // the nodes of each side, in BFS order
+        int[] head = new int[2];
+        side.put(a, 0);
+        seen[0].add(a);
+        side.put(b, 1);
+        seen[1].add(b);
+        while (true) {
+            for (int s = 0; s < 2; s++) {
+                if (head[s] == seen[s].size) { // this side is a whole component
+                    moveToNewSet(seen[s]);
+                    return seen[0].size + seen[1].size;
+                }
+            }
+            if (seen[0].size + seen[1].size > budget) {
+                return -1;
+            }
+            int s = seen[0].size <= seen[1].size ? 0 : 1;
+            int x = seen[s].data[head[s]++];
+            IntDoubleMap nx = g.adjacency(x);
+            for (int i = 0; nx != null && i < nx.capacity(); i++) {
+                if (!nx.isUsed(i)) {
+                    continue;
+                }
+                int y = nx.keyAt(i);
+                int t = side.get(y);
+                if (t == 1 - s) { // the searches met
+                    return seen[0].size + seen[1].size;
+                }
+                if (t == -1) {
+                    side.put(y, s);
+                    seen[s].add(y);
+                }
+            }
+        }
+    }
+
+    private void moveToNewSet(IntList part) {
+        int root = sets.find(slots.get(part.data[0]));
+        live[root] -= part.size;
+        int first = newSlot(0);
+        for (int k = 0; k < part.size; k++) {
+            int slot = k == 0 ? first : newSlot(0);
+            slots.put(part.data[k], slot);
+            sets.union(first, slot);
+        }
+        live[sets.find(first)] = part.size;
+        components++;
+        checkUnusedSlots();
+    }
+
+    private void checkUnusedSlots() {
+        if (used > 2 * slots.size() + 64) { // too many unused slots, start over on the next query
+            stale = true;
+        }
+    }
+
+    private void union(int sa, int sb) {
+        int ra = sets.find(sa);
+        int rb = sets.find(sb);
+        if (ra != rb) {
+            int total = live[ra] + live[rb];
+            sets.union(ra, rb);
+            live[sets.find(ra)] = total;
+            components--;
+        }
+    }
+
+    private int newSlot(int count) {
+        if (used == sets.capacity()) {
+            sets.grow(2 * used + 16);
+            live = Arrays.copyOf(live, sets.capacity());
+        }
+        live[used] = count;
+        return used++;
+    }
+
+    private void refresh() {
+        if (stale) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Builds the index from the graph, the slots of the nodes are 0..n-1.
+     */
+    private void rebuild() {
+        int n = g.nodeSize();
+        slots = new IntIntMap(n);
+        sets = new UnionFind(n);
+        live = new int[n];
+        used = 0;
+        components = 0;
+        for (node_info node : g.getV()) {
+            slots.put(node.getKey(), newSlot(1));
+            components++;
+        }
+        for (node_info node : g.getV()) {
+            IntDoubleMap adj = g.adjacency(node.getKey());
+            int sa = slots.get(node.getKey());
+            for (int i = 0; adj != null && i < adj.capacity(); i++) {
+                if (adj.isUsed(i) && adj.keyAt(i) > node.getKey()) { // every edge is seen from both ends
+                    union(sa, slots.get(adj.keyAt(i)));
+                }
+            }
+        }
+        stale = false;
+        rebuilds++;
+    }
+}
@@ -1,21 +1,51 @@
 package ex1.src;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.AbstractCollection;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.function.UnaryOperator;
 
 
 /**
  * This class represents an weighted graph.
  * It should support a large number of nodes (over 10^6, with average degree of 10).
  * The implementation should be based on an efficient compact representation
+ * The nodes are kept in a primitive int keyed map, and the neighbors of every node in a primitive
+ * int -> double map (neighbor key -> weight), so no key or weight is boxed on any call.
+ * Copies of a WGraph_DS share the neighbor maps copy-on-write (see the copy constructor),
+ * snapshot() shares all of the graph with a read only version of it.
+ * Every node also has a dense index, stable while the node is in the graph (see indexOf), so algorithms can keep
+ * their state in flat arrays.
  * @author Alex Baranov
  */
 public class WGraph_DS implements weighted_graph, Serializable {
+    private static final long serialVersionUID = 2396629804981699248L; // the one of the HashMap graph, so its files still load
+    private static final int FIRST_NEIGHBORS = 6; // the first neighbors map of a node has room for this many, skips a resize
+    private static final int SLOT_CHUNK = 1024; // the slot arrays grow by doubling, but never by less than this
+    private static final IntDoubleMap NO_EDGES = new IntDoubleMap(); // shared by the nodes without edges, never changed
+
     private int mc, edgeSize;
-    private final HashMap<Integer, node_info> keys;
-    private final HashMap<Integer, HashMap<node_info, Double>> edges;
+    private IntObjectMap<node_info> keys;
+    private IntObjectMap<IntDoubleMap> edges;
+    private IntIntMap slotOf; // key -> dense index
+    private int[] slotKeys; // dense index -> key, a free index keeps the key of its last node
+    private int[] freeSlots; // the free indexes below slotCount, a stack
+    private int slotCount, freeCount;
+    private transient WGraph_Connectivity connectivity;
+    private transient Object owner; // the neighbor maps owned by this graph are tagged with it, the others are shared
+    private transient boolean shared; // set once a copy or a snapshot shares the maps, before that all are owned, unchecked
+    private transient boolean readOnly, sharedTables; // a snapshot, a graph whose node and neighbor tables a snapshot holds
+    private transient WeakReference<WGraph_DS> lastSnapshot; // the last snapshot, reused while the Mode Count is the same
 
 
     /**
@@ -25,33 +55,68 @@ public class WGraph_DS implements weighted_graph, Serializable {
 
         mc = 0;
         edgeSize = 0;
-        this.keys = new HashMap<>();
-        this.edges = new HashMap<>();
+        this.keys = new IntObjectMap<>();
+        this.edges = new IntObjectMap<>();
+        allocateSlots(0);
+
+    }
 
+    /**
+     * Constructor for a graph which is about to be filled with the given number of nodes,
+     * the node map is allocated at its final size.
+     * @param expectedNodes int - the number of nodes which will be added
+     */
+    WGraph_DS(int expectedNodes) {
+        this.keys = new IntObjectMap<>(expectedNodes);
+        this.edges = new IntObjectMap<>(expectedNodes);
+        allocateSlots(expectedNodes);
     }
 
     /**
      * Copy constructor. Deep copy of a graph
+     * A WGraph_DS is copied with structural sharing: the node and neighbor tables are cloned as arrays (no rehashing)
+     * and every node gets its own copy of the node (tag and info), but the neighbor maps of the nodes are shared
+     * by both graphs. A shared map is copied by the first change which touches it (on either graph),
+     * so the copy costs O(nodes) instead of O(nodes + edges) and the later changes pay only for the nodes they touch.
      * @param g graph - the desired graph to copy
      */
     public WGraph_DS(weighted_graph g) {
-        node_info n1 = new NodeInfo(1);
-        node_info n2 = new NodeInfo(1);
-        this.keys = new HashMap<>();
-        this.edges = new HashMap<>();
+        if (g != null && g.getClass() == WGraph_DS.class) {
+            WGraph_DS ds = (WGraph_DS) g;
+            this.keys = new IntObjectMap<>(ds.keys, NodeInfo::new);
+            this.edges = new IntObjectMap<>(ds.edges, UnaryOperator.identity());
+            this.slotOf = new IntIntMap(ds.slotOf);
+            this.slotKeys = ds.slotKeys.clone();
+            this.freeSlots = ds.freeSlots.clone();
+            this.slotCount = ds.slotCount;
+            this.freeCount = ds.freeCount;
+            this.edgeSize = ds.edgeSize;
+            this.mc = ds.mc;
+            this.owner = new Object();
+            this.shared = true;
+            ds.owner = new Object(); // the maps of g are shared from now on, g copies them too before changing them
+            ds.shared = true;
+            return;
+        }
+        this.keys = new IntObjectMap<>(g == null ? 0 : g.nodeSize());
+        this.edges = new IntObjectMap<>(g == null ? 0 : g.nodeSize());
+        allocateSlots(g == null ? 0 : g.nodeSize());
         if (g != null) {
             for (node_info n : g.getV()) { // loop and create new nodes and copy content from each node
                 node_info a = new NodeInfo(n);
+                takeSlot(a.getKey());
                 this.keys.put(a.getKey(), a);
             }
             for (node_info node : g.getV()) { // loop through the nodes in the graph
-                for (node_info n : g.getV(node.getKey())) { // loop through the neighbors of each node
-                    if (g.hasEdge(node.getKey(), n.getKey())) { // check if already two nodes has an edge
-                        int node1 = node.getKey();
-                        int node2 = n.getKey();
-                        connect(getNode(node1).getKey(), getNode(node2).getKey(), g.getEdge(node1, node2)); // connect an edge with two nodes
-                    }
+                Collection<node_info> ni = g.getV(node.getKey());
+                if (ni.isEmpty()) {
+                    continue;
+                }
+                IntDoubleMap map = new IntDoubleMap(ni.size()); // copy the neighbors of each node, each direction is copied on its own
+                for (node_info n : ni) {
+                    map.put(n.getKey(), g.getEdge(node.getKey(), n.getKey()));
                 }
+                edges.put(node.getKey(), map);
             }
             this.edgeSize = g.edgeSize();
             this.mc = g.getMC();
@@ -78,14 +143,8 @@ public class WGraph_DS implements weighted_graph, Serializable {
      */
     @Override
     public boolean hasEdge(int node1, int node2) {
-        node_info nodeOne = keys.get(node1);
-        node_info nodeTwo = keys.get(node2);
-        if (    nodeOne != null &&
-                nodeTwo != null &&
-                edges.containsKey(node1)){
-            return edges.get(node1).containsKey(nodeTwo);
-        }
-        return false;
+        IntDoubleMap ni = edges.get(node1); // edges only hold nodes which are in the graph
+        return ni != null && ni.containsKey(node2);
     }
 
     /**
@@ -100,12 +159,8 @@ public class WGraph_DS implements weighted_graph, Serializable {
 
     @Override
     public double getEdge(int node1, int node2) {
-        node_info nodeOne = keys.get(node1);
-        node_info nodeTwo = keys.get(node2);
-        if (nodeOne != null && nodeTwo != null && edges.containsKey(node1) && edges.get(node1).containsKey(nodeTwo)) {
-            return edges.get(node1).get(nodeTwo);
-        }
-        return -1;
+        IntDoubleMap ni = edges.get(node1);
+        return ni == null ? -1 : ni.get(node2, -1);
     }
 
     /**
@@ -116,10 +171,16 @@ public class WGraph_DS implements weighted_graph, Serializable {
 
     @Override
     public void addNode(int key) {
+        checkWritable();
         if (!keys.containsKey(key)) {
-            node_info n = new NodeInfo(key);
-            keys.put(key, n);
+            unshareTables();
+            takeSlot(key);
+            keys.put(key, new NodeInfo(key));
+            edges.put(key, NO_EDGES); // holds the place of the node, so the neighbor maps follow the order of the nodes
             mc++;
+            if (connectivity != null) {
+                connectivity.nodeAdded(key);
+            }
         }
     }
 
@@ -135,27 +196,25 @@ public class WGraph_DS implements weighted_graph, Serializable {
 
     @Override
     public void connect(int node1, int node2, double w) {
-        node_info nodeOne = keys.get(node1);
-        node_info nodeTwo = keys.get(node2);
-        if (nodeOne != null && nodeTwo != null && w >= 0 && node1 != node2) {
-            if (!edges.containsKey(node1)) {
-                HashMap<node_info, Double> map = new HashMap<>();
-                edges.put(node1, map);
-            }
-            if (!edges.containsKey(node2)) {
-                HashMap<node_info, Double> map = new HashMap<>();
-                edges.put(node2, map);
-            }
-            if (!edges.get(node1).containsKey(nodeTwo)) {
-                edges.get(node1).put(nodeTwo, w);
-                edges.get(node2).put(nodeOne, w);
-                edgeSize++;
-                mc++;
-            }
-            else if (edges.get(node1).get(nodeTwo) != w){
-                edges.get(node1).replace(nodeTwo, w); // if problems then change replace with put
-                edges.get(node2).replace(nodeOne, w);
-                mc++;
+        checkWritable();
+        if (w >= 0 && node1 != node2) {
+            // every node added by addNode has a neighbors map (NO_EDGES at least), so the node table is only
+            // looked at for a node without one (a graph loaded from an old file)
+            IntDoubleMap n1 = edges.get(node1), n2 = edges.get(node2);
+            if ((n1 != null || keys.containsKey(node1)) && (n2 != null || keys.containsKey(node2))) {
+                double old = neighborsOf(node1, n1).put(node2, w);
+                if (Double.isNaN(old)) { // new edge
+                    neighborsOf(node2, n2).put(node1, w);
+                    edgeSize++;
+                    mc++;
+                    if (connectivity != null) {
+                        connectivity.edgeAdded(node1, node2);
+                    }
+                }
+                else if (old != w) {
+                    neighborsOf(node2, n2).put(node1, w);
+                    mc++;
+                }
             }
         }
     }
@@ -181,11 +240,30 @@ public class WGraph_DS implements weighted_graph, Serializable {
 
     @Override
     public Collection<node_info> getV(int node_id) {
-        if (!edges.containsKey(node_id)) {
-            HashMap<Integer, node_info> map = new HashMap<>();
-            return map.values();
+        IntDoubleMap ni = edges.get(node_id);
+        if (ni == null || ni.size() == 0) {
+            return Collections.emptyList();
+        }
+        return new Neighbors(ni);
+    }
+
+    /**
+     * Calls the visitor with every neighbor of node_id and the weight of the edge, straight from the slots
+     * of the neighbors map: no iterator, no node lookup and no getEdge.
+     * @param node_id int - the node key
+     * @param visitor NeighborVisitor - called once per neighbor
+     */
+    @Override
+    public void forEachNeighbor(int node_id, NeighborVisitor visitor) {
+        IntDoubleMap ni = edges.get(node_id);
+        if (ni == null) {
+            return;
+        }
+        for (int i = 0; i < ni.capacity(); i++) {
+            if (ni.isUsed(i)) {
+                visitor.visit(ni.keyAt(i), ni.valueAt(i));
+            }
         }
-        return edges.get(node_id).keySet();
     }
 
     /**
@@ -198,14 +276,25 @@ public class WGraph_DS implements weighted_graph, Serializable {
 
     @Override
     public node_info removeNode(int key) {
-        node_info node = keys.get(key);
-        if (node != null) {
-            int size = getV(key).size();
-            for (int i = 0; i < size; i++) {
-                removeEdge(key,getV(key).iterator().next().getKey());
+        checkWritable();
+        if (keys.containsKey(key)) {
+            unshareTables();
+            node_info node = keys.remove(key);
+            freeSlot(key);
+            IntDoubleMap ni = edges.remove(key);
+            if (ni != null) {
+                for (int i = 0; i < ni.capacity(); i++) { // remove the other direction of every edge
+                    if (ni.isUsed(i)) {
+                        writable(ni.keyAt(i)).remove(key);
+                    }
+                }
+                edgeSize -= ni.size();
+                mc += ni.size();
             }
-            keys.remove(key);
             mc++;
+            if (connectivity != null) {
+                connectivity.nodeRemoved(key, ni);
+            }
             return node;
         }
         return null;
@@ -220,14 +309,15 @@ public class WGraph_DS implements weighted_graph, Serializable {
 
     @Override
     public void removeEdge(int node1, int node2) {
-        node_info nodeOne = keys.get(node1);
-        node_info nodeTwo = keys.get(node2);
-        if (nodeOne != null && nodeTwo != null) {
-            if (edges.get(node1).containsKey(nodeTwo) && edges.get(node2).containsKey(nodeOne)) {
-                edges.get(node1).remove(nodeTwo);
-                edges.get(node2).remove(nodeOne);
-                edgeSize--;
-                mc++;
+        checkWritable();
+        IntDoubleMap ni = edges.get(node1);
+        if (ni != null && ni.containsKey(node2)) {
+            writable(node1).remove(node2);
+            writable(node2).remove(node1);
+            edgeSize--;
+            mc++;
+            if (connectivity != null) {
+                connectivity.edgeRemoved(node1, node2);
             }
         }
     }
@@ -250,13 +340,22 @@ public class WGraph_DS implements weighted_graph, Serializable {
             return false;
         }
         final WGraph_DS graph = (WGraph_DS) obj;
-        if (this.edgeSize != graph.edgeSize() && this.keys.size() != graph.nodeSize()){
+        if (this.edgeSize != graph.edgeSize() || this.keys.size() != graph.nodeSize()){
             return false;
         }
-        if(this.edgeSize != graph.edgeSize() && this.keys.size() != graph.nodeSize()){
+        if (!keys.equals(graph.keys)) {
             return false;
         }
-        return keys.equals(graph.keys) && edges.equals(graph.edges);
+        for (node_info n : keys.values()) { // a node without edges may or may not have an (empty) neighbors map
+            IntDoubleMap a = edges.get(n.getKey());
+            IntDoubleMap b = graph.edges.get(n.getKey());
+            int sizeA = a == null ? 0 : a.size();
+            int sizeB = b == null ? 0 : b.size();
+            if (sizeA != sizeB || (sizeA > 0 && !a.equals(b))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -299,7 +398,385 @@ public class WGraph_DS implements weighted_graph, Serializable {
      */
     @Override
     public int hashCode(){
-        return Objects.hash(this.keys.values().iterator().next().getKey() * 17 * 37, this.edgeSize, this.mc);
+        return Objects.hash(this.keys.size() * 17 * 37, this.edgeSize);
+    }
+
+    /**
+     * return the dense index of a node. Every node gets an index when it is added and keeps it until it is removed,
+     * the index of a removed node is given to the next node which is added, so the indexes stay in 0..indexBound()-1
+     * and indexBound() is the largest number of nodes the graph had at once (n if no node was ever removed).
+     * Algorithms can keep their state in int[], double[] or BitSet of indexBound() entries instead of in a map by key.
+     * Copies and snapshots keep the indexes of the graph.
+     * @param key int - the node key
+     * @return int - the index of the node, -1 if there is no such node
+     */
+    public int indexOf(int key) {
+        return slotOf.get(key);
+    }
+
+    /**
+     * return the key of the node at a dense index (see indexOf).
+     * @param index int - an index in 0..indexBound()-1
+     * @return int - the key of the node
+     * @throws NoSuchElementException if the index is free (its node was removed and no node took it yet)
+     * @throws IndexOutOfBoundsException if the index is not below indexBound()
+     */
+    public int keyAt(int index) {
+        if (index < 0 || index >= slotCount) {
+            throw new IndexOutOfBoundsException("index " + index + " of " + slotCount);
+        }
+        int key = slotKeys[index];
+        if (slotOf.get(key) != index) {
+            throw new NoSuchElementException("no node at index " + index);
+        }
+        return key;
+    }
+
+    /**
+     * return the node at a dense index (see indexOf).
+     * @param index int - an index in 0..indexBound()-1
+     * @return node_info - the node, null if the index is free
+     * @throws IndexOutOfBoundsException if the index is not below indexBound()
+     */
+    public node_info nodeAt(int index) {
+        if (index < 0 || index >= slotCount) {
+            throw new IndexOutOfBoundsException("index " + index + " of " + slotCount);
+        }
+        int key = slotKeys[index];
+        return slotOf.get(key) == index ? keys.get(key) : null;
+    }
+
+    /**
+     * return the key -> dense index map for NodeIndex, the map itself and not a copy: it must not be changed
+     * and it is changed by the next addNode or removeNode, so a caller which keeps it copies it (see NodeIndex).
+     * @return IntIntMap - node key -> index
+     */
+    IntIntMap slotOf() {
+        return slotOf;
+    }
+
+    /**
+     * return the dense index -> key array for NodeIndex (it may be longer than indexBound()), the array itself and
+     * not a copy: it must not be changed and it is changed by the next addNode or removeNode, so a caller which keeps
+     * it copies it (see NodeIndex).
+     * @return int[] - index -> node key
+     */
+    int[] slotKeys() {
+        return slotKeys;
+    }
+
+    /**
+     * return the size an array indexed by the dense index needs, nodeSize() plus the free indexes (see indexOf).
+     * @return int - one above the largest index
+     */
+    public int indexBound() {
+        return slotCount;
+    }
+
+    /**
+     * Returns a read only version of the graph as it is now (its Mode Count), which stays the same while this graph changes.
+     * Taking it is O(1): the snapshot shares the node table, the neighbor table and the neighbor maps with this graph,
+     * the first change after it clones the two tables and the dense index (as arrays) and every change copies the
+     * neighbor maps it touches, like a copy (see the copy constructor).
+     * The snapshot of a Mode Count is reused until the graph changes.
+     * This graph holds its last snapshot weakly only, so an old version is reclaimed by the garbage collector
+     * (with the maps no later version shares) once no reader holds it.
+     * snapshot() must be called by the thread which changes the graph (or under the same lock as the changes), then
+     * the snapshot can be read by any number of threads while the graph keeps changing, nobody waits for anybody.
+     * The nodes themselves are shared, setTag and setInfo on a node of a snapshot are seen by the graph and the other way round.
+     * All the methods which change a snapshot throw UnsupportedOperationException, a snapshot of a snapshot is itself.
+     * @return WGraph_DS - the version of the current Mode Count
+     */
+    public WGraph_DS snapshot() {
+        if (readOnly) {
+            return this;
+        }
+        WGraph_DS last = lastSnapshot == null ? null : lastSnapshot.get();
+        if (last != null && last.mc == mc) {
+            return last;
+        }
+        WGraph_DS version = new WGraph_DS(0);
+        version.keys = keys;
+        version.edges = edges;
+        version.slotOf = slotOf;
+        version.slotKeys = slotKeys;
+        version.freeSlots = freeSlots;
+        version.slotCount = slotCount;
+        version.freeCount = freeCount;
+        version.edgeSize = edgeSize;
+        version.mc = mc;
+        version.readOnly = true;
+        owner = new Object(); // every map is shared with the snapshot now
+        shared = true;
+        sharedTables = true;
+        lastSnapshot = new WeakReference<>(version);
+        return version;
+    }
+
+    /**
+     * @return boolean - true if this is a snapshot (see snapshot())
+     */
+    public boolean isSnapshot() {
+        return readOnly;
+    }
+
+    /**
+     * Attaches a connectivity index to this graph, or returns the attached one.
+     * The index is updated by every addNode, connect, removeEdge and removeNode of this graph,
+     * so its isConnected and sameComponent don't scan the graph (see WGraph_Connectivity).
+     * Building it is O(n+v), after that every change costs a union-find step (a removed edge a bounded search).
+     * The index is not copied by the copy constructor and not saved with the graph.
+     * @return WGraph_Connectivity - the index of this graph
+     */
+    public WGraph_Connectivity trackConnectivity() {
+        if (connectivity == null) {
+            connectivity = new WGraph_Connectivity(this);
+        }
+        return connectivity;
+    }
+
+    /**
+     * Detaches the connectivity index, the changes of the graph no longer pay for updating it.
+     */
+    public void untrackConnectivity() {
+        connectivity = null;
+    }
+
+    /**
+     * @return WGraph_Connectivity - the attached connectivity index, null if none
+     */
+    WGraph_Connectivity connectivity() {
+        return connectivity;
+    }
+
+    /**
+     * return the adjacency map of a node (neighbor key -> weight) for the algorithms of this package,
+     * it must not be changed.
+     * @param key int - node key
+     * @return IntDoubleMap - the neighbors of the node, empty or null if it has none (null if there is no such node)
+     */
+    IntDoubleMap adjacency(int key) {
+        return edges.get(key);
+    }
+
+    /**
+     * Sets the whole adjacency map of a node while the graph is restored from a file (see GraphFile) or built in bulk (WGraph_Builder),
+     * the map must already hold both directions of every edge, so the other ends are not touched.
+     * @param key int - node key, the node must be in the graph
+     * @param neighbors IntDoubleMap - neighbor key -> weight
+     */
+    void restoreAdjacency(int key, IntDoubleMap neighbors) {
+        if (neighbors.size() > 0) {
+            neighbors.owner = owner;
+            edges.put(key, neighbors);
+        }
+    }
+
+    /**
+     * Sets the edge count and the Mode Count at the end of a restore or a bulk build, so the graph matches the saved
+     * (or the one at a time built) one.
+     * @param edgeSize int - number of edges
+     * @param mc int - Mode Count
+     */
+    void restoreCounts(int edgeSize, int mc) {
+        this.edgeSize = edgeSize;
+        this.mc = mc;
+    }
+
+    /**
+     * Clones the node and neighbor tables before the first change after a snapshot, the snapshot keeps the old ones.
+     */
+    private void unshareTables() {
+        if (sharedTables) {
+            keys = new IntObjectMap<>(keys, UnaryOperator.identity());
+            edges = new IntObjectMap<>(edges, UnaryOperator.identity());
+            slotOf = new IntIntMap(slotOf);
+            slotKeys = slotKeys.clone();
+            freeSlots = freeSlots.clone();
+            sharedTables = false;
+        }
+    }
+
+    private void allocateSlots(int expectedNodes) {
+        slotOf = new IntIntMap(expectedNodes);
+        slotKeys = new int[Math.max(expectedNodes, 4)];
+        freeSlots = new int[4];
+    }
+
+    /**
+     * Gives a new node an index, the last freed one if there is one, else the next one.
+     */
+    private void takeSlot(int key) {
+        int i;
+        if (freeCount > 0) {
+            i = freeSlots[--freeCount];
+        }
+        else {
+            if (slotCount == slotKeys.length) {
+                slotKeys = Arrays.copyOf(slotKeys, Math.max(slotCount * 2, SLOT_CHUNK));
+            }
+            i = slotCount++;
+        }
+        slotOf.put(key, i);
+        slotKeys[i] = key;
+    }
+
+    private void freeSlot(int key) {
+        int i = slotOf.remove(key);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(freeCount * 2, SLOT_CHUNK));
+        }
+        freeSlots[freeCount++] = i;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("a snapshot of WGraph_DS is read only");
+        }
+    }
+
+    /**
+     * return the neighbors map of the given node, creates it if the node has none yet.
+     * @param key int - the node key
+     * @param ni IntDoubleMap - the map of the node in edges, null if it has none
+     * @return IntDoubleMap - neighbor key -> weight
+     */
+    private IntDoubleMap neighborsOf(int key, IntDoubleMap ni) {
+        if (ni == null || ni.size() == 0) { // an empty map may be NO_EDGES, it is replaced and not filled
+            unshareTables();
+            ni = new IntDoubleMap(FIRST_NEIGHBORS);
+            ni.owner = owner;
+            edges.put(key, ni);
+            return ni;
+        }
+        return writable(key, ni);
+    }
+
+    /**
+     * return the neighbors map of the given node for a change, a map which is shared with a copy of the graph
+     * (or with the graph this one was copied from) is replaced by a private copy first.
+     * @param key int - the node key, the node must have a map
+     * @return IntDoubleMap - a map owned by this graph
+     */
+    private IntDoubleMap writable(int key) {
+        return writable(key, edges.get(key));
+    }
+
+    /**
+     * writable(key) for the map of the node which the caller already looked up.
+     */
+    private IntDoubleMap writable(int key, IntDoubleMap ni) {
+        if (shared && ni.owner != owner) {
+            unshareTables();
+            ni = new IntDoubleMap(ni);
+            ni.owner = owner;
+            edges.put(key, ni);
+        }
+        return ni;
+    }
+
+    /**
+     * Reads a graph saved by this class, or by the HashMap based WGraph_DS (it has the same serialVersionUID):
+     * that one saved HashMap<Integer, node_info> keys and HashMap<Integer, HashMap<node_info, Double>> edges,
+     * which are copied into the primitive maps, the nodes keep their tag and info.
+     * Graphs read from one stream may share neighbor maps (a graph and its copy), so none of the maps is owned.
+     * A graph saved before the nodes had dense indexes (the HashMap one) gets them in node order.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        mc = fields.get("mc", 0);
+        edgeSize = fields.get("edgeSize", 0);
+        Object k = fields.get("keys", null), e = fields.get("edges", null);
+        if (k instanceof Map && e instanceof Map) {
+            Map<Integer, node_info> oldKeys = (Map<Integer, node_info>) k;
+            Map<Integer, Map<node_info, Double>> oldEdges = (Map<Integer, Map<node_info, Double>>) e;
+            keys = new IntObjectMap<>(oldKeys.size());
+            for (node_info n : oldKeys.values()) {
+                keys.put(n.getKey(), n);
+            }
+            edges = new IntObjectMap<>(oldEdges.size());
+            for (Map.Entry<Integer, Map<node_info, Double>> node : oldEdges.entrySet()) {
+                if (node.getValue().isEmpty()) {
+                    continue;
+                }
+                IntDoubleMap ni = new IntDoubleMap(node.getValue().size());
+                for (Map.Entry<node_info, Double> edge : node.getValue().entrySet()) {
+                    ni.put(edge.getKey().getKey(), edge.getValue());
+                }
+                edges.put(node.getKey(), ni);
+            }
+        }
+        else if (k instanceof IntObjectMap && e instanceof IntObjectMap) {
+            keys = (IntObjectMap<node_info>) k;
+            edges = (IntObjectMap<IntDoubleMap>) e;
+        }
+        else {
+            throw new InvalidObjectException("not a WGraph_DS: missing node or edge map");
+        }
+        owner = new Object();
+        shared = true;
+        slotOf = (IntIntMap) fields.get("slotOf", null);
+        slotKeys = (int[]) fields.get("slotKeys", null);
+        freeSlots = (int[]) fields.get("freeSlots", null);
+        slotCount = fields.get("slotCount", 0);
+        freeCount = fields.get("freeCount", 0);
+        if (slotOf == null || slotKeys == null || freeSlots == null) {
+            allocateSlots(keys.size());
+            for (node_info n : keys.values()) {
+                takeSlot(n.getKey());
+            }
+        }
+    }
+
+    /**
+     * Collection view of the neighbors of one node, maps every neighbor key to its node.
+     */
+    private class Neighbors extends AbstractCollection<node_info> {
+        private final IntDoubleMap ni;
+
+        Neighbors(IntDoubleMap ni) {
+            this.ni = ni;
+        }
+
+        @Override
+        public Iterator<node_info> iterator() {
+            return new Iterator<node_info>() {
+                private int next = advance(0);
+
+                private int advance(int from) {
+                    while (from < ni.capacity() && !ni.isUsed(from)) {
+                        from++;
+                    }
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < ni.capacity();
+                }
+
+                @Override
+                public node_info next() {
+                    if (next >= ni.capacity()) {
+                        throw new NoSuchElementException();
+                    }
+                    node_info n = keys.get(ni.keyAt(next));
+                    next = advance(next + 1);
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ni.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof node_info && ni.containsKey(((node_info) o).getKey()) && o.equals(keys.get(((node_info) o).getKey()));
+        }
     }
 
     /**
@@ -309,6 +786,8 @@ public class WGraph_DS implements weighted_graph, Serializable {
      */
 
     private static class NodeInfo implements node_info, Serializable {
+        private static final long serialVersionUID = -3145526000083735485L;
+
         private final int key;
         private double tag;
         private String info;
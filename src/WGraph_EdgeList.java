@@ -0,0 +1,491 @@
+package ex1.src;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class imports and exports graphs as text edge lists, one edge per line: "src dst weight".
+ * The values may be separated by spaces, tabs or commas, the weight may be left out (weight 1) and a line with
+ * a single key adds a node without edges. Empty lines and lines which start with '#' or '%' are skipped.
+ * A file which starts with the gzip magic bytes is decompressed while it is read, export compresses
+ * if the file name ends with ".gz".
+ * Import streams the file in chunks of whole lines, every chunk is parsed into a batch of primitive arrays
+ * (no String per line or per value) and the batches are inserted into the graph in file order, with addNode and
+ * connect, so a repeated edge takes the weight of its last line and a self loop only adds its node.
+ * With more than one thread the chunks are parsed in parallel, at most 2 * threads chunks are held at a time,
+ * so the memory used besides the graph itself is bounded by the chunk size, not by the file size.
+ * Export writes every edge once (from its smaller key) and every node without edges on a line of its own,
+ * straight from the graph to the output buffer. Tags and infos are not part of an edge list.
+ */
+public class WGraph_EdgeList {
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+
+    private WGraph_EdgeList() {
+    }
+
+    /**
+     * Reads an edge list into a new graph, parsing on the calling thread.
+     * @param file String - file name, plain text or gzip
+     * @return WGraph_DS - the graph
+     * @throws IOException - if the file can't be read or a line is not valid (the message gives its line number)
+     */
+    public static WGraph_DS read(String file) throws IOException {
+        return read(file, 1);
+    }
+
+    /**
+     * Reads an edge list into a new graph.
+     * @param file String - file name, plain text or gzip
+     * @param threads int - number of threads which parse chunks of the file, 1 parses on the calling thread
+     * @return WGraph_DS - the graph
+     * @throws IOException - if the file can't be read or a line is not valid (the message gives its line number)
+     */
+    public static WGraph_DS read(String file, int threads) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("at least one thread is needed, got " + threads);
+        }
+        WGraph_DS g = new WGraph_DS();
+        try (InputStream in = open(file)) {
+            Chunks chunks = new Chunks(in);
+            long line = 1;
+            if (threads == 1) {
+                for (byte[] chunk = chunks.next(); chunk != null; chunk = chunks.next()) {
+                    line = parse(chunk, chunks.length).insertInto(g, line);
+                }
+                return g;
+            }
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                ArrayDeque<Future<Batch>> pending = new ArrayDeque<>();
+                for (byte[] chunk = chunks.next(); chunk != null; chunk = chunks.next()) {
+                    final byte[] bytes = chunk;
+                    final int length = chunks.length;
+                    pending.add(pool.submit(() -> parse(bytes, length)));
+                    if (pending.size() >= 2 * threads) {
+                        line = take(pending).insertInto(g, line);
+                    }
+                }
+                while (!pending.isEmpty()) {
+                    line = take(pending).insertInto(g, line);
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        return g;
+    }
+
+    /**
+     * Writes the graph as an edge list, replacing the file.
+     * @param g weighted_graph - the graph
+     * @param file String - file name, gzip compressed if it ends with ".gz"
+     * @throws IOException - if the file can't be written
+     */
+    public static void write(weighted_graph g, String file) throws IOException {
+        try (OutputStream fos = Files.newOutputStream(Paths.get(file))) { // closed even if the gzip stream can't be made
+            OutputStream os = file.endsWith(".gz") ? new GZIPOutputStream(fos, 1 << 16) : fos;
+            try (Out out = new Out(os)) {
+                write(g, out);
+            }
+        }
+    }
+
+    private static void write(weighted_graph g, Out out) throws IOException {
+        out.putAscii("# " + g.nodeSize() + " nodes, " + g.edgeSize() + " edges: src dst weight\n");
+        WGraph_DS ds = g instanceof WGraph_DS ? (WGraph_DS) g : null;
+        for (node_info node : g.getV()) {
+            int a = node.getKey();
+            if (ds != null) { // the weights are next to the neighbor keys, no getEdge lookups
+                IntDoubleMap adj = ds.adjacency(a);
+                if (adj == null || adj.size() == 0) {
+                    out.putNode(a);
+                }
+                for (int s = 0; adj != null && s < adj.capacity(); s++) {
+                    if (adj.isUsed(s) && a < adj.keyAt(s)) {
+                        out.putEdge(a, adj.keyAt(s), adj.valueAt(s));
+                    }
+                }
+            } else {
+                boolean isolated = true;
+                for (node_info ni : g.getV(a)) {
+                    isolated = false;
+                    if (a < ni.getKey()) {
+                        out.putEdge(a, ni.getKey(), g.getEdge(a, ni.getKey()));
+                    }
+                }
+                if (isolated) {
+                    out.putNode(a);
+                }
+            }
+        }
+    }
+
+    private static InputStream open(String file) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(Files.newInputStream(Paths.get(file)), 1 << 16);
+        try {
+            in.mark(2);
+            int b0 = in.read();
+            int b1 = in.read();
+            in.reset();
+            if (b0 == 0x1f && b1 == 0x8b) {
+                return new GZIPInputStream(in, 1 << 16);
+            }
+            return in;
+        } catch (IOException | RuntimeException e) { // a broken gzip header, the file is closed before the error is passed on
+            in.close();
+            throw e;
+        }
+    }
+
+    private static Batch take(ArrayDeque<Future<Batch>> pending) throws IOException {
+        try {
+            return pending.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("edge list import was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("edge list import failed", e.getCause());
+        }
+    }
+
+    /**
+     * Parses a chunk of whole lines, stops at the first line which is not valid.
+     * @param buf byte[] - the chunk
+     * @param end int - the length of the chunk
+     * @return Batch - the nodes and edges of the chunk
+     */
+    private static Batch parse(byte[] buf, int end) {
+        Batch batch = new Batch(Math.max(16, end / 16));
+        int p = 0;
+        while (p < end) {
+            int eol = p;
+            while (eol < end && buf[eol] != '\n') {
+                eol++;
+            }
+            String error = parseLine(buf, p, eol, batch);
+            if (error != null) {
+                batch.error = error;
+                return batch;
+            }
+            batch.lines++;
+            p = eol + 1;
+        }
+        return batch;
+    }
+
+    /**
+     * Parses one line into the batch.
+     * @return String - null if the line is valid, otherwise what is wrong with it
+     */
+    private static String parseLine(byte[] buf, int p, int end, Batch batch) {
+        p = skipSeparators(buf, p, end);
+        if (p == end || buf[p] == '#' || buf[p] == '%') {
+            return null;
+        }
+        long[] value = batch.value;
+        int q = parseInt(buf, p, end, value);
+        if (q < 0) {
+            return "bad node key";
+        }
+        int src = (int) value[0];
+        p = skipSeparators(buf, q, end);
+        if (p == end) {
+            batch.add(src, src, Double.NaN);
+            return null;
+        }
+        q = parseInt(buf, p, end, value);
+        if (q < 0) {
+            return "bad node key";
+        }
+        int dst = (int) value[0];
+        p = skipSeparators(buf, q, end);
+        double w = 1;
+        if (p < end) {
+            q = p;
+            while (q < end && !isSeparator(buf[q])) {
+                q++;
+            }
+            w = parseWeight(buf, p, q);
+            if (!(w >= 0)) {
+                return Double.isNaN(w) ? "bad weight" : "negative weight";
+            }
+            if (skipSeparators(buf, q, end) != end) {
+                return "more than three values";
+            }
+        }
+        batch.add(src, dst, w);
+        return null;
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == ',' || b == '\r';
+    }
+
+    private static int skipSeparators(byte[] buf, int p, int end) {
+        while (p < end && isSeparator(buf[p])) {
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * Parses an int at buf[p..end).
+     * @param value long[] - receives the value in value[0]
+     * @return int - the position after the number, -1 if there is no valid int there
+     */
+    private static int parseInt(byte[] buf, int p, int end, long[] value) {
+        boolean negative = p < end && buf[p] == '-';
+        if (negative) {
+            p++;
+        }
+        int start = p;
+        long v = 0;
+        while (p < end && buf[p] >= '0' && buf[p] <= '9') {
+            v = v * 10 + (buf[p++] - '0');
+            if (v > (long) Integer.MAX_VALUE + 1) {
+                return -1;
+            }
+        }
+        if (p == start || (p < end && !isSeparator(buf[p])) || v > (negative ? (long) Integer.MAX_VALUE + 1 : Integer.MAX_VALUE)) {
+            return -1;
+        }
+        value[0] = negative ? -v : v;
+        return p;
+    }
+
+    /**
+     * Parses a weight at buf[p..end). Plain decimals of up to 15 digits are computed as digits / 10^k,
+     * one correctly rounded division of two exact doubles, which is the value Double.parseDouble gives.
+     * Everything else (exponents, signs, longer numbers, "Infinity") goes through Double.parseDouble.
+     * @return double - the weight, NaN if it is not a number
+     */
+    private static double parseWeight(byte[] buf, int p, int end) {
+        long digits = 0;
+        int count = 0, fraction = -1;
+        for (int i = p; i < end; i++) {
+            byte b = buf[i];
+            if (b >= '0' && b <= '9' && count < 15) {
+                digits = digits * 10 + (b - '0');
+                count++;
+                if (fraction >= 0) {
+                    fraction++;
+                }
+            } else if (b == '.' && fraction < 0) {
+                fraction = 0;
+            } else {
+                try {
+                    return Double.parseDouble(new String(buf, p, end - p, StandardCharsets.ISO_8859_1));
+                } catch (NumberFormatException e) {
+                    return Double.NaN;
+                }
+            }
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        return fraction <= 0 ? digits : digits / POWERS_OF_TEN[fraction];
+    }
+
+    /**
+     * The nodes and edges parsed from one chunk, in file order. A NaN weight marks a line with a single key.
+     */
+    private static class Batch {
+        final long[] value = new long[1]; // parse buffer
+        int[] src, dst;
+        double[] weight;
+        int size, lines;
+        String error; // what is wrong with line lines + 1 of the chunk, null if all the chunk is valid
+
+        Batch(int capacity) {
+            src = new int[capacity];
+            dst = new int[capacity];
+            weight = new double[capacity];
+        }
+
+        void add(int a, int b, double w) {
+            if (size == src.length) {
+                src = Arrays.copyOf(src, size * 2);
+                dst = Arrays.copyOf(dst, size * 2);
+                weight = Arrays.copyOf(weight, size * 2);
+            }
+            src[size] = a;
+            dst[size] = b;
+            weight[size++] = w;
+        }
+
+        /**
+         * Inserts the batch into the graph.
+         * @param g WGraph_DS - the graph
+         * @param line long - the line number of the first line of the chunk
+         * @return long - the line number of the first line of the next chunk
+         * @throws IOException - if the chunk has a line which is not valid
+         */
+        long insertInto(WGraph_DS g, long line) throws IOException {
+            for (int i = 0; i < size; i++) {
+                g.addNode(src[i]);
+                if (!Double.isNaN(weight[i])) {
+                    g.addNode(dst[i]);
+                    g.connect(src[i], dst[i], weight[i]);
+                }
+            }
+            if (error != null) {
+                throw new IOException("line " + (line + lines) + ": " + error);
+            }
+            return line + lines;
+        }
+    }
+
+    /**
+     * Reads the stream in chunks of whole lines, a chunk grows only if a single line is longer than it.
+     */
+    private static class Chunks {
+        private final InputStream in;
+        private byte[] carry = new byte[0];
+        private int carried;
+        private boolean eof;
+        int length; // the length of the last chunk
+
+        Chunks(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * @return byte[] - a new array which starts with the next lines (its first length bytes), null at the end
+         */
+        byte[] next() throws IOException {
+            if (eof && carried == 0) {
+                return null;
+            }
+            byte[] buf = new byte[Math.max(CHUNK_SIZE, carried * 2)];
+            System.arraycopy(carry, 0, buf, 0, carried);
+            int filled = carried;
+            while (!eof && filled < buf.length) {
+                int r = in.read(buf, filled, buf.length - filled);
+                if (r < 0) {
+                    eof = true;
+                } else {
+                    filled += r;
+                }
+            }
+            int cut = filled;
+            if (!eof) {
+                cut = lastNewline(buf, filled);
+                if (cut == 0) { // a single line fills the whole buffer
+                    carry = buf;
+                    carried = filled;
+                    return next();
+                }
+            }
+            carry = Arrays.copyOfRange(buf, cut, filled);
+            carried = filled - cut;
+            length = cut;
+            return buf;
+        }
+
+        private static int lastNewline(byte[] buf, int filled) {
+            for (int i = filled - 1; i >= 0; i--) {
+                if (buf[i] == '\n') {
+                    return i + 1;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Buffered ASCII writer, the numbers are formatted straight into the buffer.
+     */
+    private static class Out implements AutoCloseable {
+        private final OutputStream os;
+        private final byte[] buf = new byte[1 << 16];
+        private int pos;
+
+        Out(OutputStream os) {
+            this.os = os;
+        }
+
+        void putNode(int a) throws IOException {
+            putInt(a);
+            putByte('\n');
+        }
+
+        void putEdge(int a, int b, double w) throws IOException {
+            putInt(a);
+            putByte(' ');
+            putInt(b);
+            putByte(' ');
+            if (w == Math.rint(w) && w < 1e15) { // whole weights are written without ".0"
+                putLong((long) w);
+            } else {
+                putAscii(Double.toString(w)); // the shortest string which reads back as w
+            }
+            putByte('\n');
+        }
+
+        void putAscii(String s) throws IOException {
+            for (int i = 0; i < s.length(); i++) {
+                putByte(s.charAt(i));
+            }
+        }
+
+        private void putInt(int x) throws IOException {
+            putLong(x);
+        }
+
+        private void putLong(long x) throws IOException {
+            if (pos + 20 > buf.length) {
+                flush();
+            }
+            if (x < 0) {
+                buf[pos++] = '-';
+                x = -x;
+            }
+            int start = pos;
+            do {
+                buf[pos++] = (byte) ('0' + x % 10);
+                x /= 10;
+            } while (x > 0);
+            for (int i = start, j = pos - 1; i < j; i++, j--) {
+                byte t = buf[i];
+                buf[i] = buf[j];
+                buf[j] = t;
+            }
+        }
+
+        private void putByte(int b) throws IOException {
+            if (pos == buf.length) {
+                flush();
+            }
+            buf[pos++] = (byte) b;
+        }
+
+        private void flush() throws IOException {
+            os.write(buf, 0, pos);
+            pos = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                os.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package ex1.src;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * This class represents an immutable weighted graph which is served directly from a memory mapped graph file
+ * (the format written by WGraph_Algo.save, see GraphFile).
+ * Opening the graph only reads the 32 byte header and maps the blocks of the file read-only, no node or edge is
+ * copied to the heap: the keys, offsets, neighbors and weights are read in place, the operating system pages them in
+ * on first use and several processes which map the same file share one copy of it in the page cache.
+ * The keys are sorted and every row is sorted by neighbor index, so getNode is a binary search over the keys,
+ * O(log(n)), and hasEdge/getEdge are a binary search within the row, O(log(n) + log(k)).
+ * The nodes are small views (the graph and an index) created on demand, two views of the same node are equal.
+ * Tags and infos can still be set (the algorithms use them), the changed values are kept in small heap maps
+ * in front of the file, the file itself is never written.
+ * All the methods which change the graph throw UnsupportedOperationException.
+ * Every block of the file is mapped on its own, so a single block (e.g. the 8 * 2 * edgeSize() bytes of the weights)
+ * can't exceed 2GB, about 134M edges.
+ */
+public class WGraph_Mapped implements weighted_graph {
+    private static final String NULL_INFO = new String(); // marks an info which was set to null
+
+    private final int n, edgeSize, mc;
+    private final IntBuffer keys;
+    private final DoubleBuffer tags;
+    private final IntBuffer offsets;
+    private final IntBuffer neighbors;
+    private final DoubleBuffer weights;
+    private final ByteBuffer infoOffsets;
+    private final ByteBuffer infoFlags;
+    private final ByteBuffer infoBytes;
+    private final IntObjectMap<Double> tagChanges = new IntObjectMap<>();
+    private final IntObjectMap<String> infoChanges = new IntObjectMap<>();
+    private Collection<node_info> nodesView;
+
+    /**
+     * Maps the given graph file, O(1): only the header is read.
+     * @param file String - a graph file written by WGraph_Algo.save
+     * @throws IOException - if the file can't be read, is not a graph file or a block is over 2GB
+     */
+    public WGraph_Mapped(String file) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < GraphFile.HEADER_SIZE) {
+                throw new IOException("not a graph file: " + file);
+            }
+            GraphFile.Layout layout = new GraphFile.Layout(map(ch, 0, GraphFile.HEADER_SIZE), size);
+            this.n = layout.n;
+            this.edgeSize = (int) layout.edges;
+            this.mc = layout.mc;
+            this.keys = map(ch, layout.keys, 4L * n).asIntBuffer();
+            this.tags = map(ch, layout.tags, 8L * n).asDoubleBuffer();
+            this.offsets = map(ch, layout.offsets, 4L * (n + 1)).asIntBuffer();
+            this.neighbors = map(ch, layout.targets, 4 * layout.half).asIntBuffer();
+            this.weights = map(ch, layout.weights, 8 * layout.half).asDoubleBuffer();
+            this.infoOffsets = map(ch, layout.infoOffsets, 8L * (n + 1));
+            this.infoFlags = map(ch, layout.infoFlags, n);
+            this.infoBytes = map(ch, layout.infoBytes, size - layout.infoBytes);
+        } // the mappings stay valid after the channel is closed
+        if (n > 0 && offsets.get(n) != 2L * edgeSize) {
+            throw new IOException("corrupt graph file offsets: " + file);
+        }
+    }
+
+    /**
+     * return the dense index (0..n-1) of the node with the given key, its position in the sorted keys.
+     * @param key - the node key
+     * @return int - the index of the node, or -1 if there is no such node.
+     */
+    public int indexOf(int key) {
+        int lo = 0, hi = n - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int k = keys.get(mid);
+            if (k < key) {
+                lo = mid + 1;
+            } else if (k > key) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * return the key of the node with the given dense index.
+     * @param index - a dense index in the range 0..nodeSize()-1
+     * @return int - the key of the node
+     */
+    public int keyAt(int index) {
+        return keys.get(index);
+    }
+
+    /**
+     * return the node_data by the key, O(log(n)).
+     * @param key the node key
+     * @return the node_info by the key, null if none.
+     */
+    @Override
+    public node_info getNode(int key) {
+        int idx = indexOf(key);
+        return idx < 0 ? null : new Node(idx);
+    }
+
+    /**
+     * return true if and only if there is an edge between node1 and node2,
+     * O(log(n) + log(k)), k being the degree of node1.
+     * @param node1 int , node with key 1
+     * @param node2 int , node with key 2
+     * @return boolean true if nodes are connected else false.
+     */
+    @Override
+    public boolean hasEdge(int node1, int node2) {
+        return edgePosition(node1, node2) >= 0;
+    }
+
+    /**
+     * return the value of the edge which is connection node1 and node2
+     * return -1 if no edge
+     * @param node1 - key of node 1
+     * @param node2 - key of node 2
+     * @return double - weight of the edge connecting the two nodes
+     */
+    @Override
+    public double getEdge(int node1, int node2) {
+        int p = edgePosition(node1, node2);
+        return p < 0 ? -1 : weights.get(p);
+    }
+
+    /**
+     * Not supported, the mapped graph is immutable.
+     */
+    @Override
+    public void addNode(int key) {
+        throw new UnsupportedOperationException("WGraph_Mapped is immutable");
+    }
+
+    /**
+     * Not supported, the mapped graph is immutable.
+     */
+    @Override
+    public void connect(int node1, int node2, double w) {
+        throw new UnsupportedOperationException("WGraph_Mapped is immutable");
+    }
+
+    /**
+     * This method return a view of all the nodes in the graph (ordered by key).
+     * @return Collection<node_info> - all the nodes in the graph
+     */
+    @Override
+    public Collection<node_info> getV() {
+        if (nodesView == null) {
+            nodesView = new Nodes(0, n, false);
+        }
+        return nodesView;
+    }
+
+    /**
+     * This method returns a view of all the nodes connected to node_id (ordered by key),
+     * nothing is copied.
+     * @return Collection<node_info> - the neighbors of node_id
+     */
+    @Override
+    public Collection<node_info> getV(int node_id) {
+        int idx = indexOf(node_id);
+        if (idx < 0) {
+            return Collections.emptyList();
+        }
+        return new Nodes(offsets.get(idx), offsets.get(idx + 1), true);
+    }
+
+    /**
+     * Calls the visitor with every neighbor of node_id and the weight of the edge, read from the row in the file.
+     * @param node_id int - the node key
+     * @param visitor NeighborVisitor - called once per neighbor
+     */
+    @Override
+    public void forEachNeighbor(int node_id, NeighborVisitor visitor) {
+        int idx = indexOf(node_id);
+        if (idx < 0) {
+            return;
+        }
+        for (int p = offsets.get(idx), end = offsets.get(idx + 1); p < end; p++) {
+            visitor.visit(keys.get(neighbors.get(p)), weights.get(p));
+        }
+    }
+
+    /**
+     * Not supported, the mapped graph is immutable.
+     */
+    @Override
+    public node_info removeNode(int key) {
+        throw new UnsupportedOperationException("WGraph_Mapped is immutable");
+    }
+
+    /**
+     * Not supported, the mapped graph is immutable.
+     */
+    @Override
+    public void removeEdge(int node1, int node2) {
+        throw new UnsupportedOperationException("WGraph_Mapped is immutable");
+    }
+
+    /**
+     * return the number of nodes in the graph.
+     * @return int - number of nodes.
+     */
+    @Override
+    public int nodeSize() {
+        return n;
+    }
+
+    /**
+     * return the number of edges in the graph.
+     * @return int - number of edges
+     */
+    @Override
+    public int edgeSize() {
+        return edgeSize;
+    }
+
+    /**
+     * return the Mode Count of the graph when it was saved.
+     * @return int - number of changed in the graph.
+     */
+    @Override
+    public int getMC() {
+        return mc;
+    }
+
+    /**
+     * Equals method, two mapped graphs are equal if they have the same nodes, edges and weights.
+     * @param obj The graph you wish to compare it to,
+     * @return boolean true if both graphs are the same.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null || obj.getClass() != this.getClass()) {
+            return false;
+        }
+        final WGraph_Mapped graph = (WGraph_Mapped) obj;
+        return this.edgeSize == graph.edgeSize &&
+                keys.equals(graph.keys) &&
+                offsets.equals(graph.offsets) &&
+                neighbors.equals(graph.neighbors) &&
+                weights.equals(graph.weights);
+    }
+
+    /**
+     * Overrides the hashCode method, a must if equals method is overridden.
+     * @return int - new hashCode.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(keys.hashCode(), this.n, this.edgeSize);
+    }
+
+    /**
+     * return the first position of the row of a node in the neighbors block, for the algorithms of this package.
+     * The row of index i ends where the row of index i+1 starts.
+     * @param index int - a node index, 0..nodeSize() (nodeSize() gives the end of the last row)
+     * @return int - position in the neighbors block
+     */
+    int rowStart(int index) {
+        return offsets.get(index);
+    }
+
+    /**
+     * @param position int - a position in the neighbors block
+     * @return int - the index of the neighbor stored there
+     */
+    int neighborAt(int position) {
+        return neighbors.get(position);
+    }
+
+    /**
+     * Finds the position of the edge node1-node2 in the neighbors block.
+     * @param node1 - key of node 1
+     * @param node2 - key of node 2
+     * @return int - the position, negative if there is no such edge
+     */
+    private int edgePosition(int node1, int node2) {
+        int i = indexOf(node1);
+        int j = indexOf(node2);
+        if (i < 0 || j < 0) {
+            return -1;
+        }
+        int lo = offsets.get(i), hi = offsets.get(i + 1) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int nb = neighbors.get(mid);
+            if (nb < j) {
+                lo = mid + 1;
+            } else if (nb > j) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static ByteBuffer map(FileChannel ch, long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("graph file block over 2GB, it can't be mapped");
+        }
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, position, size);
+        return buf.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Read only collection view of a range of nodes: either indices from..to-1 (all the nodes)
+     * or the indices stored in neighbors[from..to) (a row).
+     */
+    private class Nodes extends AbstractCollection<node_info> {
+        private final int from, to;
+        private final boolean row;
+
+        Nodes(int from, int to, boolean row) {
+            this.from = from;
+            this.to = to;
+            this.row = row;
+        }
+
+        @Override
+        public Iterator<node_info> iterator() {
+            return new Iterator<node_info>() {
+                private int p = from;
+
+                @Override
+                public boolean hasNext() {
+                    return p < to;
+                }
+
+                @Override
+                public node_info next() {
+                    if (p >= to) {
+                        throw new NoSuchElementException();
+                    }
+                    int idx = row ? neighbors.get(p) : p;
+                    p++;
+                    return new Node(idx);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    /**
+     * A node of the mapped graph, a view of one index of the file.
+     */
+    private class Node implements node_info {
+        private final int index;
+
+        Node(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int getKey() {
+            return keys.get(index);
+        }
+
+        @Override
+        public String getInfo() {
+            String changed = infoChanges.get(index);
+            if (changed != null) {
+                return changed == NULL_INFO ? null : changed;
+            }
+            if (infoFlags.get(index) == 0) {
+                return null;
+            }
+            int start = (int) infoOffsets.getLong(8 * index);
+            int end = (int) infoOffsets.getLong(8 * (index + 1));
+            byte[] bytes = new byte[end - start];
+            infoBytes.get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void setInfo(String s) {
+            infoChanges.put(index, s == null ? NULL_INFO : s);
+        }
+
+        @Override
+        public double getTag() {
+            Double changed = tagChanges.get(index);
+            return changed != null ? changed : tags.get(index);
+        }
+
+        @Override
+        public void setTag(double t) {
+            tagChanges.put(index, t);
+        }
+
+        @Override
+        public String toString() {
+            return "" + getKey();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null || obj.getClass() != this.getClass()) {
+                return false;
+            }
+            return this.index == ((Node) obj).index && graph() == ((Node) obj).graph();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(37 + getKey() * 17);
+        }
+
+        private WGraph_Mapped graph() {
+            return WGraph_Mapped.this;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package ex1.src;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents a query listener which aggregates the cost of the queries of WGraph_Algo:
+ * a latency histogram per query type (count, mean, percentiles and max) and the search totals
+ * (settled nodes, relaxed edges, heap pushes and pops, reset time) and the number of answers from a path cache.
+ * register(name) publishes it as an MXBean, so it can be watched with JConsole or any JMX client.
+ * The histogram has 8 buckets per power of two of nanoseconds, so a percentile is at most 12.5% above the true value.
+ * All the updates are lock free, one instance can listen to many WGraph_Algo and WGraph_ConcurrentAlgo objects.
+ */
+public class WGraph_Metrics implements WGraph_QueryListener, WGraph_MetricsMXBean {
+    private final Histogram[] latency = new Histogram[Query.values().length];
+    private final LongAdder settled = new LongAdder(), relaxed = new LongAdder(), pushes = new LongAdder(),
+            pops = new LongAdder(), resetNanos = new LongAdder(), cacheHits = new LongAdder();
+    private ObjectName name;
+
+    /**
+     * Default constructor
+     */
+    public WGraph_Metrics() {
+        for (int i = 0; i < latency.length; i++) {
+            latency[i] = new Histogram();
+        }
+    }
+
+    @Override
+    public void queryDone(Stats stats) {
+        latency[stats.getQuery().ordinal()].record(stats.getElapsedNanos());
+        settled.add(stats.getNodesSettled());
+        relaxed.add(stats.getEdgesRelaxed());
+        pushes.add(stats.getHeapPushes());
+        pops.add(stats.getHeapPops());
+        resetNanos.add(stats.getResetNanos());
+        if (stats.isCached()) {
+            cacheHits.increment();
+        }
+    }
+
+    /**
+     * Registers this object in the platform MBean server as "ex1.src:type=WGraph_Metrics,name=" + name.
+     * @param name String - the name which tells it from the other metrics of the process
+     * @return ObjectName - the name it was registered under
+     * @throws JMException if the name is taken or not valid
+     */
+    public synchronized ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("ex1.src:type=WGraph_Metrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        this.name = objectName;
+        return objectName;
+    }
+
+    /**
+     * Removes this object from the platform MBean server, if it was registered.
+     * @throws JMException if it can't be removed
+     */
+    public synchronized void unregister() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (name != null && server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        name = null;
+    }
+
+    /**
+     * @param query Query - a query type
+     * @return Latency - the latency of the queries of the type since the last reset
+     */
+    public Latency latency(Query query) {
+        return latency[query.ordinal()].summary();
+    }
+
+    @Override
+    public Latency getShortestPathDistLatency() {
+        return latency(Query.SHORTEST_PATH_DIST);
+    }
+
+    @Override
+    public Latency getShortestPathLatency() {
+        return latency(Query.SHORTEST_PATH);
+    }
+
+    @Override
+    public Latency getIsConnectedLatency() {
+        return latency(Query.IS_CONNECTED);
+    }
+
+    @Override
+    public long getNodesSettled() {
+        return settled.sum();
+    }
+
+    @Override
+    public long getEdgesRelaxed() {
+        return relaxed.sum();
+    }
+
+    @Override
+    public long getHeapPushes() {
+        return pushes.sum();
+    }
+
+    @Override
+    public long getHeapPops() {
+        return pops.sum();
+    }
+
+    @Override
+    public long getResetNanos() {
+        return resetNanos.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public void reset() {
+        for (Histogram h : latency) {
+            h.reset();
+        }
+        settled.reset();
+        relaxed.reset();
+        pushes.reset();
+        pops.reset();
+        resetNanos.reset();
+        cacheHits.reset();
+    }
+
+    /**
+     * A latency summary: the number of queries, the mean and the 50th, 90th, 99th percentiles and max, in microseconds.
+     */
+    public static class Latency {
+        private final long count;
+        private final double meanMicros, p50Micros, p90Micros, p99Micros, maxMicros;
+
+        /**
+         * Constructor
+         * @param count long - number of queries
+         * @param meanMicros double - mean latency
+         * @param p50Micros double - median latency
+         * @param p90Micros double - 90th percentile
+         * @param p99Micros double - 99th percentile
+         * @param maxMicros double - max latency
+         */
+        public Latency(long count, double meanMicros, double p50Micros, double p90Micros, double p99Micros, double maxMicros) {
+            this.count = count;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p90Micros = p90Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        /**
+         * Rebuilds a summary from its JMX form (used by MXBean proxies).
+         * @param data CompositeData - the JMX form
+         * @return Latency - the summary
+         */
+        public static Latency from(CompositeData data) {
+            return new Latency((Long) data.get("count"), (Double) data.get("meanMicros"), (Double) data.get("p50Micros"),
+                    (Double) data.get("p90Micros"), (Double) data.get("p99Micros"), (Double) data.get("maxMicros"));
+        }
+
+        /**
+         * @return long - the number of queries
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return double - the mean latency
+         */
+        public double getMeanMicros() {
+            return meanMicros;
+        }
+
+        /**
+         * @return double - the median latency
+         */
+        public double getP50Micros() {
+            return p50Micros;
+        }
+
+        /**
+         * @return double - the 90th percentile
+         */
+        public double getP90Micros() {
+            return p90Micros;
+        }
+
+        /**
+         * @return double - the 99th percentile
+         */
+        public double getP99Micros() {
+            return p99Micros;
+        }
+
+        /**
+         * @return double - the max latency
+         */
+        public double getMaxMicros() {
+            return maxMicros;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d queries, mean %.1fus, p50 %.1fus, p90 %.1fus, p99 %.1fus, max %.1fus",
+                    count, meanMicros, p50Micros, p90Micros, p99Micros, maxMicros);
+        }
+    }
+
+    /**
+     * Log-linear histogram of nanosecond values: the values below 8 have their own buckets,
+     * above that every power of two is split into 8 equal buckets.
+     */
+    private static class Histogram {
+        private static final int SUB_BITS = 3, SUB = 1 << SUB_BITS;
+
+        private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BITS + 1) * SUB);
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            counts.incrementAndGet(bucket(Math.max(0, nanos)));
+            total.add(nanos);
+            max.accumulate(nanos);
+        }
+
+        void reset() {
+            for (int i = 0; i < counts.length(); i++) {
+                counts.set(i, 0);
+            }
+            total.reset();
+            max.reset();
+        }
+
+        Latency summary() {
+            long[] c = new long[counts.length()];
+            long n = 0;
+            for (int i = 0; i < c.length; i++) {
+                c[i] = counts.get(i);
+                n += c[i];
+            }
+            if (n == 0) {
+                return new Latency(0, 0, 0, 0, 0, 0);
+            }
+            double top = max.get() / 1000.0;
+            return new Latency(n, total.sum() / 1000.0 / n, Math.min(top, percentile(c, n, 0.5)),
+                    Math.min(top, percentile(c, n, 0.9)), Math.min(top, percentile(c, n, 0.99)), top);
+        }
+
+        /**
+         * @return double - the upper bound (in microseconds) of the bucket which holds the p-th fraction of the values
+         */
+        private static double percentile(long[] c, long n, double p) {
+            long rank = (long) Math.ceil(p * n);
+            long seen = 0;
+            for (int i = 0; i < c.length; i++) {
+                seen += c[i];
+                if (seen >= rank) {
+                    return (i + 1 < c.length ? lowest(i + 1) - 1 : Long.MAX_VALUE) / 1000.0;
+                }
+            }
+            return Long.MAX_VALUE / 1000.0;
+        }
+
+        private static int bucket(long v) {
+            if (v < SUB) {
+                return (int) v;
+            }
+            int e = 63 - Long.numberOfLeadingZeros(v); // v is in [2^e, 2^(e+1)), e >= SUB_BITS
+            int sub = (int) (v >>> (e - SUB_BITS)) & (SUB - 1);
+            return (e - SUB_BITS + 1) * SUB + sub;
+        }
+
+        /**
+         * @return long - the smallest value of the bucket
+         */
+        private static long lowest(int bucket) {
+            if (bucket < SUB) {
+                return bucket;
+            }
+            int e = bucket / SUB + SUB_BITS - 1;
+            return (long) (SUB + bucket % SUB) << (e - SUB_BITS);
+        }
+    }
+}
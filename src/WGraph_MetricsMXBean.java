@@ -0,0 +1,58 @@
+package ex1.src;
+
+/**
+ * The JMX view of WGraph_Metrics (see WGraph_Metrics.register): the latency of every query type
+ * and the search totals since the last reset. JConsole shows every Latency as a composite value.
+ */
+public interface WGraph_MetricsMXBean {
+
+    /**
+     * @return WGraph_Metrics.Latency - the latency of shortestPathDist
+     */
+    WGraph_Metrics.Latency getShortestPathDistLatency();
+
+    /**
+     * @return WGraph_Metrics.Latency - the latency of shortestPath
+     */
+    WGraph_Metrics.Latency getShortestPathLatency();
+
+    /**
+     * @return WGraph_Metrics.Latency - the latency of isConnected
+     */
+    WGraph_Metrics.Latency getIsConnectedLatency();
+
+    /**
+     * @return long - the nodes settled by all the queries
+     */
+    long getNodesSettled();
+
+    /**
+     * @return long - the edges relaxed by all the queries
+     */
+    long getEdgesRelaxed();
+
+    /**
+     * @return long - the heap pushes of all the queries
+     */
+    long getHeapPushes();
+
+    /**
+     * @return long - the heap pops of all the queries
+     */
+    long getHeapPops();
+
+    /**
+     * @return long - the time all the queries spent resetting their search state, in nanoseconds
+     */
+    long getResetNanos();
+
+    /**
+     * @return long - the queries answered by a path cache, without a search
+     */
+    long getCacheHits();
+
+    /**
+     * Zeroes all the counters and histograms.
+     */
+    void reset();
+}
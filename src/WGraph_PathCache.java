@@ -0,0 +1,289 @@
+package ex1.src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents a bounded cache of shortest path results which WGraph_Algo consults before it searches
+ * (see WGraph_Algo.setCache). It holds two least recently used maps:
+ * pairs - the distance (and the path, once it was asked for) of a (src, dest) pair, a pair and its reverse share
+ * an entry since the graph is undirected.
+ * trees - the whole single-source shortest path tree (distance and predecessor of every node) of a source,
+ * built with one full Dijkstra the second time the source misses in the pair map, after that it answers any
+ * destination of that source (or any source of that destination) without searching.
+ * Every entry belongs to one graph and one Mode Count (getMC()), the first lookup after the graph changed clears
+ * the cache. hitCount, missCount, treeHitCount, evictionCount and invalidationCount tell how well it does.
+ * The methods are synchronized, so one cache can serve WGraph_ConcurrentAlgo, the searches run outside the lock.
+ */
+public class WGraph_PathCache {
+    private final LongLruMap<Path> pairs;
+    private final LongLruMap<SourceTree> trees;
+    private final LongLruMap<Boolean> missedSources; // sources which missed once, a second miss builds their tree
+    private weighted_graph graph;
+    private int mc;
+    private long hits, misses, treeHits, evictions, invalidations;
+
+    /**
+     * Constructor
+     * @param pairCapacity int - the maximal number of cached (src, dest) pairs, at least 1
+     * @param treeCapacity int - the maximal number of cached single-source trees (each holds 12 bytes per node),
+     *                     0 to never build trees
+     */
+    public WGraph_PathCache(int pairCapacity, int treeCapacity) {
+        if (treeCapacity < 0) {
+            throw new IllegalArgumentException("negative tree capacity " + treeCapacity);
+        }
+        this.pairs = new LongLruMap<>(pairCapacity);
+        this.trees = treeCapacity == 0 ? null : new LongLruMap<>(treeCapacity);
+        this.missedSources = treeCapacity == 0 ? null : new LongLruMap<>(Math.max(64, 4 * treeCapacity));
+    }
+
+    /**
+     * @return long - the number of queries answered from a cached pair or tree
+     */
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    /**
+     * @return long - the number of queries which had to search (a point to point search or a new tree)
+     */
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    /**
+     * @return long - the number of hits answered from a single-source tree (included in hitCount)
+     */
+    public synchronized long treeHitCount() {
+        return treeHits;
+    }
+
+    /**
+     * @return long - the number of pairs and trees which were evicted to make room for newer ones
+     */
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    /**
+     * @return long - the number of times the cache was cleared because the graph changed
+     */
+    public synchronized long invalidationCount() {
+        return invalidations;
+    }
+
+    /**
+     * @return int - the number of cached pairs
+     */
+    public synchronized int pairCount() {
+        return pairs.size();
+    }
+
+    /**
+     * @return int - the number of cached single-source trees
+     */
+    public synchronized int treeCount() {
+        return trees == null ? 0 : trees.size();
+    }
+
+    /**
+     * Removes all the cached results, the counters are kept.
+     */
+    public synchronized void clear() {
+        pairs.clear();
+        if (trees != null) {
+            trees.clear();
+            missedSources.clear();
+        }
+    }
+
+    /**
+     * Looks the pair up, in the pair map and then in the trees of src and of dest.
+     * Clears the cache first if it holds the results of another graph or another Mode Count.
+     * @param g weighted_graph - the queried graph
+     * @param src int - source key
+     * @param dest int - destination key
+     * @param withPath boolean - true if the path is needed, a pair which only has its distance is then a miss
+     * @return Path - the result in the direction src -> dest, null on a miss
+     */
+    synchronized Path lookup(weighted_graph g, int src, int dest, boolean withPath) {
+        if (g != graph || g.getMC() != mc) {
+            if (graph != null && (pairs.size() > 0 || (trees != null && trees.size() > 0))) {
+                invalidations++;
+            }
+            clear();
+            graph = g;
+            mc = g.getMC();
+        }
+        Path p = pairs.get(pairKey(src, dest));
+        if (p != null && (!withPath || p.nodes != null || p.dist < 0)) {
+            hits++;
+            return p.from == src ? p : p.reversed();
+        }
+        if (trees != null) {
+            SourceTree t = trees.get(src);
+            if (t == null) {
+                t = trees.get(dest);
+            }
+            if (t != null) {
+                hits++;
+                treeHits++;
+                p = t.path(t.source == src ? dest : src, withPath);
+                putPair(p);
+                return p.from == src ? p : p.reversed();
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Records a miss of the source and tells if it missed before, i.e. if it is worth its whole tree.
+     * @param src int - source key
+     * @return boolean - true if a tree should be built for src
+     */
+    synchronized boolean wantsTree(int src) {
+        if (trees == null) {
+            return false;
+        }
+        if (missedSources.get(src) != null) {
+            return true;
+        }
+        missedSources.put(src, Boolean.TRUE);
+        return false;
+    }
+
+    /**
+     * Caches a searched result, unless the graph changed since the lookup.
+     * @param g weighted_graph - the graph which was searched
+     * @param mc int - its Mode Count when the search started
+     * @param p Path - the result
+     */
+    synchronized void put(weighted_graph g, int mc, Path p) {
+        if (g == graph && mc == this.mc) {
+            putPair(p);
+        }
+    }
+
+    /**
+     * Caches a single-source tree, unless the graph changed since the lookup.
+     * @param g weighted_graph - the graph which was searched
+     * @param mc int - its Mode Count when the search started
+     * @param t SourceTree - the tree
+     */
+    synchronized void put(weighted_graph g, int mc, SourceTree t) {
+        if (g == graph && mc == this.mc && trees.put(t.source, t)) {
+            evictions++;
+        }
+    }
+
+    private void putPair(Path p) {
+        if (pairs.put(pairKey(p.from, p.to), p)) {
+            evictions++;
+        }
+    }
+
+    private static long pairKey(int a, int b) {
+        int lo = Math.min(a, b), hi = Math.max(a, b);
+        return ((long) lo << 32) | (hi & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A cached result: the distance from one node to another (-1 if there is no path)
+     * and the nodes of the path (null if only the distance was asked for, or if there is no path).
+     */
+    static class Path {
+        final int from, to;
+        final double dist;
+        final node_info[] nodes;
+
+        Path(int from, int to, double dist, node_info[] nodes) {
+            this.from = from;
+            this.to = to;
+            this.dist = dist;
+            this.nodes = nodes;
+        }
+
+        /**
+         * @param from int - source key
+         * @param to int - destination key
+         * @param dist double - the length of the path (-1 if there is none)
+         * @param path List<node_info> - the path from source to destination, null if there is none or it is not needed
+         * @return Path - the cached form of the path
+         */
+        static Path of(int from, int to, double dist, List<node_info> path) {
+            return new Path(from, to, dist, path == null ? null : path.toArray(new node_info[0]));
+        }
+
+        /**
+         * @return List<node_info> - a new list of the nodes of the path, null if there is no path
+         */
+        List<node_info> list() {
+            return nodes == null ? null : new ArrayList<>(Arrays.asList(nodes));
+        }
+
+        private Path reversed() {
+            node_info[] r = null;
+            if (nodes != null) {
+                r = new node_info[nodes.length];
+                for (int i = 0; i < nodes.length; i++) {
+                    r[i] = nodes[nodes.length - 1 - i];
+                }
+            }
+            return new Path(to, from, dist, r);
+        }
+    }
+
+    /**
+     * The shortest path tree of one source: the distance and the predecessor of every node of a node index.
+     */
+    static class SourceTree {
+        final int source;
+        private final NodeIndex index;
+        private final double[] dist;
+        private final int[] pred;
+
+        /**
+         * Copies the tree out of a state which ran a full Dijkstra search (dijkstra(g, src, NONE)).
+         * @param source int - the source key
+         * @param state SearchState - the state of the search
+         */
+        SourceTree(int source, SearchState state) {
+            this.source = source;
+            this.index = state.index();
+            int n = index.size();
+            this.dist = new double[n];
+            this.pred = new int[n];
+            for (int i = 0; i < n; i++) {
+                dist[i] = state.dist(i);
+                pred[i] = state.pred(i);
+            }
+        }
+
+        /**
+         * @param dest int - a node key of the graph
+         * @param withPath boolean - true to walk the predecessors back to the source
+         * @return Path - the shortest path from the source to dest
+         */
+        Path path(int dest, boolean withPath) {
+            int t = index.indexOf(dest);
+            if (dist[t] == Double.POSITIVE_INFINITY) {
+                return new Path(source, dest, -1, null);
+            }
+            if (!withPath) {
+                return new Path(source, dest, dist[t], null);
+            }
+            int length = 0;
+            for (int i = t; i != SearchState.NONE; i = pred[i]) {
+                length++;
+            }
+            node_info[] nodes = new node_info[length];
+            for (int i = t; i != SearchState.NONE; i = pred[i]) {
+                nodes[--length] = index.nodeAt(i);
+            }
+            return new Path(source, dest, dist[t], nodes);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ex1.src;
+
+/**
+ * This interface represents a listener which WGraph_Algo calls after every query (see WGraph_Algo.setListener),
+ * with the cost of the query: its time and what its search did.
+ * WGraph_Metrics is the listener which keeps totals and latency histograms and exposes them through JMX.
+ * With no listener set the queries only keep a few counters in their search state, nothing is timed or allocated.
+ * The listener is called on the thread which ran the query, with WGraph_ConcurrentAlgo from many threads at once.
+ */
+public interface WGraph_QueryListener {
+
+    /**
+     * The queries which are reported.
+     */
+    enum Query {
+        SHORTEST_PATH_DIST, SHORTEST_PATH, IS_CONNECTED
+    }
+
+    /**
+     * Called after a query returned.
+     * @param stats Stats - the cost of the query
+     */
+    void queryDone(Stats stats);
+
+    /**
+     * The cost of one query. The search counters are those of the Dijkstra, bidirectional and ALT searches
+     * and of the upward searches of the CH strategy (both sides of a bidirectional search).
+     * Answers from a WGraph_PathCache are marked with isCached and count no search,
+     * the counters are also 0 for src == dest, a missing node and isConnected.
+     */
+    final class Stats {
+        private final Query query;
+        private final long elapsedNanos, resetNanos, nodesSettled, edgesRelaxed, heapPushes, heapPops;
+        private final boolean cached;
+
+        Stats(Query query, long elapsedNanos, long resetNanos, long nodesSettled, long edgesRelaxed,
+              long heapPushes, long heapPops, boolean cached) {
+            this.query = query;
+            this.elapsedNanos = elapsedNanos;
+            this.resetNanos = resetNanos;
+            this.nodesSettled = nodesSettled;
+            this.edgesRelaxed = edgesRelaxed;
+            this.heapPushes = heapPushes;
+            this.heapPops = heapPops;
+            this.cached = cached;
+        }
+
+        /**
+         * @return Query - the query
+         */
+        public Query getQuery() {
+            return query;
+        }
+
+        /**
+         * @return long - the time the query took, in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return long - the part of the time spent resetting the search state (clearing the previous search)
+         */
+        public long getResetNanos() {
+            return resetNanos;
+        }
+
+        /**
+         * @return long - the number of nodes taken out of the queue (settled), a node the ALT search took out
+         * more than once is counted once, so it can be lower than getHeapPops()
+         */
+        public long getNodesSettled() {
+            return nodesSettled;
+        }
+
+        /**
+         * @return long - the number of edges scanned from the settled nodes
+         */
+        public long getEdgesRelaxed() {
+            return edgesRelaxed;
+        }
+
+        /**
+         * @return long - the number of heap insertions and priority decreases
+         */
+        public long getHeapPushes() {
+            return heapPushes;
+        }
+
+        /**
+         * @return long - the number of heap removals
+         */
+        public long getHeapPops() {
+            return heapPops;
+        }
+
+        /**
+         * @return boolean - true if the answer came from a WGraph_PathCache (no search ran)
+         */
+        public boolean isCached() {
+            return cached;
+        }
+
+        @Override
+        public String toString() {
+            return query + " " + elapsedNanos + "ns (reset " + resetNanos + "ns), " + (cached ? "cached" : "settled "
+                    + nodesSettled + ", relaxed " + edgesRelaxed + ", pushes " + heapPushes + ", pops " + heapPops);
+        }
+    }
+}
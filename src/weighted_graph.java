@@ -60,6 +60,21 @@ public interface weighted_graph {
      * @return Collection<node_data>
      */
     public Collection<node_info> getV(int node_id);
+    /**
+     * Calls the visitor with the key and the edge weight of every neighbor of node_id, nothing if there is no such node.
+     * This is the way the algorithms scan the edges: the weight comes with the neighbor (no getEdge lookup)
+     * and an implementation can do it without allocating anything (WGraph_DS, WGraph_CSR, WGraph_Mapped, WGraph_ConcurrentDS do).
+     * The default implementation goes through getV(node_id) and getEdge.
+     * The graph must not be changed by the visitor.
+     * Note: this method should run in O(k) time, k - being the degree of node_id.
+     * @param node_id - the node_id
+     * @param visitor - called once per neighbor
+     */
+    public default void forEachNeighbor(int node_id, NeighborVisitor visitor) {
+        for (node_info n : getV(node_id)) {
+            visitor.visit(n.getKey(), getEdge(node_id, n.getKey()));
+        }
+    }
     /**
      * Delete the node (with the given ID) from the graph -
      * and removes all edges which starts or ends at this node.
@@ -92,4 +107,16 @@ public interface weighted_graph {
      * @return
      */
     public int getMC();
+
+    /**
+     * The callback of forEachNeighbor, gets the neighbors one by one as primitives.
+     */
+    @FunctionalInterface
+    public interface NeighborVisitor {
+        /**
+         * @param neighbor - the key of the neighbor
+         * @param weight - the weight of the edge to it
+         */
+        void visit(int neighbor, double weight);
+    }
 }
@@ -9,11 +9,26 @@ import ex1.src.weighted_graph_algorithms;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -208,6 +223,146 @@ class WGraph_AlgoTest {
         g.removeEdge(9,5);
         assertNull(ga.shortestPath(13,14));
     }
+    @Test
+    void queriesDontChangeNodes() {
+        weighted_graph g = graph();
+        weighted_graph_algorithms ga = new WGraph_Algo();
+        ga.init(g);
+        for (node_info n : g.getV()) {
+            n.setTag(n.getKey() * 2);
+            n.setInfo("node " + n.getKey());
+        }
+        int mc = g.getMC();
+        assertEquals(29, ga.shortestPathDist(8, 10));
+        assertEquals(6, ga.shortestPath(1, 14).size());
+        assertTrue(ga.isConnected());
+        assertEquals(17, ga.shortestPathDist(13, 5));
+        assertEquals(mc, g.getMC());
+        for (node_info n : g.getV()) {
+            assertEquals(n.getKey() * 2, n.getTag());
+            assertEquals("node " + n.getKey(), n.getInfo());
+        }
+    }
+
+    /**
+     * Randomized cross-check, compares shortestPathDist and shortestPath of every strategy on random graphs
+     * against a simple O(n^2) reference Dijkstra.
+     */
+    @Test
+    void shortestPathCrossCheck() {
+        for (WGraph_Algo.Strategy strategy : WGraph_Algo.Strategy.values()) {
+            crossCheck(strategy);
+        }
+    }
+
+    @Test
+    void bidirectionalStrategy() {
+        weighted_graph g = graph();
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        assertEquals(WGraph_Algo.Strategy.DIJKSTRA, ga.getStrategy());
+        ga.setStrategy(WGraph_Algo.Strategy.BIDIRECTIONAL);
+        assertEquals(29, ga.shortestPathDist(8, 10));
+        assertEquals(0, ga.shortestPathDist(5, 5));
+        assertEquals(33, ga.shortestPathDist(13, 8));
+        assertEquals(-1, ga.shortestPathDist(10, 15));
+        assertNull(ga.shortestPath(1, 17));
+        List<node_info> lst = new ArrayList<>();
+        for (int key : new int[]{13, 12, 10, 11, 6, 5, 9, 14}) {
+            lst.add(g.getNode(key));
+        }
+        assertEquals(lst, ga.shortestPath(13, 14));
+        g.removeEdge(4, 5);
+        g.removeEdge(9, 5);
+        assertNull(ga.shortestPath(13, 14));
+        assertEquals(-1, ga.shortestPathDist(1, 5));
+        assertEquals(8, ga.shortestPathDist(1, 7));
+    }
+
+    @Test
+    void altStrategy() {
+        weighted_graph g = graph();
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        ga.setStrategy(WGraph_Algo.Strategy.ALT);
+        ga.setLandmarks(3);
+        assertEquals(3, ga.getLandmarks());
+        assertThrows(IllegalArgumentException.class, () -> ga.setLandmarks(0));
+        assertEquals(29, ga.shortestPathDist(8, 10));
+        assertEquals(17, ga.shortestPathDist(13, 5));
+        assertEquals(-1, ga.shortestPathDist(10, 15));
+        assertEquals(8, ga.shortestPath(13, 14).size());
+        g.removeEdge(4, 5); // the landmark tables must follow the change
+        g.removeEdge(9, 5);
+        assertNull(ga.shortestPath(13, 14));
+        assertEquals(-1, ga.shortestPathDist(1, 5));
+        g.connect(1, 5, 1);
+        assertEquals(1, ga.shortestPathDist(1, 5));
+        assertEquals(18, ga.shortestPathDist(1, 13));
+        g.addNode(20);
+        assertEquals(-1, ga.shortestPathDist(1, 20));
+    }
+
+    @Test
+    void chStrategy() {
+        weighted_graph g = graph();
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        ga.setStrategy(WGraph_Algo.Strategy.CH);
+        assertEquals(29, ga.shortestPathDist(8, 10));
+        assertEquals(17, ga.shortestPathDist(13, 5));
+        assertEquals(-1, ga.shortestPathDist(10, 15));
+        List<node_info> lst = new ArrayList<>();
+        for (int key : new int[]{13, 12, 10, 11, 6, 5, 9, 14}) {
+            lst.add(g.getNode(key));
+        }
+        assertEquals(lst, ga.shortestPath(13, 14));
+        g.removeEdge(4, 5); // the hierarchy must follow the change
+        g.removeEdge(9, 5);
+        assertNull(ga.shortestPath(13, 14));
+        assertEquals(-1, ga.shortestPathDist(1, 5));
+        g.connect(1, 5, 1);
+        assertEquals(1, ga.shortestPathDist(1, 5));
+        assertEquals(18, ga.shortestPathDist(1, 13));
+    }
+
+    private void crossCheck(WGraph_Algo.Strategy strategy) {
+        Random rand = new Random(_seed);
+        for (int t = 0; t < 30; t++) {
+            int vSize = 2 + rand.nextInt(80);
+            weighted_graph g = new WGraph_DS();
+            for (int i = 0; i < vSize; i++) {
+                g.addNode(i);
+            }
+            int eSize = rand.nextInt(vSize * 3);
+            for (int i = 0; i < eSize; i++) {
+                g.connect(rand.nextInt(vSize), rand.nextInt(vSize), rand.nextInt(4) == 0 ? rand.nextInt(5) : rand.nextDouble() * 10);
+            }
+            WGraph_Algo ga = new WGraph_Algo();
+            ga.setStrategy(strategy);
+            ga.init(g);
+            for (int q = 0; q < 30; q++) {
+                int src = rand.nextInt(vSize);
+                int dest = rand.nextInt(vSize);
+                double expected = referenceDist(g, src, dest);
+                assertEquals(expected, ga.shortestPathDist(src, dest), 1e-9);
+                List<node_info> path = ga.shortestPath(src, dest);
+                if (expected == -1) {
+                    assertNull(path);
+                    continue;
+                }
+                assertEquals(src, path.get(0).getKey());
+                assertEquals(dest, path.get(path.size() - 1).getKey());
+                double sum = 0;
+                for (int i = 1; i < path.size(); i++) {
+                    assertTrue(g.hasEdge(path.get(i - 1).getKey(), path.get(i).getKey()));
+                    sum += g.getEdge(path.get(i - 1).getKey(), path.get(i).getKey());
+                }
+                assertEquals(expected, sum, 1e-9);
+            }
+        }
+    }
+
     @Test
     void saveAndLoadTests(){
         weighted_graph g1 = graph();
@@ -226,6 +381,286 @@ class WGraph_AlgoTest {
         assertFalse(ga.load(null));
     }
 
+    @Test
+    void saveAndLoadKeepsGraph(@TempDir Path dir) {
+        String file = dir.resolve("Hello.txt").toString();
+        weighted_graph g = graph();
+        g.getNode(3).setInfo("three \u05e9");
+        g.getNode(4).setTag(2.5);
+        g.getNode(5).setInfo("");
+        g.connect(1, 2, 0.1 + 0.2);
+        weighted_graph_algorithms ga = new WGraph_Algo();
+        ga.init(g);
+        assertTrue(ga.save(file));
+        assertTrue(ga.load(file));
+        weighted_graph loaded = ga.getGraph();
+        assertNotSame(g, loaded);
+        assertEquals(g, loaded);
+        assertEquals(g.getMC(), loaded.getMC());
+        assertEquals(g.edgeSize(), loaded.edgeSize());
+        assertEquals("three \u05e9", loaded.getNode(3).getInfo());
+        assertEquals("", loaded.getNode(5).getInfo());
+        assertNull(loaded.getNode(6).getInfo());
+        assertEquals(2.5, loaded.getNode(4).getTag());
+        for (node_info n : g.getV()) {
+            for (node_info ni : g.getV(n.getKey())) {
+                assertEquals(g.getEdge(n.getKey(), ni.getKey()), loaded.getEdge(n.getKey(), ni.getKey()));
+            }
+        }
+    }
+
+    @Test
+    void loadLegacyAndBadFiles(@TempDir Path dir) throws IOException {
+        String file = dir.resolve("Hello.txt").toString();
+        weighted_graph_algorithms ga = new WGraph_Algo();
+        assertTrue(ga.load("tests/baseline_graph.ser")); // saved with Java serialization by the HashMap WGraph_DS
+        assertEquals(graph(), ga.getGraph());
+
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("not a graph".getBytes());
+        }
+        weighted_graph before = ga.getGraph();
+        assertFalse(ga.load(file));
+        assertSame(before, ga.getGraph());
+        assertTrue(ga.save(file));
+        byte[] bytes = Files.readAllBytes(Paths.get(file));
+        try (FileOutputStream out = new FileOutputStream(file)) { // cut in the middle of the edges
+            out.write(bytes, 0, bytes.length / 2);
+        }
+        assertFalse(ga.load(file));
+        assertSame(before, ga.getGraph());
+        assertFalse(ga.load(dir.resolve("no_such_file.txt").toString()));
+    }
+
+    @Test
+    void loadCorruptFiles(@TempDir Path dir) throws IOException {
+        String file = dir.resolve("Corrupt.bin").toString();
+        weighted_graph_algorithms ga = new WGraph_Algo();
+        ga.init(graph());
+        assertTrue(ga.save(file));
+        byte[] bytes = Files.readAllBytes(Paths.get(file));
+        ByteBuffer header = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int n = header.getInt(8);
+        long half = header.getLong(24);
+        int weights = align(align(align(32 + 4 * n) + 8 * n + 4 * (n + 1)) + 4 * (int) half);
+        weighted_graph before = ga.getGraph();
+
+        assertFalse(loadChanged(ga, file, Arrays.copyOf(bytes, 40), b -> { })); // cut in the keys
+        assertFalse(loadChanged(ga, file, Arrays.copyOf(bytes, bytes.length - 1), b -> { })); // cut in the infos
+        assertFalse(loadChanged(ga, file, bytes, b -> b.putInt(8, Integer.MAX_VALUE))); // node count
+        assertFalse(loadChanged(ga, file, bytes, b -> b.putLong(16, 1000000000).putLong(24, 2000000000))); // edge counts
+        assertFalse(loadChanged(ga, file, bytes, b -> b.putLong(weights + 8 * (int) half + 8 * n, 1L << 30))); // infos
+        assertFalse(loadChanged(ga, file, bytes, b -> b.putDouble(weights, Double.NaN)));
+        assertFalse(loadChanged(ga, file, bytes, b -> b.putDouble(weights, -1)));
+        assertFalse(loadChanged(ga, file, bytes, b -> b.putDouble(weights, b.getDouble(weights) + 1))); // one end only
+        assertSame(before, ga.getGraph());
+        assertTrue(loadChanged(ga, file, bytes, b -> { }));
+        assertEquals(before, ga.getGraph());
+    }
+
+    /**
+     * Writes a changed copy of a graph file and loads it.
+     * @param ga weighted_graph_algorithms - loads the file
+     * @param file String - the file to write
+     * @param bytes byte[] - the graph file
+     * @param change Consumer - changes the copy, little endian
+     * @return boolean - the result of load
+     */
+    private static boolean loadChanged(weighted_graph_algorithms ga, String file, byte[] bytes, Consumer<ByteBuffer> change)
+            throws IOException {
+        ByteBuffer copy = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+        change.accept(copy);
+        Files.write(Paths.get(file), copy.array());
+        return ga.load(file);
+    }
+
+    private static int align(int position) {
+        return (position + 7) & ~7;
+    }
+
+
+    /**
+     * tests/baseline_graph.ser was saved by the first, HashMap based, WGraph_DS:
+     * the graph of graph() where node 3 has the info "three" and the tag 1.5.
+     */
+    @Test
+    void loadBaselineFile() {
+        weighted_graph_algorithms ga = new WGraph_Algo();
+        assertTrue(ga.load("tests/baseline_graph.ser"));
+        weighted_graph g = ga.getGraph();
+        assertEquals(graph(), g);
+        assertEquals(14, g.nodeSize());
+        assertEquals(17, g.edgeSize());
+        assertEquals(31, g.getMC());
+        assertEquals(12, g.getEdge(4, 5));
+        assertEquals("three", g.getNode(3).getInfo());
+        assertEquals(1.5, g.getNode(3).getTag());
+        assertEquals(17, ga.shortestPathDist(1, 6));
+        WGraph_DS ds = (WGraph_DS) g; // the HashMap graph had no dense index, it gets one in node order
+        assertEquals(14, ds.indexBound());
+        for (int i = 0; i < 14; i++) {
+            assertEquals(i, ds.indexOf(ds.keyAt(i)));
+        }
+        g.connect(1, 14, 1);
+        assertEquals(1, g.getEdge(14, 1));
+        assertEquals(18, g.edgeSize());
+        g.addNode(15);
+        assertEquals(14, ds.indexOf(15));
+    }
+
+    @Test
+    void batchDistances() {
+        weighted_graph g = graphCreator(300, 500, 20, _seed); // not connected
+        g.addNode(1000);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        int[] sources = {0, 5, 1000, 77, -3, 5};
+        int[] targets = {1, 0, 299, 1000, 5, -4, 1, 150, 0};
+        double[][] matrix = ga.distanceMatrix(sources, targets);
+        assertEquals(sources.length, matrix.length);
+        for (int i = 0; i < sources.length; i++) {
+            double[] row = ga.shortestPathDists(sources[i], targets);
+            assertArrayEquals(row, matrix[i]);
+            for (int j = 0; j < targets.length; j++) {
+                assertEquals(ga.shortestPathDist(sources[i], targets[j]), row[j], sources[i] + "->" + targets[j]);
+            }
+        }
+        assertEquals(0, ga.shortestPathDists(1000, new int[0]).length);
+        assertEquals(0, ga.distanceMatrix(new int[0], targets).length);
+        WGraph_Algo empty = new WGraph_Algo();
+        assertArrayEquals(new double[]{-1, -1}, empty.shortestPathDists(0, new int[]{0, 1}));
+        assertArrayEquals(new double[]{-1}, empty.distanceMatrix(new int[]{0}, new int[]{1})[0]);
+    }
+
+    @Test
+    void deltaSteppingMatchesDijkstra() {
+        Random rand = new Random(_seed);
+        for (int t = 0; t < 20; t++) {
+            int v = 1 + rand.nextInt(3000);
+            weighted_graph g = new WGraph_DS();
+            for (int i = 0; i < v; i++) {
+                g.addNode(i * 7 - 100); // sparse keys
+            }
+            int e = rand.nextInt(4 * v);
+            for (int i = 0; i < e; i++) { // fractional, zero and widely spread weights
+                double w = t % 3 == 0 ? rand.nextDouble() : t % 3 == 1 ? rand.nextInt(3) : Math.pow(10, rand.nextInt(6));
+                g.connect(rand.nextInt(v) * 7 - 100, rand.nextInt(v) * 7 - 100, w);
+            }
+            WGraph_Algo ga = new WGraph_Algo();
+            ga.init(g);
+            int[] targets = new int[v + 1];
+            for (int i = 0; i < v; i++) {
+                targets[i] = i * 7 - 100;
+            }
+            targets[v] = 1; // not a node
+            int src = rand.nextInt(v) * 7 - 100;
+            double[] expected = ga.shortestPathDists(src, targets);
+            for (int threads : new int[]{1, 3, 8}) {
+                double[] row = ga.shortestPathDists(src, targets, threads);
+                for (int i = 0; i < targets.length; i++) {
+                    assertEquals(expected[i], row[i], Math.abs(expected[i]) * 1e-12, "node " + targets[i]);
+                }
+            }
+            double[] common = ga.shortestPathDists(src, targets, ForkJoinPool.commonPool());
+            for (int i = 0; i < targets.length; i++) {
+                assertEquals(expected[i], common[i], Math.abs(expected[i]) * 1e-12, "node " + targets[i]);
+            }
+        }
+        WGraph_Algo empty = new WGraph_Algo();
+        assertArrayEquals(new double[]{-1}, empty.shortestPathDists(0, new int[]{0}, 2));
+        assertThrows(IllegalArgumentException.class, () -> empty.shortestPathDists(0, new int[0], 0));
+    }
+
+    @Test
+    void deltaSteppingAfterChange() {
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < 4; i++) {
+            g.addNode(i);
+        }
+        g.connect(0, 1, 1);
+        g.connect(1, 2, 1);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            int[] targets = {0, 1, 2, 3};
+            assertArrayEquals(new double[]{0, 1, 2, -1}, ga.shortestPathDists(0, targets, pool));
+            assertArrayEquals(new double[]{2, 1, 0, -1}, ga.shortestPathDists(2, targets, pool)); // the same copy
+            g.connect(0, 2, 0.5); // the graph is copied again
+            g.connect(2, 3, 4);
+            assertArrayEquals(new double[]{0, 1, 0.5, 4.5}, ga.shortestPathDists(0, targets, pool));
+            g.removeNode(2);
+            assertArrayEquals(new double[]{0, 1, -1, -1}, ga.shortestPathDists(0, targets, 3));
+            assertArrayEquals(new double[]{0, 1, -1, -1}, ga.shortestPathDists(0, targets, 3));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * tests/primitive_graph.ser was saved by the WGraph_DS of the primitive maps (IntObjectMap and IntDoubleMap):
+     * the graph of graph() where node 3 has the info "three" and the tag 1.5, then node 13 was removed,
+     * node 20 added and connected to node 1 with the weight 0.5.
+     */
+    @Test
+    void loadPrimitiveMapFile() {
+        weighted_graph_algorithms ga = new WGraph_Algo();
+        assertTrue(ga.load("tests/primitive_graph.ser"));
+        weighted_graph g = ga.getGraph();
+        weighted_graph expected = graph();
+        expected.removeNode(13);
+        expected.addNode(20);
+        expected.connect(20, 1, 0.5);
+        assertEquals(expected, g);
+        assertEquals(14, g.nodeSize());
+        assertEquals(17, g.edgeSize());
+        assertEquals(35, g.getMC());
+        assertNull(g.getNode(13));
+        assertEquals(-1, g.getEdge(12, 13));
+        assertEquals(0.5, g.getEdge(1, 20));
+        assertEquals("three", g.getNode(3).getInfo());
+        assertEquals(1.5, g.getNode(3).getTag());
+        assertEquals(5.5, ga.shortestPathDist(20, 2));
+        g.connect(20, 13, 1);
+        assertEquals(17, g.edgeSize());
+        g.addNode(13);
+        g.connect(20, 13, 1);
+        assertEquals(1, g.getEdge(13, 20));
+        assertEquals(18, g.edgeSize());
+        weighted_graph_algorithms copy = new WGraph_Algo();
+        copy.init(ga.copy());
+        assertEquals(g, copy.getGraph());
+    }
+
+    /**
+     * Reference shortest path, plain Dijkstra which scans all the nodes for the closest unvisited one.
+     */
+    private static double referenceDist(weighted_graph g, int src, int dest) {
+        Map<Integer, Double> dist = new HashMap<>();
+        Set<Integer> visited = new HashSet<>();
+        dist.put(src, 0.0);
+        while (true) {
+            int best = -1;
+            for (Map.Entry<Integer, Double> e : dist.entrySet()) {
+                if (!visited.contains(e.getKey()) && (best == -1 || e.getValue() < dist.get(best))) {
+                    best = e.getKey();
+                }
+            }
+            if (best == -1) {
+                return -1;
+            }
+            if (best == dest) {
+                return dist.get(best);
+            }
+            visited.add(best);
+            for (node_info n : g.getV(best)) {
+                double d = dist.get(best) + g.getEdge(best, n.getKey());
+                if (!dist.containsKey(n.getKey()) || d < dist.get(n.getKey())) {
+                    dist.put(n.getKey(), d);
+                }
+            }
+        }
+    }
 
     public static void initSeed(int seed) {
         _seed = seed;
@@ -0,0 +1,75 @@
+package ex1.tests;
+
+
+import ex1.src.WGraph_Builder;
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+import ex1.src.weighted_graph;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is a TEST class for the bulk graph builder WGraph_Builder, checks it builds the graph addNode/connect build.
+ */
+class WGraph_BuilderTest {
+
+    @Test
+    void matchesConnect() {
+        Random rand = new Random(7);
+        for (int t = 0; t < 100; t++) {
+            weighted_graph expected = new WGraph_DS();
+            WGraph_Builder b = new WGraph_Builder(rand.nextInt(5), rand.nextInt(5));
+            int calls = rand.nextInt(500);
+            int range = 1 + rand.nextInt(60);
+            for (int i = 0; i < calls; i++) {
+                int x = rand.nextInt(range) - 10;
+                if (rand.nextInt(4) == 0) {
+                    expected.addNode(x);
+                    b.addNode(x);
+                } else {
+                    int y = rand.nextInt(4) == 0 ? x : rand.nextInt(range) - 10; // self loops
+                    double w = rand.nextInt(10) == 0 ? -1 : rand.nextInt(4); // negative weights and repeated weights
+                    expected.connect(x, y, w);
+                    b.connect(x, y, w);
+                }
+            }
+            WGraph_DS g = b.build();
+            assertEquals(expected, g);
+            assertEquals(expected.edgeSize(), g.edgeSize());
+            assertEquals(expected.getMC(), g.getMC());
+            assertEquals(expected.nodeSize(), b.nodeSize());
+            Iterator<node_info> itr = g.getV().iterator();
+            for (node_info n : expected.getV()) { // the nodes in the order they were added
+                assertEquals(n.getKey(), itr.next().getKey());
+                for (node_info ni : expected.getV(n.getKey())) {
+                    assertEquals(expected.getEdge(n.getKey(), ni.getKey()), g.getEdge(n.getKey(), ni.getKey()));
+                }
+            }
+            assertEquals(g, b.build()); // the builder can build again
+            assertNotSame(g, b.build());
+        }
+    }
+
+    @Test
+    void bulkArrays() {
+        WGraph_Builder b = new WGraph_Builder(4, 4);
+        b.addNodes(new int[]{1, 2, 3, 3});
+        b.connect(new int[]{1, 2, 3, 2, 4}, new int[]{2, 3, 3, 1, 1}, new double[]{5, 1, 1, 2.5, 1});
+        WGraph_DS g = b.build();
+        assertEquals(3, g.nodeSize());
+        assertEquals(2, g.edgeSize());
+        assertEquals(2.5, g.getEdge(1, 2)); // the last of the repeated edge
+        assertEquals(1, g.getEdge(3, 2));
+        assertFalse(g.hasEdge(3, 3));
+        assertEquals(6, g.getMC()); // 3 nodes, 2 edges and one changed weight
+        g.connect(1, 3, 4); // a regular graph
+        assertEquals(3, g.edgeSize());
+        assertEquals(0, new WGraph_Builder().build().nodeSize());
+        assertThrows(IllegalArgumentException.class, () -> b.connect(new int[1], new int[2], new double[1]));
+        assertThrows(IllegalArgumentException.class, () -> new WGraph_Builder(-1, 0));
+    }
+}
@@ -0,0 +1,190 @@
+package ex1.tests;
+
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_CH;
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+import ex1.src.weighted_graph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is a TEST class for the Contraction Hierarchy WGraph_CH, compares it to Dijkstra on grids and random graphs.
+ */
+class WGraph_CHTest {
+
+    @Test
+    void matchesDijkstra() {
+        for (int seed = 1; seed <= 3; seed++) {
+            check(gridCreator(30, 30, seed), 200, seed);
+            check(graphCreator(1500, 4000, 20, seed), 200, seed);
+        }
+    }
+
+    @Test
+    void disconnectedAndMissingNodes() {
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < 6; i++) {
+            g.addNode(i);
+        }
+        g.connect(0, 1, 1);
+        g.connect(1, 2, 0);
+        g.connect(3, 4, 2.5);
+        WGraph_CH ch = new WGraph_CH(g);
+        assertEquals(1, ch.shortestPathDist(0, 2));
+        assertEquals(3, ch.shortestPath(2, 0).size());
+        assertEquals(-1, ch.shortestPathDist(0, 4));
+        assertNull(ch.shortestPath(5, 3));
+        assertEquals(-1, ch.shortestPathDist(0, 7));
+        assertNull(ch.shortestPath(7, 0));
+        assertEquals(0, ch.shortestPathDist(4, 4));
+        assertTrue(ch.isValidFor(g));
+        g.connect(2, 3, 1);
+        assertFalse(ch.isValidFor(g));
+        assertFalse(ch.attach(g));
+    }
+
+    @Test
+    void shortcutsAreUnpacked() {
+        weighted_graph g = new WGraph_DS(); // a path, every inner node needs a shortcut when contracted
+        for (int i = 0; i < 50; i++) {
+            g.addNode(i);
+        }
+        for (int i = 0; i < 49; i++) {
+            g.connect(i, i + 1, 1);
+        }
+        WGraph_CH ch = new WGraph_CH(g);
+        assertTrue(ch.shortcutCount() > 0);
+        List<node_info> path = ch.shortestPath(0, 49);
+        assertEquals(50, path.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, path.get(i).getKey());
+        }
+        assertEquals(49, ch.shortestPathDist(49, 0));
+    }
+
+    @Test
+    void saveAndLoad(@TempDir Path dir) throws IOException {
+        String chFile = dir.resolve("Hello.ch").toString();
+        String file = dir.resolve("Hello.txt").toString(), otherFile = dir.resolve("Other.txt").toString();
+        weighted_graph g = gridCreator(10, 10, 1);
+        WGraph_CH ch = new WGraph_CH(g);
+        assertTrue(ch.save(chFile));
+        WGraph_CH loaded = WGraph_CH.load(chFile);
+        assertNotNull(loaded);
+        assertTrue(loaded.attach(g));
+        assertEquals(ch.shortestPathDist(0, 99), loaded.shortestPathDist(0, 99));
+        assertEquals(ch.shortestPath(5, 94), loaded.shortestPath(5, 94));
+        assertNull(WGraph_CH.load(dir.resolve("no_such_file.ch").toString()));
+        assertFalse(ch.save(null));
+        weighted_graph other = gridCreator(10, 10, 2); // same counts and Mode Count, other weights
+        assertTrue(loaded.isValidFor(other));
+        assertFalse(loaded.attach(other));
+        weighted_graph moved = new WGraph_DS(); // same counts and Mode Count, other keys
+        for (node_info n : g.getV()) {
+            moved.addNode(n.getKey() + 1000);
+        }
+        for (node_info n : g.getV()) {
+            for (node_info ni : g.getV(n.getKey())) {
+                moved.connect(n.getKey() + 1000, ni.getKey() + 1000, g.getEdge(n.getKey(), ni.getKey()));
+            }
+        }
+        assertEquals(g.getMC(), moved.getMC());
+        assertFalse(loaded.attach(moved));
+
+        WGraph_Algo ga = new WGraph_Algo(); // the hierarchy is saved and loaded next to the graph
+        ga.init(g);
+        ga.setStrategy(WGraph_Algo.Strategy.CH);
+        double d = ga.shortestPathDist(0, 99);
+        assertTrue(ga.save(file));
+        assertTrue(new File(file + ".ch").isFile());
+        WGraph_Algo ga2 = new WGraph_Algo();
+        ga2.setStrategy(WGraph_Algo.Strategy.CH);
+        assertTrue(ga2.load(file));
+        assertEquals(d, ga2.shortestPathDist(0, 99));
+        assertEquals(ga2.getGraph().getNode(99), ga2.shortestPath(0, 99).get(ga2.shortestPath(0, 99).size() - 1));
+        WGraph_Algo dijkstra = new WGraph_Algo(); // the hierarchy of Hello.txt next to a graph with the same counts
+        dijkstra.init(other);
+        assertTrue(dijkstra.save(otherFile));
+        Files.copy(Paths.get(file + ".ch"), Paths.get(otherFile + ".ch"), StandardCopyOption.REPLACE_EXISTING);
+        WGraph_Algo ga3 = new WGraph_Algo();
+        ga3.setStrategy(WGraph_Algo.Strategy.CH);
+        assertTrue(ga3.load(otherFile));
+        assertEquals(dijkstra.shortestPathDist(0, 99), ga3.shortestPathDist(0, 99));
+        assertNotEquals(d, ga3.shortestPathDist(0, 99));
+        ga.setStrategy(WGraph_Algo.Strategy.DIJKSTRA);
+        ga.init(g);
+        assertTrue(ga.save(file));
+        assertFalse(new File(file + ".ch").exists());
+    }
+
+    private static void check(weighted_graph g, int queries, int seed) {
+        WGraph_CH ch = new WGraph_CH(g);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        Random rand = new Random(seed);
+        int n = g.nodeSize();
+        for (int i = 0; i < queries; i++) {
+            int src = rand.nextInt(n);
+            int dest = rand.nextInt(n);
+            double expected = ga.shortestPathDist(src, dest);
+            assertEquals(expected, ch.shortestPathDist(src, dest), 1e-9);
+            List<node_info> path = ch.shortestPath(src, dest);
+            if (expected == -1) {
+                assertNull(path);
+                continue;
+            }
+            assertEquals(src, path.get(0).getKey());
+            assertEquals(dest, path.get(path.size() - 1).getKey());
+            double sum = 0;
+            for (int k = 1; k < path.size(); k++) {
+                assertTrue(g.hasEdge(path.get(k - 1).getKey(), path.get(k).getKey()));
+                sum += g.getEdge(path.get(k - 1).getKey(), path.get(k).getKey());
+            }
+            assertEquals(expected, sum, 1e-9);
+        }
+    }
+
+    private static weighted_graph gridCreator(int rows, int cols, int seed) {
+        weighted_graph graph = new WGraph_DS();
+        Random rand = new Random(seed);
+        for (int i = 0; i < rows * cols; i++) {
+            graph.addNode(i);
+        }
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (c + 1 < cols) {
+                    graph.connect(r * cols + c, r * cols + c + 1, 1 + rand.nextInt(10));
+                }
+                if (r + 1 < rows) {
+                    graph.connect(r * cols + c, (r + 1) * cols + c, 1 + rand.nextInt(10));
+                }
+            }
+        }
+        return graph;
+    }
+
+    private static weighted_graph graphCreator(int vSize, int eSize, int weight, int seed) {
+        weighted_graph graph = new WGraph_DS();
+        Random rand = new Random(seed);
+        for (int i = 0; i < vSize; i++) {
+            graph.addNode(i);
+        }
+        while (graph.edgeSize() < eSize) {
+            graph.connect(rand.nextInt(vSize), rand.nextInt(vSize), rand.nextInt(weight));
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,205 @@
+package ex1.tests;
+
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_CSR;
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+import ex1.src.weighted_graph;
+import ex1.src.weighted_graph_algorithms;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is a TEST class for the CSR weighted_graph, checks it answers the same as the WGraph_DS it was frozen from.
+ */
+class WGraph_CSRTest {
+
+    @Test
+    void getNode() {
+        weighted_graph g = new WGraph_CSR(graph());
+        assertEquals(3, g.getNode(3).getKey());
+        assertEquals(6, g.getNode(6).getKey());
+        assertNull(g.getNode(16));
+        assertNull(g.getNode(-1));
+    }
+
+    @Test
+    void hasEdgeAndGetEdge() {
+        weighted_graph ds = graph();
+        weighted_graph g = new WGraph_CSR(ds);
+        for (int i = -1; i < 16; i++) {
+            for (int j = -1; j < 16; j++) {
+                assertEquals(ds.hasEdge(i, j), g.hasEdge(i, j));
+                assertEquals(ds.getEdge(i, j), g.getEdge(i, j));
+            }
+        }
+        assertEquals(5, g.getEdge(12, 5));
+        assertEquals(-1, g.getEdge(10, 11));
+    }
+
+    @Test
+    void getVNeighbors() {
+        weighted_graph ds = graphCreator(200, 1000, 30, 7);
+        weighted_graph g = new WGraph_CSR(ds);
+        assertEquals(ds.nodeSize(), g.nodeSize());
+        assertEquals(ds.edgeSize(), g.edgeSize());
+        assertEquals(ds.getMC(), g.getMC());
+        for (node_info n : ds.getV()) {
+            assertEquals(ds.getV(n.getKey()).size(), g.getV(n.getKey()).size());
+            for (node_info k : g.getV(n.getKey())) {
+                assertTrue(ds.hasEdge(n.getKey(), k.getKey()));
+            }
+            int[] count = new int[1];
+            g.forEachNeighbor(n.getKey(), (k, w) -> {
+                assertEquals(ds.getEdge(n.getKey(), k), w);
+                count[0]++;
+            });
+            assertEquals(ds.getV(n.getKey()).size(), count[0]);
+        }
+        assertTrue(g.getV(200).isEmpty());
+        g.forEachNeighbor(200, (k, w) -> fail("there is no node 200"));
+    }
+
+    @Test
+    void immutable() {
+        weighted_graph g = new WGraph_CSR(graph());
+        assertThrows(UnsupportedOperationException.class, () -> g.addNode(20));
+        assertThrows(UnsupportedOperationException.class, () -> g.connect(1, 3, 2));
+        assertThrows(UnsupportedOperationException.class, () -> g.removeEdge(1, 2));
+        assertThrows(UnsupportedOperationException.class, () -> g.removeNode(1));
+        assertThrows(UnsupportedOperationException.class, () -> g.getV().clear());
+    }
+
+    @Test
+    void algorithms() {
+        weighted_graph ds = graph();
+        weighted_graph_algorithms ga = new WGraph_Algo();
+        ga.init(new WGraph_CSR(ds));
+        assertFalse(ga.isConnected());
+        assertEquals(17, ga.shortestPathDist(1, 6));
+        assertEquals(3, ga.shortestPath(13, 5).size());
+        assertEquals(ds, ga.copy());
+    }
+
+    /**
+     * FLOAT and FIXED weights: every weight and every shortest distance within the documented error of the exact one.
+     */
+    @Test
+    void weightStorage() {
+        WGraph_DS ds = new WGraph_DS();
+        Random rand = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            ds.addNode(i);
+        }
+        while (ds.edgeSize() < 2000) {
+            ds.connect(rand.nextInt(500), rand.nextInt(500), rand.nextDouble() * 1000);
+        }
+        double scale = 1000;
+        WGraph_CSR floats = new WGraph_CSR(ds, WGraph_CSR.WeightStorage.FLOAT, 0);
+        WGraph_CSR fixed = new WGraph_CSR(ds, WGraph_CSR.WeightStorage.FIXED, scale);
+        assertEquals(WGraph_CSR.WeightStorage.FLOAT, floats.getWeightStorage());
+        assertEquals(1, floats.getScale());
+        assertEquals(scale, fixed.getScale());
+        assertEquals(ds.edgeSize(), floats.edgeSize());
+        double u = Math.pow(2, -24), e = 0.5 / scale;
+        for (node_info n : ds.getV()) {
+            for (node_info ni : ds.getV(n.getKey())) {
+                double w = ds.getEdge(n.getKey(), ni.getKey());
+                assertEquals((float) w, floats.getEdge(n.getKey(), ni.getKey()));
+                assertEquals(w, floats.getEdge(n.getKey(), ni.getKey()), w * u);
+                assertEquals(w, fixed.getEdge(n.getKey(), ni.getKey()), e);
+            }
+        }
+        WGraph_Algo exact = new WGraph_Algo(), f = new WGraph_Algo(), x = new WGraph_Algo();
+        exact.init(ds);
+        f.init(floats);
+        x.init(fixed);
+        for (int i = 0; i < 200; i++) {
+            int a = rand.nextInt(500), b = rand.nextInt(500);
+            double d = exact.shortestPathDist(a, b);
+            if (d < 0) {
+                assertEquals(-1, f.shortestPathDist(a, b));
+                continue;
+            }
+            int k = Math.max(exact.shortestPath(a, b).size(), x.shortestPath(a, b).size()) - 1;
+            assertEquals(d, f.shortestPathDist(a, b), d * u + 1e-9);
+            assertEquals(d, x.shortestPathDist(a, b), k * e + 1e-9);
+        }
+        assertNotEquals(floats, new WGraph_CSR(ds));
+        assertEquals(fixed, new WGraph_CSR(ds, WGraph_CSR.WeightStorage.FIXED, scale));
+
+        WGraph_DS heavy = new WGraph_DS();
+        heavy.addNode(1);
+        heavy.addNode(2);
+        heavy.connect(1, 2, 2.5);
+        assertEquals(2.5, new WGraph_CSR(heavy, WGraph_CSR.WeightStorage.FIXED, 100).getEdge(2, 1));
+        heavy.connect(1, 2, 1e300);
+        assertThrows(IllegalArgumentException.class, () -> new WGraph_CSR(heavy, WGraph_CSR.WeightStorage.FLOAT, 0));
+        assertThrows(IllegalArgumentException.class, () -> new WGraph_CSR(heavy, WGraph_CSR.WeightStorage.FIXED, 100));
+        heavy.connect(1, 2, Double.POSITIVE_INFINITY);
+        assertEquals(Double.POSITIVE_INFINITY, new WGraph_CSR(heavy, WGraph_CSR.WeightStorage.FLOAT, 0).getEdge(1, 2));
+        assertThrows(IllegalArgumentException.class, () -> new WGraph_CSR(heavy, WGraph_CSR.WeightStorage.FIXED, 100));
+        assertThrows(IllegalArgumentException.class, () -> new WGraph_CSR(ds, WGraph_CSR.WeightStorage.FIXED, 0));
+
+        // connect never takes these weights, another weighted_graph may still return them
+        for (double w : new double[] {Double.NaN, -1e300, Double.NEGATIVE_INFINITY}) {
+            weighted_graph odd = withWeight(heavy, w);
+            assertThrows(IllegalArgumentException.class, () -> new WGraph_CSR(odd, WGraph_CSR.WeightStorage.FLOAT, 0));
+            assertThrows(IllegalArgumentException.class, () -> new WGraph_CSR(odd, WGraph_CSR.WeightStorage.FIXED, 100));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new WGraph_CSR(withWeight(heavy, Integer.MIN_VALUE / 100.0 - 1), WGraph_CSR.WeightStorage.FIXED, 100));
+        assertEquals(-2.5, new WGraph_CSR(withWeight(heavy, -2.5), WGraph_CSR.WeightStorage.FIXED, 100).getEdge(1, 2));
+        assertEquals(-2.5, new WGraph_CSR(withWeight(heavy, -2.5), WGraph_CSR.WeightStorage.FLOAT, 0).getEdge(1, 2));
+    }
+
+    /**
+     * A copy of g which reports the weight w for every edge.
+     */
+    private static weighted_graph withWeight(weighted_graph g, double w) {
+        return new WGraph_DS(g) {
+            @Override
+            public double getEdge(int node1, int node2) {
+                return hasEdge(node1, node2) ? w : -1;
+            }
+        };
+    }
+
+    private static weighted_graph graphCreator(int vSize, int eSize, int weight, int seed) {
+        weighted_graph graph = new WGraph_DS();
+        Random rand = new Random(seed);
+        for (int i = 0; i < vSize; i++) {
+            graph.addNode(i);
+        }
+        while (graph.edgeSize() < eSize) {
+            graph.connect(rand.nextInt(vSize), rand.nextInt(vSize), rand.nextInt(weight));
+        }
+        return graph;
+    }
+
+    private static weighted_graph graph() {
+        weighted_graph g = new WGraph_DS();
+        for (int i = 1; i < 15; i++) {
+            g.addNode(i);
+        }
+        g.connect(1, 2, 5);
+        g.connect(2, 3, 2);
+        g.connect(2, 4, 1);
+        g.connect(3, 4, 10);
+        g.connect(5, 4, 12);
+        g.connect(5, 6, 1);
+        g.connect(6, 11, 8);
+        g.connect(7, 3, 2);
+        g.connect(7, 4, 2);
+        g.connect(7, 9, 5);
+        g.connect(9, 14, 7);
+        g.connect(9, 5, 3);
+        g.connect(5, 12, 5);
+        g.connect(12, 13, 7);
+        return g;
+    }
+}
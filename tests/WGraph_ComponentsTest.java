@@ -0,0 +1,156 @@
+package ex1.tests;
+
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_Components;
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+import ex1.src.weighted_graph;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is a TEST class for the connected components labeling WGraph_Components.
+ */
+class WGraph_ComponentsTest {
+
+    @Test
+    void labels() {
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < 10; i++) {
+            g.addNode(i);
+        }
+        g.connect(0, 1, 1);
+        g.connect(1, 2, 0);
+        g.connect(3, 4, 5);
+        g.connect(5, 6, 1);
+        g.connect(6, 7, 1);
+        g.connect(7, 5, 1);
+        g.connect(8, 7, 2);
+        WGraph_Components c = new WGraph_Components(g);
+        assertEquals(4, c.count()); // {0,1,2} {3,4} {5,6,7,8} {9}
+        assertFalse(c.isConnected());
+        assertTrue(c.sameComponent(0, 2));
+        assertTrue(c.sameComponent(8, 5));
+        assertFalse(c.sameComponent(2, 3));
+        assertFalse(c.sameComponent(9, 10));
+        assertEquals(-1, c.componentOf(10));
+        assertEquals(4, c.size(c.largest()));
+        assertEquals(c.componentOf(6), c.largest());
+        assertEquals(1, c.size(c.componentOf(9)));
+        assertArrayEquals(new int[]{3, 2, 4, 1}, c.sizes()); // ids by the first node of each component
+        List<node_info> nodes = c.nodes(c.componentOf(3));
+        assertEquals(2, nodes.size());
+        assertSame(g.getNode(3), nodes.get(0));
+        assertSame(g.getNode(4), nodes.get(1));
+        assertTrue(c.isValidFor(g));
+        g.connect(2, 3, 1);
+        assertFalse(c.isValidFor(g));
+    }
+
+    /**
+     * A labeling keeps answering for the version it was built for while the graph changes under it.
+     */
+    @Test
+    void graphChangedAfterLabeling() {
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < 4; i++) {
+            g.addNode(i);
+        }
+        g.connect(0, 1, 1);
+        g.connect(2, 3, 1);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        WGraph_Components c = ga.components();
+        assertEquals(2, c.count());
+        g.removeNode(1);
+        assertFalse(c.isValidFor(g));
+        assertEquals(c.componentOf(0), c.componentOf(1)); // the labeled version
+        assertTrue(c.sameComponent(0, 1));
+        assertEquals(2, c.size(c.componentOf(0)));
+        assertThrows(IllegalStateException.class, () -> c.nodes(c.componentOf(0)));
+        for (int i = 10; i < 100; i++) {
+            g.addNode(i);
+        }
+        assertEquals(-1, c.componentOf(50));
+        assertFalse(c.sameComponent(50, 0));
+        assertEquals(0, c.componentOf(0));
+        WGraph_Components now = ga.components();
+        assertNotSame(c, now);
+        assertEquals(92, now.count());
+        assertEquals(1, now.nodes(now.componentOf(0)).size());
+        assertSame(g.getNode(50), now.nodes(now.componentOf(50)).get(0));
+    }
+
+    @Test
+    void emptyAndSingle() {
+        weighted_graph g = new WGraph_DS();
+        WGraph_Components c = new WGraph_Components(g);
+        assertEquals(0, c.count());
+        assertTrue(c.isConnected());
+        assertEquals(-1, c.largest());
+        g.addNode(7);
+        c = new WGraph_Components(g);
+        assertEquals(1, c.count());
+        assertTrue(c.isConnected());
+        assertEquals(0, c.componentOf(7));
+    }
+
+    @Test
+    void matchesBfs() {
+        Random rand = new Random(1);
+        for (int t = 0; t < 50; t++) {
+            int n = 1 + rand.nextInt(200);
+            weighted_graph g = new WGraph_DS();
+            for (int i = 0; i < n; i++) {
+                g.addNode(i * 3);
+            }
+            int e = rand.nextInt(n * 2);
+            for (int i = 0; i < e; i++) {
+                g.connect(rand.nextInt(n) * 3, rand.nextInt(n) * 3, rand.nextDouble());
+            }
+            Map<Integer, Integer> expected = bfsLabels(g);
+            WGraph_Components c = new WGraph_Components(g);
+            for (node_info a : g.getV()) {
+                for (node_info b : g.getV()) {
+                    assertEquals(expected.get(a.getKey()).equals(expected.get(b.getKey())), c.sameComponent(a.getKey(), b.getKey()));
+                }
+            }
+            WGraph_Algo ga = new WGraph_Algo();
+            ga.init(g);
+            assertEquals(new HashMap<>(expected).values().stream().distinct().count() <= 1, ga.isConnected());
+            assertSame(ga.components(), ga.components());
+        }
+    }
+
+    private static Map<Integer, Integer> bfsLabels(weighted_graph g) {
+        Map<Integer, Integer> label = new HashMap<>();
+        int id = 0;
+        for (node_info s : g.getV()) {
+            if (label.containsKey(s.getKey())) {
+                continue;
+            }
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            queue.add(s.getKey());
+            label.put(s.getKey(), id);
+            while (!queue.isEmpty()) {
+                int u = queue.poll();
+                for (node_info ni : g.getV(u)) {
+                    if (!label.containsKey(ni.getKey())) {
+                        label.put(ni.getKey(), id);
+                        queue.add(ni.getKey());
+                    }
+                }
+            }
+            id++;
+        }
+        return label;
+    }
+}
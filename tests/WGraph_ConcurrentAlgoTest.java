@@ -0,0 +1,96 @@
+package ex1.tests;
+
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_ConcurrentAlgo;
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+import ex1.src.weighted_graph;
+import ex1.src.weighted_graph_algorithms;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is a TEST class for the thread safe WGraph_ConcurrentAlgo, runs many queries at once on one shared graph.
+ */
+class WGraph_ConcurrentAlgoTest {
+
+    @Test
+    void concurrentQueriesMatchSequential() throws Exception {
+        weighted_graph g = graphCreator(2000, 6000, 50, 3);
+        weighted_graph_algorithms seq = new WGraph_Algo();
+        seq.init(g);
+        weighted_graph_algorithms ga = new WGraph_ConcurrentAlgo();
+        ga.init(g);
+        Random rand = new Random(3);
+        int q = 400;
+        int[] src = new int[q];
+        int[] dest = new int[q];
+        double[] expected = new double[q];
+        for (int i = 0; i < q; i++) {
+            src[i] = rand.nextInt(2000);
+            dest[i] = rand.nextInt(2000);
+            expected[i] = seq.shortestPathDist(src[i], dest[i]);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < q; i++) {
+                        assertEquals(expected[i], ga.shortestPathDist(src[i], dest[i]));
+                        List<node_info> path = ga.shortestPath(src[i], dest[i]);
+                        if (expected[i] == -1) {
+                            assertNull(path);
+                        } else {
+                            assertEquals(src[i], path.get(0).getKey());
+                            assertEquals(dest[i], path.get(path.size() - 1).getKey());
+                        }
+                    }
+                    assertEquals(seq.isConnected(), ga.isConnected());
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void indexFollowsGraphChanges() {
+        weighted_graph g = graphCreator(10, 0, 1, 1);
+        weighted_graph_algorithms ga = new WGraph_ConcurrentAlgo();
+        ga.init(g);
+        assertEquals(-1, ga.shortestPathDist(0, 9));
+        for (int i = 0; i < 9; i++) {
+            g.connect(i, i + 1, 2);
+        }
+        assertEquals(18, ga.shortestPathDist(0, 9));
+        g.addNode(10);
+        g.connect(9, 10, 1);
+        assertEquals(19, ga.shortestPathDist(0, 10));
+        assertTrue(ga.isConnected());
+    }
+
+    private static weighted_graph graphCreator(int vSize, int eSize, int weight, int seed) {
+        weighted_graph graph = new WGraph_DS();
+        Random rand = new Random(seed);
+        for (int i = 0; i < vSize; i++) {
+            graph.addNode(i);
+        }
+        while (graph.edgeSize() < eSize) {
+            graph.connect(rand.nextInt(vSize), rand.nextInt(vSize), rand.nextInt(weight));
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,216 @@
+package ex1.tests;
+
+
+import ex1.src.WGraph_ConcurrentAlgo;
+import ex1.src.WGraph_ConcurrentDS;
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+import ex1.src.weighted_graph;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is a TEST class for WGraph_ConcurrentDS, the single thread behavior (the same as WGraph_DS),
+ * changes from many threads at once, snapshot reads while the graph changes and a read/write contention benchmark.
+ */
+class WGraph_ConcurrentDSTest {
+
+    @Test
+    void singleThread() {
+        weighted_graph g = graph();
+        assertEquals(14, g.nodeSize());
+        assertEquals(14, g.edgeSize());
+        assertEquals(28, g.getMC());
+        assertEquals(5, g.getEdge(2, 1));
+        assertEquals(-1, g.getEdge(1, 3));
+        assertFalse(g.hasEdge(1, 1));
+        g.connect(1, 2, 5); // same weight, no change
+        g.connect(1, 1, 5);
+        g.connect(1, 99, 5);
+        assertEquals(28, g.getMC());
+        g.connect(2, 1, 6);
+        assertEquals(6, g.getEdge(1, 2));
+        assertEquals(29, g.getMC());
+
+        Collection<node_info> nodes = g.getV();
+        Collection<node_info> ni = g.getV(5);
+        assertEquals(4, ni.size());
+        assertTrue(ni.contains(g.getNode(9)));
+        assertEquals(5, g.removeNode(5).getKey());
+        assertNull(g.removeNode(5));
+        assertEquals(13, g.nodeSize());
+        assertEquals(10, g.edgeSize());
+        assertEquals(34, g.getMC());
+        assertFalse(g.hasEdge(12, 5));
+        assertEquals(0, g.getV(5).size());
+        assertEquals(14, nodes.size()); // the snapshots did not change
+        assertEquals(4, ni.size());
+        g.removeEdge(2, 3);
+        g.removeEdge(2, 3);
+        assertEquals(9, g.edgeSize());
+        assertEquals(35, g.getMC());
+
+        g.getNode(1).setInfo("one");
+        WGraph_DS ds = new WGraph_DS(g);
+        WGraph_ConcurrentDS back = new WGraph_ConcurrentDS(ds);
+        assertEquals(ds, new WGraph_DS(back));
+        assertEquals("one", back.getNode(1).getInfo());
+        assertEquals(g.getMC(), back.getMC());
+    }
+
+    /**
+     * 4 threads add and remove nodes and edges of one small graph (so they collide all the time),
+     * then the graph must be consistent: symmetric edges with equal weights and counts which match.
+     */
+    @Test
+    void concurrentChanges() throws Exception {
+        WGraph_ConcurrentDS g = new WGraph_ConcurrentDS();
+        int n = 300;
+        for (int i = 0; i < n; i++) {
+            g.addNode(i);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int seed = t;
+            done.add(pool.submit(() -> {
+                Random rand = new Random(seed);
+                for (int i = 0; i < 50000; i++) {
+                    int a = rand.nextInt(n), b = rand.nextInt(n), op = rand.nextInt(100);
+                    if (op < 60) {
+                        g.connect(a, b, rand.nextInt(10));
+                    } else if (op < 95) {
+                        g.removeEdge(a, b);
+                    } else {
+                        g.removeNode(a);
+                        g.addNode(a);
+                    }
+                }
+            }));
+        }
+        for (Future<?> f : done) {
+            f.get();
+        }
+        pool.shutdown();
+        assertEquals(n, g.nodeSize());
+        int halfEdges = 0;
+        for (node_info node : g.getV()) {
+            for (node_info ni : g.getV(node.getKey())) {
+                assertSame(ni, g.getNode(ni.getKey()));
+                assertEquals(g.getEdge(node.getKey(), ni.getKey()), g.getEdge(ni.getKey(), node.getKey()));
+                halfEdges++;
+            }
+        }
+        assertEquals(g.edgeSize() * 2, halfEdges);
+        WGraph_DS ds = new WGraph_DS(g);
+        assertEquals(ds.edgeSize(), g.edgeSize());
+    }
+
+    /**
+     * Readers iterate the nodes and the neighbors and run shortest path queries on a grid while writers change
+     * its weights (live traffic) and remove and put back its edges. The searches read every neighbor with its weight
+     * in one forEachNeighbor call, so an edge removed between two reads never shows up as a weight of -1.
+     */
+    @Test
+    void readsWhileChanging() throws Exception {
+        int side = 40;
+        WGraph_ConcurrentDS g = new WGraph_ConcurrentDS();
+        for (int i = 0; i < side * side; i++) {
+            g.addNode(i);
+        }
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                if (c + 1 < side) {
+                    g.connect(r * side + c, r * side + c + 1, 1);
+                }
+                if (r + 1 < side) {
+                    g.connect(r * side + c, (r + 1) * side + c, 1);
+                }
+            }
+        }
+        WGraph_ConcurrentAlgo ga = new WGraph_ConcurrentAlgo();
+        ga.init(g);
+        AtomicBoolean stop = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            writers.add(pool.submit(() -> {
+                ThreadLocalRandom rand = ThreadLocalRandom.current();
+                while (!stop.get()) {
+                    int a = rand.nextInt(side * side);
+                    if (a % side + 1 < side) {
+                        g.connect(a, a + 1, 1 + rand.nextInt(9)); // a new weight for a grid edge
+                    }
+                    if (a + side < side * side) {
+                        g.removeEdge(a, a + side); // gone for a moment
+                        g.connect(a, a + side, 1 + rand.nextInt(9));
+                    }
+                }
+            }));
+        }
+        List<Future<?>> readers = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            readers.add(pool.submit(() -> {
+                ThreadLocalRandom rand = ThreadLocalRandom.current();
+                for (int i = 0; i < 200; i++) {
+                    assertEquals(side * side, g.getV().size());
+                    int a = rand.nextInt(side * side);
+                    Collection<node_info> ni = g.getV(a);
+                    int count = 0;
+                    for (node_info n : ni) {
+                        assertNotNull(n);
+                        count++;
+                    }
+                    assertEquals(ni.size(), count);
+                    double d = ga.shortestPathDist(a, rand.nextInt(side * side));
+                    assertTrue(d >= 0 || d == -1); // -1 if the removed edges cut the graph for a moment
+                }
+            }));
+        }
+        try {
+            for (Future<?> f : readers) {
+                f.get();
+            }
+        } finally {
+            stop.set(true);
+            for (Future<?> f : writers) {
+                f.get();
+            }
+            pool.shutdown();
+        }
+        assertEquals(2 * side * (side - 1), g.edgeSize());
+    }
+
+    private static weighted_graph graph() {
+        weighted_graph g = new WGraph_ConcurrentDS();
+        for (int i = 1; i < 15; i++) {
+            g.addNode(i);
+        }
+        g.connect(1, 2, 5);
+        g.connect(2, 3, 2);
+        g.connect(2, 4, 1);
+        g.connect(3, 4, 10);
+        g.connect(5, 4, 12);
+        g.connect(5, 6, 1);
+        g.connect(6, 11, 8);
+        g.connect(7, 3, 2);
+        g.connect(7, 4, 2);
+        g.connect(7, 9, 5);
+        g.connect(9, 14, 7);
+        g.connect(9, 5, 3);
+        g.connect(5, 12, 5);
+        g.connect(12, 13, 7);
+        return g;
+    }
+}
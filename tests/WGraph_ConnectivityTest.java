@@ -0,0 +1,141 @@
+package ex1.tests;
+
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_Components;
+import ex1.src.WGraph_Connectivity;
+import ex1.src.WGraph_DS;
+import ex1.src.node_info;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is a TEST class for the incremental connectivity index of WGraph_DS,
+ * every answer is compared to the batch labeling of WGraph_Components.
+ */
+class WGraph_ConnectivityTest {
+
+    @Test
+    void followsChanges() {
+        WGraph_DS g = new WGraph_DS();
+        WGraph_Connectivity c = g.trackConnectivity();
+        assertSame(c, g.trackConnectivity());
+        assertTrue(c.isConnected());
+        g.addNode(1);
+        g.addNode(2);
+        g.addNode(3);
+        assertEquals(3, c.componentCount());
+        g.connect(1, 2, 1);
+        g.connect(2, 3, 1);
+        assertTrue(c.isConnected());
+        assertTrue(c.sameComponent(1, 3));
+        g.connect(1, 3, 5);
+        g.removeEdge(1, 2); // still connected through 3
+        assertTrue(c.sameComponent(1, 2));
+        g.removeEdge(2, 3); // 2 breaks off
+        assertFalse(c.sameComponent(1, 2));
+        assertTrue(c.sameComponent(1, 3));
+        assertEquals(2, c.componentCount());
+        g.removeNode(2);
+        assertTrue(c.isConnected());
+        assertFalse(c.sameComponent(1, 2));
+        g.addNode(4);
+        g.connect(4, 3, 0);
+        g.connect(4, 1, 0);
+        g.removeNode(4);
+        assertTrue(c.sameComponent(1, 3));
+        g.removeNode(3);
+        assertTrue(c.isConnected());
+        assertTrue(c.sameComponent(1, 1));
+        assertEquals(1, c.rebuildCount());
+        g.untrackConnectivity();
+        assertNotSame(c, g.trackConnectivity());
+    }
+
+    @Test
+    void matchesBatch() {
+        Random rand = new Random(1);
+        for (int t = 0; t < 20; t++) {
+            WGraph_DS g = new WGraph_DS();
+            int keys = 10 + rand.nextInt(150);
+            WGraph_Connectivity c = g.trackConnectivity();
+            for (int op = 0; op < 2000; op++) {
+                int r = rand.nextInt(10);
+                int a = rand.nextInt(keys);
+                int b = rand.nextInt(keys);
+                if (r < 2) {
+                    g.addNode(a);
+                } else if (r < 6) {
+                    g.connect(a, b, rand.nextDouble());
+                } else if (r < 9) {
+                    removeRandomEdge(g, rand);
+                } else if (rand.nextInt(4) == 0) {
+                    g.removeNode(a);
+                }
+                if (op % 10 == 0) {
+                    check(g, c, rand);
+                }
+            }
+            check(g, c, rand);
+        }
+    }
+
+    @Test
+    void largeSplitRebuilds() {
+        WGraph_DS g = new WGraph_DS();
+        for (int i = 0; i < 20000; i++) { // two long paths joined by one edge
+            g.addNode(i);
+        }
+        for (int i = 1; i < 20000; i++) {
+            if (i != 10000) {
+                g.connect(i - 1, i, 1);
+            }
+        }
+        g.connect(9999, 10000, 1);
+        WGraph_Connectivity c = g.trackConnectivity();
+        assertTrue(c.isConnected());
+        g.removeEdge(9999, 10000); // both sides are larger than the search budget
+        assertFalse(c.isConnected());
+        assertEquals(2, c.rebuildCount());
+        assertFalse(c.sameComponent(0, 19999));
+        g.removeEdge(0, 1); // the small side is found by the bounded search
+        assertEquals(3, c.componentCount());
+        assertEquals(2, c.rebuildCount());
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        assertFalse(ga.isConnected());
+    }
+
+    private static void removeRandomEdge(WGraph_DS g, Random rand) {
+        if (g.nodeSize() == 0) {
+            return;
+        }
+        List<node_info> nodes = new ArrayList<>(g.getV());
+        for (int k = 0; k < 10; k++) {
+            node_info a = nodes.get(rand.nextInt(nodes.size()));
+            if (!g.getV(a.getKey()).isEmpty()) {
+                node_info b = g.getV(a.getKey()).iterator().next();
+                g.removeEdge(a.getKey(), b.getKey());
+                return;
+            }
+        }
+    }
+
+    private static void check(WGraph_DS g, WGraph_Connectivity c, Random rand) {
+        WGraph_Components batch = new WGraph_Components(g);
+        assertEquals(batch.count(), c.componentCount());
+        assertEquals(batch.isConnected(), c.isConnected());
+        List<node_info> nodes = new ArrayList<>(g.getV());
+        for (int k = 0; k < 50 && !nodes.isEmpty(); k++) {
+            int a = nodes.get(rand.nextInt(nodes.size())).getKey();
+            int b = nodes.get(rand.nextInt(nodes.size())).getKey();
+            assertEquals(batch.sameComponent(a, b), c.sameComponent(a, b));
+        }
+        assertFalse(c.sameComponent(-5, -5));
+    }
+}
@@ -1,12 +1,22 @@
 package ex1.tests;
 
 
+import ex1.src.WGraph_Algo;
 import ex1.src.WGraph_DS;
 import ex1.src.node_info;
 import ex1.src.weighted_graph;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.ref.WeakReference;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -121,6 +131,91 @@ class WGraph_DSTest {
         assertTrue(g.getV(5).contains(g.getNode(12)));
     }
 
+    @Test
+    void forEachNeighbor() {
+        weighted_graph g = graph();
+        double[] sum = new double[2];
+        g.forEachNeighbor(5, (n, w) -> {
+            assertTrue(g.getV(5).contains(g.getNode(n)));
+            assertEquals(g.getEdge(5, n), w);
+            sum[0]++;
+            sum[1] += w;
+        });
+        assertEquals(4, sum[0]);
+        assertEquals(21, sum[1]); // 12 + 1 + 3 + 5
+        g.addNode(20);
+        g.forEachNeighbor(20, (n, w) -> fail("node 20 has no neighbors"));
+        g.forEachNeighbor(21, (n, w) -> fail("there is no node 21"));
+        assertSame(g.getV(20), g.getV(21)); // both empty, nothing allocated
+        g.removeEdge(5, 9);
+        g.forEachNeighbor(5, (n, w) -> assertNotEquals(9, n));
+    }
+
+    @Test
+    void denseIndex() throws Exception {
+        WGraph_DS g = (WGraph_DS) graph();
+        assertEquals(14, g.indexBound());
+        for (int i = 0; i < 14; i++) { // in the order the nodes were added
+            assertEquals(i + 1, g.keyAt(i));
+            assertEquals(i, g.indexOf(i + 1));
+            assertSame(g.getNode(i + 1), g.nodeAt(i));
+        }
+        assertEquals(-1, g.indexOf(15));
+        assertThrows(IndexOutOfBoundsException.class, () -> g.keyAt(14));
+
+        WGraph_DS snapshot = g.snapshot();
+        g.removeNode(5);
+        g.removeNode(9);
+        assertEquals(14, g.indexBound()); // the other nodes keep their indexes
+        assertEquals(-1, g.indexOf(5));
+        assertNull(g.nodeAt(4));
+        assertThrows(NoSuchElementException.class, () -> g.keyAt(8));
+        assertEquals(9, g.indexOf(10));
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        assertEquals(-1, ga.shortestPathDist(1, 11)); // 11 was reached through 5 only
+
+        g.addNode(100); // takes the last freed index
+        g.addNode(101);
+        g.addNode(102);
+        assertEquals(8, g.indexOf(100));
+        assertEquals(4, g.indexOf(101));
+        assertEquals(14, g.indexOf(102));
+        assertEquals(15, g.indexBound());
+        assertEquals(100, g.keyAt(8));
+        g.connect(1, 100, 1);
+        g.connect(100, 11, 1);
+        assertEquals(2, ga.shortestPathDist(1, 11));
+
+        assertEquals(4, snapshot.indexOf(5)); // the snapshot keeps the index of its version
+        assertEquals(5, snapshot.keyAt(4));
+        assertEquals(-1, snapshot.indexOf(100));
+        assertEquals(14, snapshot.indexBound());
+
+        WGraph_DS copy = new WGraph_DS(g);
+        g.removeNode(100);
+        assertEquals(8, copy.indexOf(100));
+        assertEquals(14, copy.indexOf(102));
+        copy.addNode(103);
+        assertEquals(15, copy.indexOf(103));
+        assertEquals(-1, g.indexOf(103));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(g);
+        }
+        WGraph_DS read;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read = (WGraph_DS) in.readObject();
+        }
+        assertEquals(g.indexBound(), read.indexBound());
+        for (node_info n : g.getV()) {
+            assertEquals(g.indexOf(n.getKey()), read.indexOf(n.getKey()));
+        }
+        read.addNode(104); // the freed index of 100
+        assertEquals(8, read.indexOf(104));
+    }
+
     @Test
     void removeNode() {
         weighted_graph g = graph();
@@ -170,6 +265,171 @@ class WGraph_DSTest {
         assertEquals(28,g.getMC());
         assertEquals(0,h.getMC());
     }
+    @Test
+    void copyOnWrite() throws Exception {
+        WGraph_DS g = (WGraph_DS) graph();
+        g.getNode(1).setInfo("one");
+        WGraph_DS h = new WGraph_DS(g);
+        assertEquals(g, h);
+        assertEquals(g.getMC(), h.getMC());
+        assertNotSame(g.getNode(1), h.getNode(1));
+
+        h.connect(1, 3, 4); // changes of the copy
+        h.connect(2, 3, 9);
+        h.removeEdge(5, 6);
+        h.removeNode(7);
+        h.addNode(20);
+        h.connect(20, 1, 1);
+        h.getNode(1).setInfo("uno");
+        assertFalse(g.hasEdge(1, 3));
+        assertEquals(2, g.getEdge(2, 3));
+        assertEquals(1, g.getEdge(6, 5));
+        assertEquals(3, g.getV(7).size());
+        assertNull(g.getNode(20));
+        assertEquals("one", g.getNode(1).getInfo());
+        assertEquals(14, g.edgeSize());
+        assertEquals(28, g.getMC());
+        assertEquals(9, h.getEdge(3, 2));
+        assertFalse(h.hasEdge(6, 5));
+        assertEquals(12, h.edgeSize());
+
+        WGraph_DS k = new WGraph_DS(h); // a copy of a copy, then the original changes
+        g.removeEdge(9, 14);
+        g.connect(12, 13, 1);
+        h.removeNode(1);
+        assertTrue(k.hasEdge(9, 14));
+        assertEquals(7, k.getEdge(13, 12));
+        assertEquals(4, k.getEdge(3, 1));
+        assertEquals("uno", k.getNode(1).getInfo());
+        assertEquals(12, k.edgeSize());
+        assertFalse(h.hasEdge(3, 1));
+        assertTrue(h.getV(3).contains(h.getNode(2)));
+        assertEquals(new WGraph_DS(k), k);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(); // a graph and its copy in one stream share their maps
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new WGraph_DS[]{k, new WGraph_DS(k)});
+        }
+        WGraph_DS[] read;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read = (WGraph_DS[]) in.readObject();
+        }
+        read[0].removeEdge(3, 1);
+        assertEquals(4, read[1].getEdge(1, 3));
+        assertEquals(k, read[1]);
+    }
+
+    @Test
+    void snapshots() {
+        WGraph_DS g = (WGraph_DS) graph();
+        WGraph_DS v28 = g.snapshot();
+        assertTrue(v28.isSnapshot());
+        assertFalse(g.isSnapshot());
+        assertSame(v28, g.snapshot()); // no change, same version
+        assertSame(v28, v28.snapshot());
+        assertEquals(28, v28.getMC());
+        assertEquals(g, v28);
+        assertThrows(UnsupportedOperationException.class, () -> v28.connect(1, 3, 1));
+        assertThrows(UnsupportedOperationException.class, () -> v28.removeNode(1));
+        assertThrows(UnsupportedOperationException.class, () -> v28.removeEdge(1, 2));
+        assertThrows(UnsupportedOperationException.class, () -> v28.addNode(30));
+
+        g.connect(1, 2, 1);
+        g.removeNode(7);
+        g.addNode(20);
+        g.connect(20, 14, 2);
+        WGraph_DS v35 = g.snapshot();
+        assertNotSame(v28, v35);
+        assertEquals(35, v35.getMC());
+        g.removeEdge(20, 14);
+        assertEquals(5, v28.getEdge(1, 2));
+        assertEquals(1, v35.getEdge(2, 1));
+        assertEquals(3, v28.getV(7).size());
+        assertNull(v35.getNode(7));
+        assertEquals(2, v35.getEdge(14, 20));
+        assertEquals(14, v28.edgeSize());
+        assertEquals(14, v28.nodeSize());
+        assertFalse(g.hasEdge(20, 14));
+
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(v28);
+        assertEquals(7, ga.shortestPathDist(4, 9)); // 4-7-9 is gone from g
+        ga.init(g);
+        assertEquals(15, ga.shortestPathDist(4, 9));
+        WGraph_DS h = new WGraph_DS(v28); // a writable copy of an old version
+        h.connect(1, 3, 1);
+        assertFalse(v28.hasEdge(1, 3));
+        assertEquals(v28.edgeSize() + 1, h.edgeSize());
+    }
+
+    @Test
+    void snapshotsReclaimed() {
+        WGraph_DS g = (WGraph_DS) graph();
+        WeakReference<WGraph_DS> first = new WeakReference<>(g.snapshot());
+        for (int i = 0; i < 100; i++) { // 100 versions which nobody holds
+            g.connect(1, 2, i);
+            g.snapshot();
+        }
+        WGraph_DS last = g.snapshot();
+        for (int i = 0; i < 20 && first.get() != null; i++) {
+            System.gc();
+        }
+        assertNull(first.get());
+        assertSame(last, g.snapshot());
+        assertEquals(99, last.getEdge(1, 2));
+    }
+
+    /**
+     * A writer keeps changing a graph and hands a snapshot and a copy of every 500th version to a reader,
+     * which compares them (and their shortest paths) while the writer goes on.
+     */
+    @Test
+    void snapshotsWhileWriting() throws Exception {
+        WGraph_DS g = new WGraph_DS();
+        int n = 2000;
+        for (int i = 0; i < n; i++) {
+            g.addNode(i);
+        }
+        BlockingQueue<WGraph_DS[]> versions = new ArrayBlockingQueue<>(4);
+        Thread writer = new Thread(() -> {
+            Random rand = new Random(5);
+            try {
+                for (int i = 1; i <= 10000; i++) {
+                    int a = rand.nextInt(n), b = rand.nextInt(n);
+                    if (rand.nextInt(4) == 0) {
+                        g.removeEdge(a, b);
+                    } else {
+                        g.connect(a, b, rand.nextInt(20));
+                    }
+                    if (i % 500 == 0) {
+                        versions.put(new WGraph_DS[]{g.snapshot(), new WGraph_DS(g)});
+                    }
+                }
+                versions.put(new WGraph_DS[0]);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        writer.start();
+        WGraph_Algo onSnapshot = new WGraph_Algo(), onCopy = new WGraph_Algo();
+        Random rand = new Random(6);
+        int seen = 0;
+        for (WGraph_DS[] v = versions.take(); v.length > 0; v = versions.take()) {
+            onSnapshot.init(v[0]);
+            onCopy.init(v[1]);
+            for (int q = 0; q < 20; q++) {
+                int a = rand.nextInt(n), b = rand.nextInt(n);
+                assertEquals(onCopy.shortestPathDist(a, b), onSnapshot.shortestPathDist(a, b));
+            }
+            assertEquals(onCopy.isConnected(), onSnapshot.isConnected());
+            assertEquals(v[1], v[0]);
+            assertEquals(v[1].getMC(), v[0].getMC());
+            seen++;
+        }
+        writer.join();
+        assertEquals(20, seen);
+    }
+
     private static weighted_graph graph() {
         weighted_graph g = new WGraph_DS();
         for (int i = 1; i < 15; i++) {
@@ -0,0 +1,128 @@
+package ex1.tests;
+
+
+import ex1.src.WGraph_CSR;
+import ex1.src.WGraph_DS;
+import ex1.src.WGraph_EdgeList;
+import ex1.src.weighted_graph;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is a TEST class for the edge list import and export WGraph_EdgeList.
+ */
+class WGraph_EdgeListTest {
+    private static final String FILE = "Edges.txt";
+    private static final String GZ_FILE = "Edges.txt.gz";
+
+    @AfterEach
+    void cleanUp() {
+        new File(FILE).delete();
+        new File(GZ_FILE).delete();
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        Random rand = new Random(5);
+        for (int t = 0; t < 20; t++) {
+            weighted_graph g = new WGraph_DS();
+            int n = rand.nextInt(300);
+            for (int i = 0; i < n; i++) {
+                g.addNode(rand.nextInt(1000) - 500);
+            }
+            for (int i = 0; i < n * 2; i++) {
+                double w = rand.nextBoolean() ? rand.nextInt(100) : rand.nextDouble() * Math.pow(10, rand.nextInt(30) - 15);
+                g.connect(rand.nextInt(1000) - 500, rand.nextInt(1000) - 500, w);
+            }
+            g.addNode(Integer.MIN_VALUE);
+            g.addNode(Integer.MAX_VALUE);
+            g.connect(Integer.MIN_VALUE, Integer.MAX_VALUE, Double.POSITIVE_INFINITY);
+            WGraph_EdgeList.write(g, FILE);
+            assertEquals(g, WGraph_EdgeList.read(FILE));
+            assertEquals(g, WGraph_EdgeList.read(FILE, 3));
+            WGraph_EdgeList.write(new WGraph_CSR(g), GZ_FILE);
+            assertEquals(g, WGraph_EdgeList.read(GZ_FILE, 2));
+        }
+    }
+
+    @Test
+    void formats() throws IOException {
+        write(FILE, "# a comment\n% another one\n\n1 2 0.5\r\n2\t3\t1e1\n3,4,2.\n4 5\n  7  \n8 8 3\n2 1 0.25\n6 7 .125\n9 10 Infinity");
+        weighted_graph g = WGraph_EdgeList.read(FILE);
+        assertEquals(10, g.nodeSize());
+        assertEquals(6, g.edgeSize());
+        assertEquals(0.25, g.getEdge(1, 2)); // the last line of a repeated edge wins
+        assertEquals(10, g.getEdge(2, 3));
+        assertEquals(2, g.getEdge(3, 4));
+        assertEquals(1, g.getEdge(4, 5)); // no weight
+        assertEquals(0.125, g.getEdge(6, 7));
+        assertEquals(Double.POSITIVE_INFINITY, g.getEdge(9, 10));
+        assertNotNull(g.getNode(8)); // a self loop only adds the node
+        assertTrue(g.getV(8).isEmpty());
+        write(FILE, "");
+        assertEquals(0, WGraph_EdgeList.read(FILE).nodeSize());
+    }
+
+    @Test
+    void weightsMatchParseDouble() throws IOException {
+        Random rand = new Random(9);
+        StringBuilder text = new StringBuilder();
+        double[] expected = new double[2000];
+        for (int i = 0; i < expected.length; i++) {
+            int digits = 1 + rand.nextInt(17);
+            StringBuilder w = new StringBuilder();
+            for (int d = 0; d < digits; d++) {
+                w.append(rand.nextInt(10));
+            }
+            w.insert(rand.nextInt(digits + 1), '.');
+            expected[i] = Double.parseDouble(w + "0");
+            text.append(2 * i).append(' ').append(2 * i + 1).append(' ').append(w).append('\n');
+        }
+        write(FILE, text.toString());
+        weighted_graph g = WGraph_EdgeList.read(FILE);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], g.getEdge(2 * i, 2 * i + 1), "line " + (i + 1));
+        }
+    }
+
+    @Test
+    void badLines() throws IOException {
+        String[] lines = {"1 2 x", "1 2 -1", "1 x 2", "1 2 3 4", "3000000000 1 1", "1 2 NaN", "1- 2 3"};
+        for (String bad : lines) {
+            write(FILE, "1 2 3\n\n" + bad + "\n4 5 6\n");
+            IOException e = assertThrows(IOException.class, () -> WGraph_EdgeList.read(FILE));
+            assertTrue(e.getMessage().startsWith("line 3: "), e.getMessage());
+            e = assertThrows(IOException.class, () -> WGraph_EdgeList.read(FILE, 2));
+            assertTrue(e.getMessage().startsWith("line 3: "), e.getMessage());
+        }
+        assertThrows(IOException.class, () -> WGraph_EdgeList.read("no_such_file.txt"));
+        assertThrows(IllegalArgumentException.class, () -> WGraph_EdgeList.read(FILE, 0));
+    }
+
+    @Test
+    void gzipInput() throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(Paths.get(GZ_FILE)))) {
+            out.write("1 2 3\n2 3 4\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        weighted_graph g = WGraph_EdgeList.read(GZ_FILE);
+        assertEquals(2, g.edgeSize());
+        assertEquals(4, g.getEdge(3, 2));
+    }
+
+    private static void write(String file, String text) throws IOException {
+        try (OutputStream out = Files.newOutputStream(Paths.get(file))) {
+            out.write(text.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+}
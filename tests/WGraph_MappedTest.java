@@ -0,0 +1,186 @@
+package ex1.tests;
+
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_DS;
+import ex1.src.WGraph_Mapped;
+import ex1.src.node_info;
+import ex1.src.weighted_graph;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is a TEST class for the memory mapped weighted_graph, checks it answers the same as the WGraph_DS it was saved from.
+ */
+class WGraph_MappedTest {
+    private static final String FILE = "Mapped.bin";
+
+    @AfterEach
+    void cleanUp() {
+        new File(FILE).delete();
+        new File(FILE + ".ch").delete();
+    }
+
+    @Test
+    void matchesSavedGraph() throws IOException {
+        Random rand = new Random(3);
+        for (int t = 0; t < 20; t++) {
+            weighted_graph ds = new WGraph_DS();
+            int n = rand.nextInt(100);
+            for (int i = 0; i < n; i++) {
+                ds.addNode(rand.nextInt(400) - 200);
+            }
+            for (int i = 0; i < n * 3; i++) {
+                ds.connect(rand.nextInt(400) - 200, rand.nextInt(400) - 200, rand.nextInt(50) / 4.0);
+            }
+            for (node_info node : ds.getV()) {
+                node.setTag(rand.nextDouble());
+                if (rand.nextBoolean()) {
+                    node.setInfo("node " + node.getKey());
+                }
+            }
+            WGraph_Mapped g = save(ds);
+            assertEquals(ds.nodeSize(), g.nodeSize());
+            assertEquals(ds.edgeSize(), g.edgeSize());
+            assertEquals(ds.getMC(), g.getMC());
+            assertEquals(ds.getV().size(), g.getV().size());
+            int previous = Integer.MIN_VALUE;
+            for (node_info node : g.getV()) { // ordered by key
+                assertTrue(node.getKey() > previous);
+                previous = node.getKey();
+            }
+            for (int a = -201; a <= 200; a++) {
+                node_info expected = ds.getNode(a);
+                node_info node = g.getNode(a);
+                if (expected == null) {
+                    assertNull(node);
+                    assertTrue(g.getV(a).isEmpty());
+                    g.forEachNeighbor(a, (k, w) -> fail("there is no such node"));
+                    continue;
+                }
+                assertEquals(a, node.getKey());
+                assertEquals(expected.getTag(), node.getTag());
+                assertEquals(expected.getInfo(), node.getInfo());
+                assertEquals(keys(ds.getV(a)), keys(g.getV(a)));
+                for (node_info ni : ds.getV(a)) {
+                    assertTrue(g.hasEdge(a, ni.getKey()));
+                    assertEquals(ds.getEdge(a, ni.getKey()), g.getEdge(a, ni.getKey()));
+                }
+                final int key = a;
+                int[] count = new int[1];
+                g.forEachNeighbor(a, (k, w) -> {
+                    assertEquals(ds.getEdge(key, k), w);
+                    count[0]++;
+                });
+                assertEquals(ds.getV(a).size(), count[0]);
+                assertFalse(g.hasEdge(a, 201));
+                assertEquals(-1, g.getEdge(a, 201));
+            }
+            assertEquals(new WGraph_DS(ds), new WGraph_DS(g));
+        }
+    }
+
+    @Test
+    void tagsAndInfos() throws IOException {
+        weighted_graph ds = new WGraph_DS();
+        ds.addNode(1);
+        ds.addNode(2);
+        ds.connect(1, 2, 3);
+        ds.getNode(1).setInfo("one \u05e9");
+        WGraph_Mapped g = save(ds);
+        node_info one = g.getNode(1);
+        assertEquals("one \u05e9", one.getInfo());
+        assertNull(g.getNode(2).getInfo());
+        assertEquals(one, g.getNode(1));
+        assertEquals(one.hashCode(), g.getNode(1).hashCode());
+        assertNotEquals(one, g.getNode(2));
+        assertEquals(one, g.getV(2).iterator().next());
+        one.setTag(7.5);
+        one.setInfo(null);
+        g.getNode(2).setInfo("two");
+        assertEquals(7.5, g.getNode(1).getTag());
+        assertNull(g.getNode(1).getInfo());
+        assertEquals("two", g.getNode(2).getInfo());
+        WGraph_Mapped again = new WGraph_Mapped(FILE); // the file itself did not change
+        assertEquals(0, again.getNode(1).getTag());
+        assertEquals("one \u05e9", again.getNode(1).getInfo());
+        assertEquals(g, again);
+        assertNotEquals(one, again.getNode(1));
+    }
+
+    @Test
+    void immutable() throws IOException {
+        WGraph_Mapped g = save(new WGraph_DS());
+        assertEquals(0, g.nodeSize());
+        assertTrue(g.getV().isEmpty());
+        assertNull(g.getNode(0));
+        assertThrows(UnsupportedOperationException.class, () -> g.addNode(1));
+        assertThrows(UnsupportedOperationException.class, () -> g.connect(1, 2, 1));
+        assertThrows(UnsupportedOperationException.class, () -> g.removeNode(1));
+        assertThrows(UnsupportedOperationException.class, () -> g.removeEdge(1, 2));
+    }
+
+    @Test
+    void algorithmsAndBadFiles() throws IOException {
+        weighted_graph ds = new WGraph_DS();
+        for (int i = 0; i < 6; i++) {
+            ds.addNode(i);
+        }
+        ds.connect(0, 1, 1);
+        ds.connect(1, 2, 1);
+        ds.connect(0, 2, 5);
+        ds.connect(3, 4, 1);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(ds);
+        assertTrue(ga.save(FILE));
+        assertTrue(ga.loadMapped(FILE));
+        assertTrue(ga.getGraph() instanceof WGraph_Mapped);
+        assertEquals(2, ga.shortestPathDist(0, 2));
+        assertEquals(3, ga.shortestPath(0, 2).size());
+        assertEquals(-1, ga.shortestPathDist(0, 3));
+        assertFalse(ga.isConnected());
+        assertEquals(3, ga.components().count());
+        ga.setStrategy(WGraph_Algo.Strategy.CH);
+        assertEquals(2, ga.shortestPathDist(2, 0));
+
+        weighted_graph before = ga.getGraph();
+        byte[] bytes = Files.readAllBytes(Paths.get(FILE));
+        try (FileOutputStream out = new FileOutputStream(FILE)) { // cut in the middle of the edges
+            out.write(bytes, 0, bytes.length / 2);
+        }
+        assertFalse(ga.loadMapped(FILE));
+        try (FileOutputStream out = new FileOutputStream(FILE)) {
+            out.write("not a graph".getBytes());
+        }
+        assertFalse(ga.loadMapped(FILE));
+        assertFalse(ga.loadMapped("no_such_file.txt"));
+        assertFalse(ga.loadMapped(null));
+        assertSame(before, ga.getGraph());
+    }
+
+    private static WGraph_Mapped save(weighted_graph g) throws IOException {
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        assertTrue(ga.save(FILE));
+        return new WGraph_Mapped(FILE);
+    }
+
+    private static Set<Integer> keys(Iterable<node_info> nodes) {
+        Set<Integer> keys = new HashSet<>();
+        for (node_info n : nodes) {
+            keys.add(n.getKey());
+        }
+        return keys;
+    }
+}
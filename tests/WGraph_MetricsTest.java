@@ -0,0 +1,155 @@
+package ex1.tests;
+
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_ConcurrentAlgo;
+import ex1.src.WGraph_DS;
+import ex1.src.WGraph_Metrics;
+import ex1.src.WGraph_MetricsMXBean;
+import ex1.src.WGraph_PathCache;
+import ex1.src.WGraph_QueryListener;
+import ex1.src.weighted_graph;
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is a TEST class for the query listener of WGraph_Algo and for WGraph_Metrics (histograms and JMX).
+ */
+class WGraph_MetricsTest {
+
+    @Test
+    void queryStats() {
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < 6; i++) {
+            g.addNode(i);
+        }
+        for (int i = 0; i < 4; i++) {
+            g.connect(i, i + 1, 1); // 0-1-2-3-4, 5 is alone
+        }
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        List<WGraph_QueryListener.Stats> stats = new ArrayList<>();
+        ga.setListener(stats::add);
+        assertNotNull(ga.getListener());
+
+        assertEquals(4, ga.shortestPathDist(0, 4));
+        WGraph_QueryListener.Stats s = stats.get(0);
+        assertEquals(WGraph_QueryListener.Query.SHORTEST_PATH_DIST, s.getQuery());
+        assertEquals(5, s.getNodesSettled());
+        assertEquals(7, s.getEdgesRelaxed()); // the edges of 0, 1, 2 and 3, 4 is the target
+        assertEquals(5, s.getHeapPushes());
+        assertEquals(5, s.getHeapPops());
+        assertTrue(s.getElapsedNanos() > 0);
+        assertTrue(s.getResetNanos() <= s.getElapsedNanos());
+
+        assertEquals(5, ga.shortestPath(0, 4).size());
+        assertEquals(WGraph_QueryListener.Query.SHORTEST_PATH, stats.get(1).getQuery());
+        assertEquals(5, stats.get(1).getNodesSettled());
+
+        ga.setStrategy(WGraph_Algo.Strategy.BIDIRECTIONAL); // both sides are counted
+        assertEquals(-1, ga.shortestPathDist(0, 5));
+        assertTrue(stats.get(2).getNodesSettled() >= 1);
+        assertEquals(stats.get(2).getHeapPops(), stats.get(2).getNodesSettled());
+
+        assertEquals(0, ga.shortestPathDist(3, 3)); // no search
+        assertEquals(0, stats.get(3).getNodesSettled());
+        assertFalse(ga.isConnected());
+        assertEquals(WGraph_QueryListener.Query.IS_CONNECTED, stats.get(4).getQuery());
+        assertEquals(0, stats.get(4).getHeapPushes());
+
+        ga.setCache(new WGraph_PathCache(4, 0));
+        ga.shortestPathDist(1, 4);
+        assertTrue(stats.get(5).getNodesSettled() > 0);
+        assertFalse(stats.get(5).isCached());
+        ga.shortestPathDist(4, 1); // a cache hit
+        assertTrue(stats.get(6).isCached());
+        assertEquals(0, stats.get(6).getNodesSettled());
+        assertEquals(0, stats.get(6).getEdgesRelaxed());
+
+        ga.setCache(null);
+        ga.setStrategy(WGraph_Algo.Strategy.CH); // the upward searches are counted
+        assertEquals(4, ga.shortestPathDist(0, 4));
+        assertEquals(5, ga.shortestPath(0, 4).size());
+        for (WGraph_QueryListener.Stats ch : stats.subList(7, 9)) {
+            assertFalse(ch.isCached());
+            assertTrue(ch.getNodesSettled() > 0);
+            assertTrue(ch.getEdgesRelaxed() > 0);
+            assertEquals(ch.getHeapPops(), ch.getNodesSettled());
+            assertTrue(ch.getHeapPushes() >= ch.getHeapPops());
+        }
+
+        ga.setListener(null);
+        ga.shortestPathDist(0, 4);
+        assertEquals(9, stats.size());
+    }
+
+    @Test
+    void histograms() throws Exception {
+        weighted_graph g = graphCreator(2000, 6000, 20, 4);
+        WGraph_ConcurrentAlgo ga = new WGraph_ConcurrentAlgo();
+        ga.init(g);
+        WGraph_Metrics metrics = new WGraph_Metrics();
+        ga.setListener(metrics);
+        Random rand = new Random(4);
+        for (int i = 0; i < 300; i++) {
+            ga.shortestPathDist(rand.nextInt(2000), rand.nextInt(2000));
+        }
+        for (int i = 0; i < 100; i++) {
+            ga.shortestPath(rand.nextInt(2000), rand.nextInt(2000));
+        }
+        ga.isConnected();
+        assertEquals(0, metrics.getCacheHits());
+        WGraph_Metrics.Latency dist = metrics.latency(WGraph_QueryListener.Query.SHORTEST_PATH_DIST);
+        assertEquals(300, dist.getCount());
+        assertEquals(100, metrics.getShortestPathLatency().getCount());
+        assertEquals(1, metrics.getIsConnectedLatency().getCount());
+        assertTrue(dist.getMeanMicros() > 0);
+        assertTrue(dist.getP50Micros() <= dist.getP90Micros());
+        assertTrue(dist.getP90Micros() <= dist.getP99Micros());
+        assertTrue(dist.getP99Micros() <= dist.getMaxMicros());
+        assertTrue(dist.getMeanMicros() <= dist.getMaxMicros());
+        assertTrue(metrics.getNodesSettled() > 400);
+        assertTrue(metrics.getNodesSettled() <= metrics.getHeapPops());
+        assertTrue(metrics.getHeapPushes() >= metrics.getHeapPops());
+        assertTrue(metrics.getEdgesRelaxed() >= metrics.getHeapPops());
+
+        ObjectName name = metrics.register("test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            CompositeData latency = (CompositeData) server.getAttribute(name, "ShortestPathDistLatency");
+            assertEquals(300L, latency.get("count"));
+            assertEquals(metrics.getNodesSettled(), server.getAttribute(name, "NodesSettled"));
+            WGraph_MetricsMXBean proxy = JMX.newMXBeanProxy(server, name, WGraph_MetricsMXBean.class);
+            assertEquals(100, proxy.getShortestPathLatency().getCount());
+            assertEquals(dist.getP99Micros(), proxy.getShortestPathDistLatency().getP99Micros());
+            proxy.reset();
+            assertEquals(0, metrics.getShortestPathDistLatency().getCount());
+            assertEquals(0, metrics.getNodesSettled());
+        } finally {
+            metrics.unregister();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+    private static weighted_graph graphCreator(int vSize, int eSize, int weight, int seed) {
+        weighted_graph graph = new WGraph_DS();
+        Random rand = new Random(seed);
+        for (int i = 0; i < vSize; i++) {
+            graph.addNode(i);
+        }
+        while (graph.edgeSize() < eSize) {
+            graph.connect(rand.nextInt(vSize), rand.nextInt(vSize), rand.nextInt(weight));
+        }
+        return graph;
+    }
+}
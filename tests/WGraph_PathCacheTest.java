@@ -0,0 +1,172 @@
+package ex1.tests;
+
+
+import ex1.src.WGraph_Algo;
+import ex1.src.WGraph_DS;
+import ex1.src.WGraph_PathCache;
+import ex1.src.node_info;
+import ex1.src.weighted_graph;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This is a TEST class for WGraph_PathCache, checks the cached answers of WGraph_Algo, the counters and the invalidation.
+ */
+class WGraph_PathCacheTest {
+
+    @Test
+    void matchesUncached() {
+        weighted_graph g = graphCreator(1500, 4000, 20, 5);
+        for (WGraph_Algo.Strategy strategy : WGraph_Algo.Strategy.values()) {
+            WGraph_Algo plain = new WGraph_Algo();
+            plain.init(g);
+            plain.setStrategy(strategy);
+            WGraph_Algo ga = new WGraph_Algo();
+            ga.init(g);
+            ga.setStrategy(strategy);
+            WGraph_PathCache cache = new WGraph_PathCache(64, 4);
+            ga.setCache(cache);
+            Random rand = new Random(5);
+            int queries = 0;
+            for (int i = 0; i < 600; i++) {
+                int src = rand.nextInt(12); // few sources and destinations, so pairs repeat and trees are built
+                int dest = rand.nextInt(3) == 0 ? rand.nextInt(1500) : 1000 + rand.nextInt(30);
+                double expected = plain.shortestPathDist(src, dest);
+                queries += src == dest ? 0 : 2; // a node to itself does not use the cache
+                assertEquals(expected, ga.shortestPathDist(src, dest), strategy + " " + src + "->" + dest);
+                List<node_info> path = ga.shortestPath(src, dest);
+                if (expected == -1) {
+                    assertNull(path);
+                    continue;
+                }
+                assertEquals(src, path.get(0).getKey());
+                assertEquals(dest, path.get(path.size() - 1).getKey());
+                double sum = 0;
+                for (int k = 1; k < path.size(); k++) {
+                    sum += g.getEdge(path.get(k - 1).getKey(), path.get(k).getKey());
+                }
+                assertEquals(expected, sum);
+                path.clear(); // the caller owns the list
+            }
+            assertTrue(cache.hitCount() > 0);
+            assertTrue(cache.treeHitCount() > 0);
+            assertEquals(queries, cache.hitCount() + cache.missCount());
+        }
+    }
+
+    @Test
+    void counters() {
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < 4; i++) {
+            g.addNode(i);
+        }
+        for (int i = 0; i < 3; i++) {
+            g.connect(i, i + 1, 1);
+        }
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        WGraph_PathCache cache = new WGraph_PathCache(2, 0);
+        ga.setCache(cache);
+        assertSame(cache, ga.getCache());
+        assertEquals(3, ga.shortestPathDist(0, 3));
+        assertEquals(3, ga.shortestPathDist(3, 0)); // the reverse pair shares the entry
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(4, ga.shortestPath(0, 3).size()); // only the distance was cached
+        assertEquals(2, cache.missCount());
+        List<node_info> back = ga.shortestPath(3, 0);
+        assertEquals(2, cache.hitCount());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(3 - i, back.get(i).getKey());
+        }
+        assertEquals(0, ga.shortestPathDist(2, 2)); // not cached
+        assertEquals(4, cache.missCount() + cache.hitCount());
+        ga.shortestPathDist(0, 1);
+        ga.shortestPathDist(0, 2); // evicts (0, 3)
+        assertEquals(1, cache.evictionCount());
+        assertEquals(2, cache.pairCount());
+        assertEquals(3, ga.shortestPathDist(0, 3));
+        assertEquals(5, cache.missCount());
+        assertEquals(2, cache.evictionCount());
+        assertEquals(0, cache.treeHitCount());
+
+        g.connect(0, 3, 1);
+        assertEquals(1, ga.shortestPathDist(0, 3));
+        assertEquals(1, cache.invalidationCount());
+        assertEquals(6, cache.missCount());
+        g.addNode(9);
+        assertEquals(-1, ga.shortestPathDist(0, 9));
+        assertNull(ga.shortestPath(9, 0)); // no path is cached too
+        assertEquals(3, cache.hitCount());
+        assertEquals(2, cache.invalidationCount());
+
+        weighted_graph other = new WGraph_DS(); // a cache follows the graph it serves
+        other.addNode(0);
+        other.addNode(3);
+        WGraph_Algo ga2 = new WGraph_Algo();
+        ga2.init(other);
+        ga2.setCache(cache);
+        assertEquals(-1, ga2.shortestPathDist(0, 3));
+        assertEquals(3, cache.invalidationCount());
+        cache.clear();
+        assertEquals(0, cache.pairCount());
+        ga.setCache(null);
+        assertEquals(1, ga.shortestPathDist(0, 3));
+        assertEquals(3, cache.hitCount());
+        assertThrows(IllegalArgumentException.class, () -> new WGraph_PathCache(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new WGraph_PathCache(1, -1));
+    }
+
+    @Test
+    void sourceTrees() {
+        weighted_graph g = graphCreator(200, 600, 10, 2);
+        WGraph_Algo plain = new WGraph_Algo();
+        plain.init(g);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        WGraph_PathCache cache = new WGraph_PathCache(16, 2);
+        ga.setCache(cache);
+        ga.shortestPathDist(0, 5);
+        assertEquals(0, cache.treeCount());
+        ga.shortestPathDist(0, 6); // the second miss of 0 builds its tree
+        assertEquals(1, cache.treeCount());
+        assertEquals(2, cache.missCount());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(plain.shortestPathDist(0, i), ga.shortestPathDist(0, i));
+            assertEquals(plain.shortestPathDist(i, 0), ga.shortestPathDist(i, 0)); // the tree of the destination
+            List<node_info> path = ga.shortestPath(i, 0);
+            if (path != null) {
+                assertEquals(i, path.get(0).getKey());
+                assertEquals(0, path.get(path.size() - 1).getKey());
+            }
+        }
+        assertEquals(2, cache.missCount());
+        assertTrue(cache.treeHitCount() > 190);
+        for (int s = 1; s <= 3; s++) { // three more trees, the tree of 0 and then of 1 are evicted
+            ga.shortestPathDist(s, 100);
+            ga.shortestPathDist(s, 101);
+        }
+        assertEquals(2, cache.treeCount());
+        assertTrue(cache.evictionCount() >= 2);
+        g.removeEdge(g.getV(0).iterator().next().getKey(), 0);
+        ga.shortestPathDist(3, 150);
+        assertEquals(0, cache.treeCount());
+        assertEquals(1, cache.invalidationCount());
+    }
+
+    private static weighted_graph graphCreator(int vSize, int eSize, int weight, int seed) {
+        weighted_graph graph = new WGraph_DS();
+        Random rand = new Random(seed);
+        for (int i = 0; i < vSize; i++) {
+            graph.addNode(i);
+        }
+        while (graph.edgeSize() < eSize) {
+            graph.connect(rand.nextInt(vSize), rand.nextInt(vSize), rand.nextInt(weight));
+        }
+        return graph;
+    }
+}